@@ -0,0 +1,401 @@
+package com.home.services.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.home.services.dto.response.MessageResponse;
+import com.home.services.event.MessageSentEvent;
+import com.home.services.model.Conversation;
+import com.home.services.model.Message;
+import com.home.services.model.User;
+import com.home.services.repository.ConversationRepository;
+import com.home.services.repository.MessageRepository;
+import com.home.services.repository.UserRepository;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache des conversations actives pour la lecture du chat
+ * Les derniers messages de chaque conversation sont conservés sérialisés dans des segments
+ * mappés en mémoire ; l'index (participants, repères de lecture, positions) reste sur le tas.
+ * Alimenté après chaque envoi, reconstruit depuis la base au démarrage et en cas d'absence,
+ * et borné par un budget d'octets mappés (éviction des conversations les moins récemment lues)
+ * Le cache est propre à chaque instance : un message envoyé via un autre nœud n'y est pas ajouté.
+ * Chaque conversation est donc rechargée au plus tard max-age-ms après son chargement, et le polling
+ * (messages postérieurs à un curseur) est toujours servi par la base
+ */
+@Component
+@Slf4j
+public class HotConversationCache {
+
+    private final ConversationRepository conversationRepository;
+    private final MessageRepository messageRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final MessageSegmentStore store;
+    private final int messagesPerConversation;
+    private final long maxBytes;
+    private final int warmConversations;
+    private final long maxAgeMs;
+
+    // Ordre d'accès : la première entrée est la moins récemment utilisée (protégé par this)
+    private final LinkedHashMap<Long, HotConversation> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Messages reçus pendant le chargement d'une conversation (protégé par this)
+    private final Map<Long, List<MessageResponse>> loading = new HashMap<>();
+
+    // Borné en nombre, éviction des moins récemment utilisés (protégé par lui-même)
+    private final LinkedHashMap<String, Long> userIdsByEmail;
+
+    public HotConversationCache(
+            ConversationRepository conversationRepository,
+            MessageRepository messageRepository,
+            UserRepository userRepository,
+            ObjectMapper objectMapper,
+            @Value("${app.messages.hot-cache.dir:${java.io.tmpdir}/home-services-hot-cache}") String directory,
+            @Value("${app.messages.hot-cache.segment-bytes:8388608}") int segmentBytes,
+            @Value("${app.messages.hot-cache.max-bytes:134217728}") long maxBytes,
+            @Value("${app.messages.hot-cache.messages-per-conversation:200}") int messagesPerConversation,
+            @Value("${app.messages.hot-cache.warm-conversations:200}") int warmConversations,
+            @Value("${app.messages.hot-cache.max-age-ms:30000}") long maxAgeMs,
+            @Value("${app.messages.hot-cache.max-users:10000}") int maxUsers) {
+        this.conversationRepository = conversationRepository;
+        this.messageRepository = messageRepository;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.store = new MessageSegmentStore(Path.of(directory), segmentBytes);
+        this.maxBytes = maxBytes;
+        this.messagesPerConversation = messagesPerConversation;
+        this.warmConversations = warmConversations;
+        this.maxAgeMs = maxAgeMs;
+        this.userIdsByEmail = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Précharger les conversations les plus récemment actives
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<Long> applicationIds = conversationRepository.findRecentlyActiveApplicationIds(
+                PageRequest.of(0, warmConversations));
+        applicationIds.forEach(this::load);
+        log.info("Cache des conversations actives : {} conversations préchargées", applicationIds.size());
+    }
+
+    /**
+     * Id d'un utilisateur par email (les ids ne changent pas)
+     */
+    public Long userId(String email) {
+        synchronized (userIdsByEmail) {
+            Long cached = userIdsByEmail.get(email);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Long id = userRepository.findByEmail(email).map(User::getId).orElse(null);
+        if (id != null) {
+            synchronized (userIdsByEmail) {
+                userIdsByEmail.put(email, id);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Page la plus récente d'une conversation (chargée si absente)
+     * La participation du lecteur doit avoir été vérifiée avant (voir participants)
+     * null si la page ne peut pas être servie depuis le cache
+     */
+    public HotPage page(Long applicationId, int limit) {
+        HotConversation conversation = get(applicationId);
+        if (conversation == null) {
+            return null;
+        }
+
+        List<byte[]> records = new ArrayList<>(limit);
+        boolean hasOlder;
+        Long lastMessageId;
+        synchronized (this) {
+            if (conversation.evicted) {
+                return null;
+            }
+            List<CachedMessage> messages = conversation.messages;
+            int to = messages.size();
+            int from = Math.max(0, to - limit);
+            hasOlder = from > 0 || !conversation.complete;
+            for (CachedMessage message : messages.subList(from, to)) {
+                records.add(store.read(message.ref()));
+            }
+            lastMessageId = messages.isEmpty() ? null : messages.get(messages.size() - 1).id();
+        }
+
+        List<MessageResponse> responses = new ArrayList<>(records.size());
+        for (byte[] record : records) {
+            responses.add(deserialize(record));
+        }
+        return new HotPage(conversation, responses, lastMessageId, hasOlder);
+    }
+
+    /**
+     * Participants d'une conversation, ou null si elle n'existe pas
+     * Lus depuis le cache si la conversation y est, sinon par une projection en base : rien n'est chargé
+     * dans le cache avant que l'appelant ait vérifié la participation
+     */
+    public Participants participants(Long applicationId) {
+        synchronized (this) {
+            HotConversation cached = entries.get(applicationId);
+            if (cached != null) {
+                return new Participants(cached.clientId, cached.providerId);
+            }
+        }
+        return conversationRepository.findParticipantsByApplicationId(applicationId)
+                .map(p -> new Participants(p.getClientId(), p.getProviderId()))
+                .orElse(null);
+    }
+
+    /**
+     * Autre participant de la conversation, ou null si l'utilisateur n'y participe pas (ou si elle n'existe pas)
+     */
+    public Long otherParticipant(Long applicationId, Long userId) {
+        Participants participants = participants(applicationId);
+        if (participants == null) {
+            return null;
+        }
+        if (userId.equals(participants.clientId())) {
+            return participants.providerId();
+        }
+        return userId.equals(participants.providerId()) ? participants.clientId() : null;
+    }
+
+    synchronized boolean isCached(Long applicationId) {
+        return entries.containsKey(applicationId);
+    }
+
+    /**
+     * Reporter l'avancée d'un repère de lecture enregistrée en base
+     */
+    public synchronized void recordRead(Long applicationId, boolean client, Long messageId, LocalDateTime readAt) {
+        HotConversation conversation = entries.get(applicationId);
+        if (conversation == null) {
+            return;
+        }
+        if (client && (conversation.clientLastRead == null || conversation.clientLastRead < messageId)) {
+            conversation.clientLastRead = messageId;
+            conversation.clientReadAt = readAt;
+        } else if (!client && (conversation.providerLastRead == null || conversation.providerLastRead < messageId)) {
+            conversation.providerLastRead = messageId;
+            conversation.providerReadAt = readAt;
+        }
+    }
+
+    /**
+     * Ajouter le message envoyé si sa conversation est en cache (ou en cours de chargement)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        MessageResponse message = event.getMessage();
+        byte[] record = serialize(message);
+        synchronized (this) {
+            HotConversation conversation = entries.get(message.getApplicationId());
+            if (conversation != null) {
+                append(conversation, message.getId(), record);
+                enforceBudget();
+            } else if (loading.containsKey(message.getApplicationId())) {
+                loading.get(message.getApplicationId()).add(message);
+            }
+        }
+    }
+
+    private HotConversation get(Long applicationId) {
+        synchronized (this) {
+            HotConversation conversation = entries.get(applicationId);
+            if (conversation != null) {
+                if (System.currentTimeMillis() - conversation.loadedAt <= maxAgeMs) {
+                    return conversation;
+                }
+                // Trop ancienne : des messages envoyés via un autre nœud peuvent manquer
+                evict(conversation);
+                entries.remove(applicationId);
+            }
+        }
+        return load(applicationId);
+    }
+
+    private HotConversation load(Long applicationId) {
+        synchronized (this) {
+            loading.putIfAbsent(applicationId, new ArrayList<>());
+        }
+        try {
+            Conversation conversation = conversationRepository.findByApplicationId(applicationId).orElse(null);
+            if (conversation == null) {
+                return null;
+            }
+            List<Message> latest = new ArrayList<>(messageRepository.findLatest(applicationId,
+                    PageRequest.of(0, messagesPerConversation + 1)));
+            boolean complete = latest.size() <= messagesPerConversation;
+            latest = latest.subList(0, Math.min(messagesPerConversation, latest.size()));
+            Collections.reverse(latest);
+
+            List<byte[]> records = new ArrayList<>(latest.size());
+            for (Message message : latest) {
+                records.add(serialize(MessageResponse.builder()
+                        .id(message.getId())
+                        .applicationId(applicationId)
+                        .senderId(message.getSender().getId())
+                        .senderNom(message.getSender().getNom())
+                        .content(message.getContent())
+                        .createdAt(message.getCreatedAt())
+                        .build()));
+            }
+
+            synchronized (this) {
+                HotConversation existing = entries.get(applicationId);
+                if (existing != null) {
+                    return existing;
+                }
+                HotConversation hot = new HotConversation(conversation, complete);
+                for (int i = 0; i < latest.size(); i++) {
+                    append(hot, latest.get(i).getId(), records.get(i));
+                }
+                // Messages validés pendant le chargement
+                for (MessageResponse message : loading.getOrDefault(applicationId, List.of())) {
+                    append(hot, message.getId(), serialize(message));
+                }
+                entries.put(applicationId, hot);
+                enforceBudget();
+                return hot;
+            }
+        } finally {
+            synchronized (this) {
+                loading.remove(applicationId);
+            }
+        }
+    }
+
+    // Appelé sous verrou ; ignore les messages déjà présents
+    private void append(HotConversation conversation, Long id, byte[] record) {
+        List<CachedMessage> messages = conversation.messages;
+        if (!messages.isEmpty() && messages.get(messages.size() - 1).id() >= id) {
+            return;
+        }
+        messages.add(new CachedMessage(id, store.append(record)));
+        if (messages.size() > messagesPerConversation) {
+            store.release(messages.remove(0).ref());
+            conversation.complete = false;
+        }
+    }
+
+    // Appelé sous verrou
+    private void enforceBudget() {
+        Iterator<HotConversation> eldest = entries.values().iterator();
+        while (store.mappedBytes() > maxBytes && entries.size() > 1 && eldest.hasNext()) {
+            HotConversation conversation = eldest.next();
+            eldest.remove();
+            evict(conversation);
+        }
+    }
+
+    // Appelé sous verrou ; l'appelant retire l'entrée de la table
+    private void evict(HotConversation conversation) {
+        conversation.evicted = true;
+        conversation.messages.forEach(m -> store.release(m.ref()));
+        conversation.messages.clear();
+    }
+
+    synchronized int segmentCount() {
+        return store.segmentCount();
+    }
+
+    private byte[] serialize(MessageResponse message) {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MessageResponse deserialize(byte[] record) {
+        try {
+            return objectMapper.readValue(record, MessageResponse.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Page servie depuis le cache ; les champs propres au lecteur (isOwnMessage, isRead) restent à calculer
+     */
+    public record HotPage(HotConversation conversation, List<MessageResponse> messages, Long lastMessageId,
+            boolean hasOlder) {
+    }
+
+    /**
+     * Client et prestataire d'une conversation
+     */
+    public record Participants(Long clientId, Long providerId) {
+
+        public boolean includes(Long userId) {
+            return userId.equals(clientId) || userId.equals(providerId);
+        }
+    }
+
+    /**
+     * Participants et repères de lecture d'une conversation en cache
+     */
+    @Getter
+    public static class HotConversation {
+        private final Long conversationId;
+        private final Long clientId;
+        private final Long providerId;
+        private volatile Long clientLastRead;
+        private volatile LocalDateTime clientReadAt;
+        private volatile Long providerLastRead;
+        private volatile LocalDateTime providerReadAt;
+
+        // Protégés par le verrou du cache
+        @Getter(AccessLevel.NONE)
+        private final List<CachedMessage> messages = new ArrayList<>();
+        @Getter(AccessLevel.NONE)
+        private boolean complete;
+        @Getter(AccessLevel.NONE)
+        private boolean evicted;
+        @Getter(AccessLevel.NONE)
+        private final long loadedAt = System.currentTimeMillis();
+
+        private HotConversation(Conversation conversation, boolean complete) {
+            this.conversationId = conversation.getId();
+            this.clientId = conversation.getClient().getId();
+            this.providerId = conversation.getProvider().getId();
+            this.clientLastRead = conversation.getClientLastReadMessageId();
+            this.clientReadAt = conversation.getClientLastReadAt();
+            this.providerLastRead = conversation.getProviderLastReadMessageId();
+            this.providerReadAt = conversation.getProviderLastReadAt();
+            this.complete = complete;
+        }
+    }
+
+    private record CachedMessage(Long id, MessageSegmentStore.Ref ref) {
+    }
+}
@@ -0,0 +1,194 @@
+package com.home.services.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Segments mappés en mémoire, en ajout seul, contenant des enregistrements opaques
+ * Un segment dont tous les enregistrements ont été libérés est démappé puis supprimé
+ * Les appelants synchronisent l'accès (voir HotConversationCache)
+ */
+@Slf4j
+class MessageSegmentStore {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    // Démappage immédiat (sun.misc.Unsafe.invokeCleaner) ; null si indisponible : libération à la collecte
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Démappage explicite des segments indisponible : mémoire libérée à la collecte", e);
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Map<Integer, Segment> segments = new TreeMap<>();
+    private Segment current;
+    private int nextSegmentId;
+
+    MessageSegmentStore(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            // Le contenu est reconstruit depuis la base : les anciens segments sont obsolètes
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .sorted(Comparator.naturalOrder())
+                        .forEach(this::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'initialiser le cache de messages dans " + directory, e);
+        }
+    }
+
+    /**
+     * Ajouter un enregistrement au segment courant (nouveau segment s'il est plein)
+     */
+    Ref append(byte[] record) {
+        if (record.length > segmentSize) {
+            throw new IllegalArgumentException("Enregistrement plus grand qu'un segment");
+        }
+        if (current == null || current.buffer.remaining() < record.length) {
+            current = openSegment();
+        }
+        int offset = current.buffer.position();
+        current.buffer.put(record);
+        current.liveRecords++;
+        return new Ref(current.id, offset, record.length);
+    }
+
+    byte[] read(Ref ref) {
+        Segment segment = segments.get(ref.segment());
+        if (segment == null) {
+            return null;
+        }
+        byte[] record = new byte[ref.length()];
+        // Lecture absolue : la position d'écriture du segment n'est pas modifiée
+        segment.buffer.get(ref.offset(), record);
+        return record;
+    }
+
+    /**
+     * Libérer un enregistrement ; le segment est supprimé lorsqu'il ne contient plus rien
+     */
+    void release(Ref ref) {
+        Segment segment = segments.get(ref.segment());
+        if (segment == null) {
+            return;
+        }
+        segment.liveRecords--;
+        if (segment.liveRecords <= 0 && segment != current) {
+            delete(segment);
+        }
+    }
+
+    /**
+     * Taille mappée totale (segments ouverts × taille de segment)
+     * Exacte : un segment retiré est démappé aussitôt, il ne reste pas en mémoire jusqu'à la collecte
+     */
+    long mappedBytes() {
+        return (long) segments.size() * segmentSize;
+    }
+
+    /**
+     * Nombre de segments ouverts
+     */
+    int segmentCount() {
+        return segments.size();
+    }
+
+    private Segment openSegment() {
+        int id = nextSegmentId++;
+        Path path = null;
+        try {
+            // Nom unique : plusieurs instances peuvent partager le répertoire
+            path = Files.createTempFile(directory, String.format("%s%08d-", SEGMENT_PREFIX, id), SEGMENT_SUFFIX);
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+            Segment segment = new Segment(id, path, buffer);
+            segments.put(id, segment);
+            if (current != null && current.liveRecords <= 0) {
+                delete(current);
+            }
+            return segment;
+        } catch (IOException e) {
+            if (path != null) {
+                deleteQuietly(path);
+            }
+            throw new UncheckedIOException("Impossible de créer le segment dans " + directory, e);
+        }
+    }
+
+    // Le segment ne doit plus être lu : le démappage rend son buffer inutilisable
+    private void delete(Segment segment) {
+        segments.remove(segment.id);
+        unmap(segment.buffer);
+        deleteQuietly(segment.path);
+    }
+
+    private void unmap(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Segment non démappé : mémoire libérée à la collecte", e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Segment {} non supprimé", path, e);
+        }
+    }
+
+    record Ref(int segment, int offset, int length) {
+    }
+
+    private static class Segment {
+        private final int id;
+        private final Path path;
+        private final ByteBuffer buffer;
+        private int liveRecords;
+
+        private Segment(int id, Path path, ByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
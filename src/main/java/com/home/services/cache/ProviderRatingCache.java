@@ -0,0 +1,80 @@
+package com.home.services.cache;
+
+import com.home.services.dto.response.ProviderRatingSummaryResponse;
+import com.home.services.event.ReviewCreatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Résumés de notes par prestataire, calculés à la première lecture puis servis depuis la mémoire
+ * Invalidés après le commit de chaque nouvel avis ; bornés en nombre (éviction des moins récemment lus)
+ * Le cache est propre à chaque instance et l'invalidation reste locale : chaque entrée expire aussi
+ * après ttl-ms, ce qui borne le retard d'un nœud sur un avis reçu par un autre nœud
+ */
+@Component
+public class ProviderRatingCache {
+
+    private final int maxEntries;
+    private final long ttlMs;
+
+    // Ordre d'accès : la première entrée est la moins récemment utilisée (protégé par this)
+    private final LinkedHashMap<Long, Entry> entries;
+
+    // Incrémenté à chaque invalidation : un calcul commencé avant n'est pas mis en cache (protégé par this)
+    private long generation;
+
+    public ProviderRatingCache(
+            @Value("${app.reviews.rating-cache.max-entries:10000}") int maxEntries,
+            @Value("${app.reviews.rating-cache.ttl-ms:60000}") long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > ProviderRatingCache.this.maxEntries;
+            }
+        };
+    }
+
+    public ProviderRatingSummaryResponse get(Long providerId, Supplier<ProviderRatingSummaryResponse> loader) {
+        long startedAt;
+        synchronized (this) {
+            Entry cached = entries.get(providerId);
+            if (cached != null && System.currentTimeMillis() - cached.loadedAt() <= ttlMs) {
+                return cached.summary();
+            }
+            startedAt = generation;
+        }
+
+        // Calcul hors verrou : les lectures des autres prestataires ne sont pas bloquées
+        ProviderRatingSummaryResponse summary = loader.get();
+        synchronized (this) {
+            if (generation == startedAt) {
+                entries.put(providerId, new Entry(summary, System.currentTimeMillis()));
+            }
+        }
+        return summary;
+    }
+
+    @TransactionalEventListener
+    public synchronized void onReviewCreated(ReviewCreatedEvent event) {
+        entries.remove(event.getProviderId());
+        generation++;
+    }
+
+    /**
+     * Tout invalider (recalcul des notes depuis la table reviews)
+     */
+    public synchronized void clear() {
+        entries.clear();
+        generation++;
+    }
+
+    private record Entry(ProviderRatingSummaryResponse summary, long loadedAt) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.home.services.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active les tâches planifiées (heartbeats, maintenance)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,59 @@
+package com.home.services.config;
+
+import com.home.services.repository.ConversationRepository;
+import com.home.services.search.InMemoryMessageSearchIndex;
+import com.home.services.search.InMemoryServiceRequestSearchIndex;
+import com.home.services.search.MessageSearchIndex;
+import com.home.services.search.PostgresMessageSearchIndex;
+import com.home.services.search.PostgresServiceRequestSearchIndex;
+import com.home.services.search.ServiceRequestSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Locale;
+
+/**
+ * Choix des index de recherche selon la base : plein texte PostgreSQL en production,
+ * index en mémoire sur H2 (les migrations db/vendor/postgresql n'y sont pas appliquées)
+ */
+@Configuration
+public class SearchConfig {
+
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl;
+
+    @Value("${app.search.requests.engine:auto}")
+    private String requestSearchEngine;
+
+    @Bean
+    public MessageSearchIndex messageSearchIndex(JdbcTemplate jdbcTemplate,
+            ConversationRepository conversationRepository) {
+        if (isPostgres()) {
+            return new PostgresMessageSearchIndex(jdbcTemplate);
+        }
+        return new InMemoryMessageSearchIndex(jdbcTemplate, conversationRepository);
+    }
+
+    /**
+     * Moteur de recherche des annonces : auto (PostgreSQL si disponible), postgres ou memory
+     * L'index en mémoire peut aussi servir sur PostgreSQL pour éviter l'aller-retour en base
+     */
+    @Bean
+    public ServiceRequestSearchIndex serviceRequestSearchIndex(JdbcTemplate jdbcTemplate) {
+        String engine = requestSearchEngine.toLowerCase(Locale.ROOT);
+        if ("postgres".equals(engine) || ("auto".equals(engine) && isPostgres())) {
+            return new PostgresServiceRequestSearchIndex(jdbcTemplate);
+        }
+        if ("memory".equals(engine) || "auto".equals(engine)) {
+            return new InMemoryServiceRequestSearchIndex(jdbcTemplate);
+        }
+        throw new IllegalArgumentException("app.search.requests.engine doit valoir auto, postgres ou memory");
+    }
+
+    private boolean isPostgres() {
+        return DatabaseDriver.fromJdbcUrl(datasourceUrl) == DatabaseDriver.POSTGRESQL;
+    }
+}
@@ -3,6 +3,10 @@ package com.home.services.controller;
 import com.home.services.dto.request.ApplicationDto;
 import com.home.services.dto.response.ApiResponse;
 import com.home.services.dto.response.ApplicationResponse;
+import com.home.services.dto.response.CursorPageResponse;
+import com.home.services.dto.response.ProviderDashboardResponse;
+import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.ranking.RankingProfile;
 import com.home.services.service.ApplicationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -97,18 +101,55 @@ public class ApplicationController {
         return ResponseEntity.ok(ApiResponse.success(responses));
     }
 
+    /**
+     * Tableau de bord prestataire (décomptes, profil, candidatures récentes)
+     * GET /api/applications/dashboard?limit=N
+     */
+    @GetMapping("/dashboard")
+    @PreAuthorize("hasRole('PRESTATAIRE')")
+    public ResponseEntity<ApiResponse<ProviderDashboardResponse>> getDashboard(
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        ProviderDashboardResponse response = applicationService.getProviderDashboard(userDetails.getUsername(),
+                limit);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    /**
+     * Mes candidatures paginées par curseur (Prestataire)
+     * GET /api/applications/my/recent?statut=EN_ATTENTE&cursor=...&limit=N
+     */
+    @GetMapping("/my/recent")
+    @PreAuthorize("hasRole('PRESTATAIRE')")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ApplicationResponse>>> getMyRecentApplications(
+            @RequestParam(required = false) ApplicationStatus statut,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        CursorPageResponse<ApplicationResponse> page = applicationService.getProviderApplications(
+                userDetails.getUsername(), statut, cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
     /**
      * Lister les candidatures pour une annonce (Client)
      * GET /api/applications/request/{requestId}
+     * GET /api/applications/request/{requestId}?classement=EQUILIBRE&limit=10 (candidatures en attente classées)
      */
     @GetMapping("/request/{requestId}")
     @PreAuthorize("hasRole('CLIENT')")
     public ResponseEntity<ApiResponse<List<ApplicationResponse>>> getByRequest(
             @PathVariable Long requestId,
+            @RequestParam(required = false) RankingProfile classement,
+            @RequestParam(required = false) Integer limit,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        List<ApplicationResponse> responses = applicationService.getByServiceRequest(requestId,
-                userDetails.getUsername());
+        List<ApplicationResponse> responses = classement != null
+                ? applicationService.getRankedByServiceRequest(requestId, userDetails.getUsername(), classement,
+                        limit)
+                : applicationService.getByServiceRequest(requestId, userDetails.getUsername());
         return ResponseEntity.ok(ApiResponse.success(responses));
     }
 }
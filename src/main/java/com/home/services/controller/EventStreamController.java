@@ -0,0 +1,52 @@
+package com.home.services.controller;
+
+import com.home.services.dto.response.ApiResponse;
+import com.home.services.security.StreamTicketStore;
+import com.home.services.service.EventStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * Contrôleur pour le flux de notifications temps réel
+ */
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+public class EventStreamController {
+
+    private final EventStreamService eventStreamService;
+    private final StreamTicketStore streamTicketStore;
+
+    /**
+     * Obtenir un ticket à usage unique pour ouvrir le flux ou le WebSocket de la messagerie
+     * POST /api/events/ticket
+     */
+    @PostMapping("/ticket")
+    public ResponseEntity<ApiResponse<Map<String, String>>> ticket(@AuthenticationPrincipal UserDetails userDetails) {
+        String ticket = streamTicketStore.issue(userDetails.getUsername());
+        return ResponseEntity.ok(ApiResponse.success(Map.of("ticket", ticket)));
+    }
+
+    /**
+     * Ouvrir le flux d'événements de l'utilisateur (Server-Sent Events)
+     * GET /api/events/stream?ticket=X&lastEventId=Y
+     * Le ticket ne sert qu'une fois : le client se reconnecte avec un nouveau ticket et passe
+     * le dernier id reçu en paramètre (l'en-tête Last-Event-ID reste accepté)
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        return eventStreamService.subscribe(userDetails.getUsername(),
+                lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+}
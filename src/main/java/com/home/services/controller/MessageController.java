@@ -3,10 +3,14 @@ package com.home.services.controller;
 import com.home.services.dto.request.MessageDto;
 import com.home.services.dto.response.ApiResponse;
 import com.home.services.dto.response.ConversationResponse;
+import com.home.services.dto.response.MessagePageResponse;
 import com.home.services.dto.response.MessageResponse;
+import com.home.services.dto.response.MessageSearchResponse;
+import com.home.services.dto.response.MessageSyncResponse;
 import com.home.services.service.MessageService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,6 +27,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class MessageController {
 
+    private static final String POLL_INTERVAL_HEADER = "X-Poll-Interval";
+
     private final MessageService messageService;
 
     /**
@@ -35,20 +41,65 @@ public class MessageController {
             @AuthenticationPrincipal UserDetails userDetails) {
 
         MessageResponse response = messageService.send(dto, userDetails.getUsername());
+        if (Boolean.TRUE.equals(response.getPending())) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Message en cours d'envoi", response));
+        }
         return ResponseEntity.ok(ApiResponse.success("Message envoyé", response));
     }
 
     /**
-     * Récupérer les messages d'une conversation
-     * GET /api/messages/conversation/{applicationId}
+     * Récupérer les messages d'une conversation (50 derniers par défaut)
+     * GET /api/messages/conversation/{applicationId}?before=X&after=Y&limit=N
      */
     @GetMapping("/conversation/{applicationId}")
-    public ResponseEntity<ApiResponse<List<MessageResponse>>> getConversation(
+    public ResponseEntity<ApiResponse<MessagePageResponse>> getConversation(
             @PathVariable Long applicationId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        List<MessageResponse> responses = messageService.getConversation(applicationId, userDetails.getUsername());
-        return ResponseEntity.ok(ApiResponse.success(responses));
+        MessagePageResponse response = messageService.getConversation(applicationId, userDetails.getUsername(),
+                before, after, limit);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    /**
+     * Synchronisation incrémentale pour le polling
+     * GET /api/messages/sync?since=messageId
+     * 204 (avec l'en-tête X-Poll-Interval) si rien n'a changé
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<ApiResponse<MessageSyncResponse>> sync(
+            @RequestParam(required = false) Long since,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        MessageSyncResponse response = messageService.sync(userDetails.getUsername(), since);
+        if (since != null && response.getCursor().equals(since) && response.getMessages().isEmpty()
+                && response.getConversations().isEmpty()) {
+            return ResponseEntity.noContent()
+                    .header(POLL_INTERVAL_HEADER, String.valueOf(response.getPollIntervalMs()))
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .header(POLL_INTERVAL_HEADER, String.valueOf(response.getPollIntervalMs()))
+                .body(ApiResponse.success(response));
+    }
+
+    /**
+     * Rechercher dans l'historique des messages
+     * GET /api/messages/search?q=texte&cursor=X&limit=N
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<MessageSearchResponse>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        MessageSearchResponse response = messageService.search(userDetails.getUsername(), q, cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success(response));
     }
 
     /**
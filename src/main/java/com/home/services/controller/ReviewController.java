@@ -2,6 +2,8 @@ package com.home.services.controller;
 
 import com.home.services.dto.request.ReviewDto;
 import com.home.services.dto.response.ApiResponse;
+import com.home.services.dto.response.CursorPageResponse;
+import com.home.services.dto.response.ProviderRatingSummaryResponse;
 import com.home.services.dto.response.ReviewResponse;
 import com.home.services.service.ReviewService;
 import jakarta.validation.Valid;
@@ -13,7 +15,6 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * Contrôleur pour les avis
@@ -40,26 +41,25 @@ public class ReviewController {
     }
 
     /**
-     * Récupérer les avis d'un prestataire
-     * GET /api/reviews/provider/{providerId}
+     * Récupérer les avis d'un prestataire, paginés par curseur
+     * GET /api/reviews/provider/{providerId}?cursor=...&limit=N
      */
     @GetMapping("/provider/{providerId}")
-    public ResponseEntity<ApiResponse<List<ReviewResponse>>> getByProvider(@PathVariable Long providerId) {
-        List<ReviewResponse> responses = reviewService.getByProvider(providerId);
-        return ResponseEntity.ok(ApiResponse.success(responses));
+    public ResponseEntity<ApiResponse<CursorPageResponse<ReviewResponse>>> getByProvider(
+            @PathVariable Long providerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        CursorPageResponse<ReviewResponse> page = reviewService.getByProvider(providerId, cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
     }
 
     /**
-     * Récupérer la note moyenne d'un prestataire
+     * Résumé des notes d'un prestataire (moyennes, répartition par étoiles, score bayésien)
      * GET /api/reviews/provider/{providerId}/rating
      */
     @GetMapping("/provider/{providerId}/rating")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getRating(@PathVariable Long providerId) {
-        Double avg = reviewService.getAverageRating(providerId);
-        List<ReviewResponse> reviews = reviewService.getByProvider(providerId);
-        return ResponseEntity.ok(ApiResponse.success(Map.of(
-                "average", avg != null ? avg : 0,
-                "count", reviews.size())));
+    public ResponseEntity<ApiResponse<ProviderRatingSummaryResponse>> getRating(@PathVariable Long providerId) {
+        return ResponseEntity.ok(ApiResponse.success(reviewService.getRatingSummary(providerId)));
     }
 
     /**
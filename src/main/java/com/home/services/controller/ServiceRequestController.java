@@ -2,7 +2,11 @@ package com.home.services.controller;
 
 import com.home.services.dto.request.ServiceRequestDto;
 import com.home.services.dto.response.ApiResponse;
+import com.home.services.dto.response.ClientDashboardResponse;
+import com.home.services.dto.response.CursorPageResponse;
 import com.home.services.dto.response.ServiceRequestResponse;
+import com.home.services.dto.response.ServiceRequestSummaryResponse;
+import com.home.services.model.enums.Urgency;
 import com.home.services.service.ServiceRequestService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -12,6 +16,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -86,37 +91,61 @@ public class ServiceRequestController {
      */
     @GetMapping("/my")
     @PreAuthorize("hasRole('CLIENT')")
-    public ResponseEntity<ApiResponse<List<ServiceRequestResponse>>> getMyRequests(
+    public ResponseEntity<ApiResponse<List<ServiceRequestSummaryResponse>>> getMyRequests(
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        List<ServiceRequestResponse> responses = serviceRequestService.getByClient(userDetails.getUsername());
+        List<ServiceRequestSummaryResponse> responses = serviceRequestService.getByClient(
+                userDetails.getUsername());
         return ResponseEntity.ok(ApiResponse.success(responses));
     }
 
+    /**
+     * Tableau de bord client : annonces avec leurs candidatures par statut, en un seul appel
+     * GET /api/requests/my/dashboard
+     */
+    @GetMapping("/my/dashboard")
+    @PreAuthorize("hasRole('CLIENT')")
+    public ResponseEntity<ApiResponse<ClientDashboardResponse>> getMyDashboard(
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        ClientDashboardResponse response = serviceRequestService.getClientDashboard(userDetails.getUsername());
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     /**
      * Lister les annonces publiées avec filtres (Prestataires)
-     * GET /api/requests?categoryId=X&quartier=Y
+     * GET /api/requests?categoryId=X&quartier=Y&urgence=URGENT&budgetMin=50000&cursor=Z&limit=N
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('PRESTATAIRE', 'ADMIN')")
-    public ResponseEntity<ApiResponse<List<ServiceRequestResponse>>> getPublished(
+    public ResponseEntity<ApiResponse<CursorPageResponse<ServiceRequestSummaryResponse>>> getPublished(
             @RequestParam(required = false) Long categoryId,
-            @RequestParam(required = false) String quartier) {
-
-        List<ServiceRequestResponse> responses = serviceRequestService.getPublished(categoryId, quartier);
-        return ResponseEntity.ok(ApiResponse.success(responses));
+            @RequestParam(required = false) String quartier,
+            @RequestParam(required = false) Urgency urgence,
+            @RequestParam(required = false) BigDecimal budgetMin,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        CursorPageResponse<ServiceRequestSummaryResponse> response = serviceRequestService.getPublished(
+                categoryId, quartier, urgence, budgetMin, cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success(response));
     }
 
     /**
-     * Rechercher des annonces par mot-clé
-     * GET /api/requests/search?q=keyword
+     * Rechercher des annonces par mot-clé (classement par pertinence)
+     * GET /api/requests/search?q=keyword&categoryId=1&quartier=Centre&cursor=...&limit=20
      */
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('PRESTATAIRE', 'ADMIN')")
-    public ResponseEntity<ApiResponse<List<ServiceRequestResponse>>> search(
-            @RequestParam String q) {
+    public ResponseEntity<ApiResponse<CursorPageResponse<ServiceRequestSummaryResponse>>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String quartier,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
 
-        List<ServiceRequestResponse> responses = serviceRequestService.search(q);
-        return ResponseEntity.ok(ApiResponse.success(responses));
+        CursorPageResponse<ServiceRequestSummaryResponse> response = serviceRequestService.search(q, categoryId,
+                quartier, cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success(response));
     }
 }
@@ -23,4 +23,8 @@ public class MessageDto {
     @NotBlank(message = "Le message ne peut pas être vide")
     @Size(max = 2000, message = "Le message ne peut pas dépasser 2000 caractères")
     private String content;
+
+    // Clé d'idempotence générée par le client : un renvoi avec la même clé ne crée pas de doublon
+    @Size(max = 64, message = "La clé d'idempotence ne peut pas dépasser 64 caractères")
+    private String clientMessageId;
 }
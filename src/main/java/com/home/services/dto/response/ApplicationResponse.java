@@ -30,6 +30,7 @@ public class ApplicationResponse {
     private String providerNom;
     private String providerTelephone; // Visible après acceptation
     private Double providerNote;
+    private Integer providerNombreAvis;
 
     // Détails candidature
     private String message;
@@ -41,4 +42,7 @@ public class ApplicationResponse {
 
     private LocalDateTime createdAt;
     private LocalDateTime respondedAt;
+
+    // Score de classement (0 à 100), seulement dans les listes classées
+    private Double score;
 }
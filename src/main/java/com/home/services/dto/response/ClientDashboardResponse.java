@@ -0,0 +1,31 @@
+package com.home.services.dto.response;
+
+import com.home.services.model.enums.RequestStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO du tableau de bord client : décomptes des annonces et de leurs candidatures,
+ * et annonces du client avec leurs candidatures par statut (un seul appel)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientDashboardResponse {
+
+    // Nombre d'annonces par statut (statuts sans annonce à 0)
+    private Map<RequestStatus, Long> requestsByStatut;
+    private Long totalRequests;
+
+    // Candidatures reçues, toutes annonces confondues
+    private Long pendingApplications;
+    private Long totalApplications;
+
+    private List<ClientRequestSummaryResponse> requests;
+}
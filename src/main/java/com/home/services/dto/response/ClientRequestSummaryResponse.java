@@ -0,0 +1,22 @@
+package com.home.services.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO d'une annonce du tableau de bord client avec le décompte de ses candidatures
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientRequestSummaryResponse {
+
+    private ServiceRequestSummaryResponse request;
+
+    private Long pendingApplications;
+    private Long acceptedApplications;
+    private Long rejectedApplications;
+}
@@ -26,9 +26,12 @@ public class ConversationResponse {
     private String otherUserNom;
     private String otherUserRole; // "Client" ou "Prestataire"
     private String otherUserPhone; // Téléphone (visible après match)
+    private Boolean otherUserOnline;
+    private Boolean otherUserTyping; // En train d'écrire dans cette conversation
 
     // Dernier message
     private String lastMessage;
     private LocalDateTime lastMessageAt;
     private Boolean hasUnread;
+    private Integer unreadCount;
 }
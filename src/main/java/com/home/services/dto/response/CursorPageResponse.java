@@ -0,0 +1,25 @@
+package com.home.services.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO générique pour une page paginée par curseur (sans total)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageResponse<T> {
+
+    private List<T> items;
+
+    // Curseur opaque de la page suivante (absent s'il n'y en a pas)
+    private String nextCursor;
+
+    private Boolean hasMore;
+}
@@ -0,0 +1,30 @@
+package com.home.services.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO pour une page de l'historique d'une conversation
+ * Les messages sont triés du plus ancien au plus récent
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessagePageResponse {
+
+    private List<MessageResponse> messages;
+
+    // Des messages plus anciens existent (à charger avec beforeCursor)
+    private Boolean hasOlder;
+
+    // Des messages plus récents existent (à charger avec afterCursor)
+    private Boolean hasNewer;
+
+    private String beforeCursor;
+    private String afterCursor;
+}
@@ -29,4 +29,7 @@ public class MessageResponse {
 
     private LocalDateTime createdAt;
     private LocalDateTime readAt;
+
+    // Envoi accepté mais pas encore confirmé (id inconnu) : renvoyer avec la même clientMessageId
+    private Boolean pending;
 }
@@ -0,0 +1,29 @@
+package com.home.services.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO pour un résultat de recherche dans les messages
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageSearchHitResponse {
+
+    private Long messageId;
+    private Long applicationId;
+    private String requestTitre;
+    private Long senderId;
+    private String senderNom;
+
+    // Extrait HTML échappé, termes trouvés entourés de <mark>
+    private String snippet;
+
+    private LocalDateTime createdAt;
+}
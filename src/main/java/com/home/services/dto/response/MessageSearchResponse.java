@@ -0,0 +1,25 @@
+package com.home.services.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO pour une page de résultats de recherche dans les messages (plus récents d'abord)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageSearchResponse {
+
+    private List<MessageSearchHitResponse> results;
+
+    // Curseur de la page suivante (absent s'il n'y en a pas)
+    private String nextCursor;
+
+    private Boolean hasMore;
+}
@@ -0,0 +1,33 @@
+package com.home.services.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO pour la synchronisation incrémentale de la messagerie
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageSyncResponse {
+
+    // Nouveaux messages depuis le curseur (ordre croissant)
+    private List<MessageResponse> messages;
+
+    // Conversations dont le résumé a changé
+    private List<ConversationResponse> conversations;
+
+    // Curseur à renvoyer au prochain appel (id du dernier message vu)
+    private Long cursor;
+
+    // D'autres messages restent à synchroniser immédiatement
+    private Boolean hasMore;
+
+    // Intervalle conseillé avant le prochain appel
+    private Long pollIntervalMs;
+}
@@ -0,0 +1,33 @@
+package com.home.services.dto.response;
+
+import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.model.enums.ProfileStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO du tableau de bord prestataire : décomptes des candidatures, état du profil
+ * et première page des candidatures récentes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProviderDashboardResponse {
+
+    // Nombre de candidatures par statut (statuts sans candidature à 0)
+    private Map<ApplicationStatus, Long> applicationsByStatut;
+    private Long totalApplications;
+
+    // Profil prestataire
+    private ProfileStatus profileStatut;
+    private Boolean verified;
+    private Double noteGlobale;
+    private Integer nombreAvis;
+
+    private CursorPageResponse<ApplicationResponse> recentApplications;
+}
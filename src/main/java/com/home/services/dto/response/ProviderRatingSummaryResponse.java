@@ -0,0 +1,35 @@
+package com.home.services.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO résumé des notes d'un prestataire
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProviderRatingSummaryResponse {
+
+    private Long providerId;
+
+    // Moyenne brute et nombre d'avis
+    private Double noteGlobale;
+    private Integer nombreAvis;
+
+    // Nombre d'avis par note (1 à 5 étoiles)
+    private Map<Integer, Long> repartition;
+
+    // Moyennes des sous-notes (absentes sans sous-note renseignée)
+    private Double noteQualite;
+    private Double notePonctualite;
+    private Double noteCommunication;
+
+    // Note lissée vers la moyenne de la plateforme : comparable entre prestataires peu et très évalués
+    private Double scoreBayesien;
+}
@@ -0,0 +1,56 @@
+package com.home.services.dto.response;
+
+import com.home.services.model.enums.RequestStatus;
+import com.home.services.model.enums.Urgency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DTO résumé d'une annonce pour les listes (aperçu de description au lieu du texte complet)
+ * Le détail complet est servi par GET /api/requests/{id}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ServiceRequestSummaryResponse {
+
+    private Long id;
+
+    // Info client
+    private Long clientId;
+    private String clientNom;
+
+    // Info catégorie
+    private Long categoryId;
+    private String categoryNom;
+    private String categoryIcone;
+
+    // Détails annonce
+    private String titre;
+    private String descriptionPreview;
+    private String quartier;
+    private String adresse; // null si non autorisé
+
+    private BigDecimal budgetMin;
+    private BigDecimal budgetMax;
+
+    private LocalDate datePrestation;
+    private Urgency urgence;
+    private RequestStatus statut;
+
+    private Integer nombreCandidatures;
+
+    // Prestataire sélectionné (si applicable)
+    private Long selectedProviderId;
+    private String selectedProviderNom;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+}
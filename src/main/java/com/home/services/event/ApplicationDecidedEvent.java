@@ -0,0 +1,22 @@
+package com.home.services.event;
+
+import com.home.services.model.enums.ApplicationStatus;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Événement publié lorsqu'une candidature est acceptée ou refusée
+ */
+@Getter
+@RequiredArgsConstructor
+public class ApplicationDecidedEvent {
+
+    private final Long applicationId;
+    private final Long serviceRequestId;
+    private final String requestTitre;
+
+    // Prestataire concerné (destinataire de la notification)
+    private final Long providerId;
+
+    private final ApplicationStatus statut;
+}
@@ -0,0 +1,22 @@
+package com.home.services.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Événement publié lorsqu'un prestataire postule à une annonce
+ */
+@Getter
+@RequiredArgsConstructor
+public class ApplicationSubmittedEvent {
+
+    private final Long applicationId;
+    private final Long serviceRequestId;
+    private final String requestTitre;
+
+    // Client propriétaire de l'annonce (destinataire de la notification)
+    private final Long clientId;
+
+    private final Long providerId;
+    private final String providerNom;
+}
@@ -0,0 +1,22 @@
+package com.home.services.event;
+
+import com.home.services.dto.response.MessageResponse;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Événement publié lorsqu'un message a été enregistré
+ * Publié après le commit du lot et hors transaction, par le fil de diffusion de MessageBatchWriter :
+ * les écouteurs transactionnels doivent accepter fallbackExecution
+ */
+@Getter
+@RequiredArgsConstructor
+public class MessageSentEvent {
+
+    // Message tel que vu par l'expéditeur
+    private final MessageResponse message;
+
+    // Participants de la conversation
+    private final Long clientId;
+    private final Long providerId;
+}
@@ -0,0 +1,15 @@
+package com.home.services.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Événement publié lorsqu'un avis est laissé sur un prestataire
+ * Le résumé de notes mis en cache est invalidé après le commit
+ */
+@Getter
+@RequiredArgsConstructor
+public class ReviewCreatedEvent {
+
+    private final Long providerId;
+}
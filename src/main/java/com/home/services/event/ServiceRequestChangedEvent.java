@@ -0,0 +1,15 @@
+package com.home.services.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Événement publié lorsqu'une annonce est créée ou modifiée (contenu, statut, candidatures)
+ * Les index en mémoire relisent l'annonce après le commit
+ */
+@Getter
+@RequiredArgsConstructor
+public class ServiceRequestChangedEvent {
+
+    private final Long serviceRequestId;
+}
@@ -0,0 +1,17 @@
+package com.home.services.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Événement publié lorsqu'une annonce devient visible par les prestataires
+ */
+@Getter
+@RequiredArgsConstructor
+public class ServiceRequestPublishedEvent {
+
+    private final Long serviceRequestId;
+    private final String titre;
+    private final Long categoryId;
+    private final String quartier;
+}
@@ -0,0 +1,17 @@
+package com.home.services.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Événement publié pour chaque lot d'annonces expirées (passées en EXPIREE)
+ * Les index en mémoire les retirent sans relire la base
+ */
+@Getter
+@RequiredArgsConstructor
+public class ServiceRequestsExpiredEvent {
+
+    private final List<Long> serviceRequestIds;
+}
@@ -0,0 +1,11 @@
+package com.home.services.exception;
+
+/**
+ * Exception levée quand l'état d'une ressource a changé entre-temps (transition concurrente)
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
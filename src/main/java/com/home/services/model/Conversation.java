@@ -0,0 +1,78 @@
+package com.home.services.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Résumé dénormalisé d'une conversation (une par candidature acceptée)
+ * Mis à jour dans la même transaction que l'envoi de message et l'acceptation
+ */
+@Entity
+@Table(name = "conversations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Conversation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Candidature acceptée à l'origine de la conversation
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "application_id", nullable = false, unique = true)
+    private Application application;
+
+    // Participants
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "client_id", nullable = false)
+    private User client;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "provider_id", nullable = false)
+    private User provider;
+
+    // Titre de l'annonce (copié pour éviter la jointure)
+    @Column(length = 200, nullable = false)
+    private String requestTitre;
+
+    // Dernier message
+    private Long lastMessageId;
+
+    private Long lastMessageSenderId;
+
+    @Column(length = 100)
+    private String lastMessagePreview;
+
+    private LocalDateTime lastMessageAt;
+
+    // Messages non lus par participant
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer clientUnreadCount = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer providerUnreadCount = 0;
+
+    // Dernier message lu par participant (remplace messages.is_read)
+    private Long clientLastReadMessageId;
+
+    private LocalDateTime clientLastReadAt;
+
+    private Long providerLastReadMessageId;
+
+    private LocalDateTime providerLastReadAt;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
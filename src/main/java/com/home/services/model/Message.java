@@ -39,7 +39,8 @@ public class Message {
     @Column(columnDefinition = "TEXT", nullable = false)
     private String content;
 
-    // Message lu par le destinataire
+    // Ancien indicateur de lecture, plus mis à jour : l'état de lecture est porté par
+    // conversations.client_last_read_message_id / provider_last_read_message_id
     @Builder.Default
     private Boolean isRead = false;
 
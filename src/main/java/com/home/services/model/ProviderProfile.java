@@ -51,9 +51,39 @@ public class ProviderProfile {
     @Builder.Default
     private Double noteGlobale = 0.0;
 
+    @Column(nullable = false)
     @Builder.Default
     private Integer nombreAvis = 0;
 
+    // Sommes et nombres des notes, incrémentés à chaque avis (moyennes = somme / nombre)
+    @Column(nullable = false)
+    @Builder.Default
+    private Long sommeNotes = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long sommeQualite = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer nombreQualite = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long sommePonctualite = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer nombrePonctualite = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long sommeCommunication = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer nombreCommunication = 0;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     @Builder.Default
@@ -25,6 +25,9 @@ import java.time.LocalDateTime;
 @Builder
 public class ServiceRequest {
 
+    // Longueur de l'aperçu de description (hors points de suspension)
+    public static final int PREVIEW_LENGTH = 160;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -47,6 +50,10 @@ public class ServiceRequest {
     @Column(columnDefinition = "TEXT", nullable = false)
     private String description;
 
+    // Début de la description pour les listes, recalculé à chaque écriture
+    @Column(length = PREVIEW_LENGTH + 3)
+    private String descriptionPreview;
+
     // Quartier d'Abidjan
     @NotBlank(message = "Le quartier est obligatoire")
     @Column(length = 100, nullable = false)
@@ -94,4 +101,11 @@ public class ServiceRequest {
 
     // Date d'expiration de l'annonce (optionnel)
     private LocalDateTime expiresAt;
+
+    @PrePersist
+    @PreUpdate
+    void updateDescriptionPreview() {
+        descriptionPreview = description == null || description.length() <= PREVIEW_LENGTH ? description
+                : description.substring(0, PREVIEW_LENGTH) + "...";
+    }
 }
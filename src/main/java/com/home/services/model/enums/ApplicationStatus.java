@@ -7,5 +7,6 @@ public enum ApplicationStatus {
     EN_ATTENTE, // En attente de réponse du client
     ACCEPTEE, // Candidature acceptée
     REFUSEE, // Candidature refusée
-    RETIREE // Retirée par le prestataire
+    RETIREE, // Retirée par le prestataire
+    EXPIREE // Annonce expirée avant la décision du client
 }
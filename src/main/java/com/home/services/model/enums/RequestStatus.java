@@ -8,5 +8,6 @@ public enum RequestStatus {
     PUBLIEE, // Visible par les prestataires
     EN_COURS, // Un prestataire a été sélectionné
     TERMINEE, // Service effectué
-    ANNULEE // Annulée par le client
+    ANNULEE, // Annulée par le client
+    EXPIREE // Durée de publication dépassée sans prestataire retenu
 }
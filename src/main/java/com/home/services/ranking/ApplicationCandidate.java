@@ -0,0 +1,31 @@
+package com.home.services.ranking;
+
+import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.model.enums.ProfileStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Candidature projetée avec tout ce qu'il faut pour la noter : budget de l'annonce,
+ * note, nombre d'avis et vérification du prestataire (une ligne par candidature, sans chargement paresseux)
+ */
+public record ApplicationCandidate(
+        Long id,
+        Long serviceRequestId,
+        String serviceRequestTitre,
+        String serviceRequestQuartier,
+        BigDecimal budgetMin,
+        BigDecimal budgetMax,
+        Long providerId,
+        String providerNom,
+        Double noteGlobale,
+        Long sommeNotes,
+        Integer nombreAvis,
+        ProfileStatus profileStatut,
+        String message,
+        BigDecimal proposedPrice,
+        Integer proposedDays,
+        ApplicationStatus statut,
+        LocalDateTime createdAt) {
+}
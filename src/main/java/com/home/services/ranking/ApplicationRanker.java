@@ -0,0 +1,112 @@
+package com.home.services.ranking;
+
+import com.home.services.model.enums.ProfileStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Classement des candidatures d'une annonce : chaque candidature est notée (0 à 100) en un seul passage,
+ * seules les K meilleures sont conservées dans un tas borné, puis triées
+ */
+@Component
+@RequiredArgsConstructor
+public class ApplicationRanker {
+
+    // Critère inconnu (pas de prix, pas de délai, pas de budget) : ni avantage ni pénalité
+    private static final double NEUTRAL = 0.5;
+
+    private static final double MAX_NOTE = 5;
+
+    // Nombre d'avis donnant la moitié du score de volume
+    private static final double REVIEWS_HALF = 10;
+
+    // Délai (jours) au-delà du premier jour donnant la moitié du score de délai
+    private static final double DAYS_HALF = 7;
+
+    // Meilleur score d'abord ; à score égal, la candidature la plus ancienne
+    private static final Comparator<RankedApplication> BEST_FIRST = Comparator
+            .comparingDouble(RankedApplication::score).reversed()
+            .thenComparing(r -> r.candidate().id());
+
+    private final BayesianRating bayesianRating;
+
+    public List<RankedApplication> top(List<ApplicationCandidate> candidates, RankingProfile profile, int k) {
+        if (k <= 0 || candidates.isEmpty()) {
+            return List.of();
+        }
+
+        // Même a priori pour toutes les candidatures du classement
+        double prior = bayesianRating.priorNote();
+
+        // Tas minimal : la racine est la moins bonne des K retenues
+        PriorityQueue<RankedApplication> top = new PriorityQueue<>(Math.min(k, candidates.size()) + 1,
+                BEST_FIRST.reversed());
+        for (ApplicationCandidate candidate : candidates) {
+            top.offer(new RankedApplication(candidate, score(candidate, profile, prior)));
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+
+        List<RankedApplication> ranked = new ArrayList<>(top);
+        ranked.sort(BEST_FIRST);
+        return ranked;
+    }
+
+    static double score(ApplicationCandidate candidate, RankingProfile profile, double prior) {
+        double score = profile.combine(
+                priceScore(candidate.proposedPrice(), candidate.budgetMin(), candidate.budgetMax()),
+                delayScore(candidate.proposedDays()),
+                ratingScore(candidate.sommeNotes(), candidate.nombreAvis(), prior),
+                reviewsScore(candidate.nombreAvis()),
+                candidate.profileStatut() == ProfileStatus.VERIFIE ? 1 : 0);
+        return Math.round(score * 1000) / 10.0;
+    }
+
+    /**
+     * 1 jusqu'au budget minimum, décroît jusqu'à 0,5 au budget maximum, puis en proportion au-delà
+     */
+    static double priceScore(BigDecimal proposed, BigDecimal budgetMin, BigDecimal budgetMax) {
+        if (proposed == null || (budgetMin == null && budgetMax == null)) {
+            return NEUTRAL;
+        }
+        double price = proposed.doubleValue();
+        double low = (budgetMin != null ? budgetMin : budgetMax).doubleValue();
+        double high = (budgetMax != null ? budgetMax : budgetMin).doubleValue();
+        if (price <= low) {
+            return 1;
+        }
+        if (price <= high) {
+            return 1 - 0.5 * (price - low) / (high - low);
+        }
+        return 0.5 * high / price;
+    }
+
+    static double delayScore(Integer proposedDays) {
+        if (proposedDays == null) {
+            return NEUTRAL;
+        }
+        return 1 / (1 + Math.max(0, proposedDays - 1) / DAYS_HALF);
+    }
+
+    /**
+     * Note bayésienne ramenée entre 0 et 1 : tirée vers la moyenne de la plateforme tant que les avis sont peu nombreux
+     */
+    static double ratingScore(Long sommeNotes, Integer nombreAvis, double prior) {
+        return BayesianRating.score(sommeNotes, nombreAvis, prior) / MAX_NOTE;
+    }
+
+    static double reviewsScore(Integer nombreAvis) {
+        int count = nombreAvis != null ? nombreAvis : 0;
+        return count / (count + REVIEWS_HALF);
+    }
+
+    public record RankedApplication(ApplicationCandidate candidate, double score) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.home.services.ranking;
+
+import com.home.services.repository.ProviderProfileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Note bayésienne d'un prestataire : PRIOR_WEIGHT avis fictifs à la note moyenne de la plateforme
+ * Seule implémentation du score, partagée par le résumé de notes du profil et le classement des candidatures
+ */
+@Component
+public class BayesianRating {
+
+    // Poids de l'a priori (en nombre d'avis) : quelques avis parfaits ne suffisent pas
+    static final double PRIOR_WEIGHT = 5;
+
+    // A priori sans aucun avis sur la plateforme
+    static final double DEFAULT_PRIOR_NOTE = 3.5;
+
+    private final DoubleSupplier platformAverage;
+    private final long priorRefreshMs;
+
+    // Un seul recalcul à la fois : les appels concurrents attendent puis relisent la valeur fraîche
+    private final Object refreshLock = new Object();
+
+    private volatile double priorNote = Double.NaN;
+    private volatile long priorComputedAt;
+
+    @Autowired
+    public BayesianRating(
+            ProviderProfileRepository providerProfileRepository,
+            @Value("${app.reviews.rating-cache.prior-refresh-ms:600000}") long priorRefreshMs) {
+        this(() -> {
+            Double average = providerProfileRepository.findPlatformAverageNote();
+            return average != null ? average : DEFAULT_PRIOR_NOTE;
+        }, priorRefreshMs);
+    }
+
+    BayesianRating(DoubleSupplier platformAverage, long priorRefreshMs) {
+        this.platformAverage = platformAverage;
+        this.priorRefreshMs = priorRefreshMs;
+    }
+
+    /**
+     * Note moyenne de la plateforme, recalculée au plus une fois par intervalle
+     */
+    public double priorNote() {
+        if (isFresh(System.currentTimeMillis())) {
+            return priorNote;
+        }
+        synchronized (refreshLock) {
+            long now = System.currentTimeMillis();
+            if (!isFresh(now)) {
+                priorNote = platformAverage.getAsDouble();
+                priorComputedAt = now;
+            }
+            return priorNote;
+        }
+    }
+
+    /**
+     * Note bayésienne (1 à 5) à partir de la somme et du nombre des notes reçues
+     */
+    public double score(Long sommeNotes, Integer nombreAvis) {
+        return score(sommeNotes, nombreAvis, priorNote());
+    }
+
+    static double score(Long sommeNotes, Integer nombreAvis, double prior) {
+        long sum = sommeNotes != null ? sommeNotes : 0;
+        int count = nombreAvis != null ? nombreAvis : 0;
+        return (PRIOR_WEIGHT * prior + sum) / (PRIOR_WEIGHT + count);
+    }
+
+    private boolean isFresh(long now) {
+        return !Double.isNaN(priorNote) && now - priorComputedAt <= priorRefreshMs;
+    }
+}
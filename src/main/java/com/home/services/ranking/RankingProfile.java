@@ -0,0 +1,36 @@
+package com.home.services.ranking;
+
+/**
+ * Profils de pondération du classement des candidatures
+ * Poids des critères : prix, délai, note, nombre d'avis, vérification (somme égale à 1)
+ */
+public enum RankingProfile {
+
+    EQUILIBRE(0.30, 0.15, 0.30, 0.10, 0.15),
+    PRIX(0.55, 0.10, 0.20, 0.05, 0.10),
+    QUALITE(0.15, 0.10, 0.45, 0.15, 0.15),
+    RAPIDITE(0.20, 0.45, 0.20, 0.05, 0.10);
+
+    private final double price;
+    private final double delay;
+    private final double rating;
+    private final double reviews;
+    private final double verification;
+
+    RankingProfile(double price, double delay, double rating, double reviews, double verification) {
+        this.price = price;
+        this.delay = delay;
+        this.rating = rating;
+        this.reviews = reviews;
+        this.verification = verification;
+    }
+
+    /**
+     * Score pondéré à partir des critères normalisés entre 0 et 1
+     */
+    double combine(double priceScore, double delayScore, double ratingScore, double reviewsScore,
+            double verificationScore) {
+        return price * priceScore + delay * delayScore + rating * ratingScore + reviews * reviewsScore
+                + verification * verificationScore;
+    }
+}
@@ -2,11 +2,16 @@ package com.home.services.repository;
 
 import com.home.services.model.Application;
 import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.ranking.ApplicationCandidate;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,8 +28,19 @@ public interface ApplicationRepository extends JpaRepository<Application, Long>
 
     List<Application> findByServiceRequestIdAndStatut(Long serviceRequestId, ApplicationStatus statut);
 
-    // Vérifier si un prestataire a déjà postulé
-    boolean existsByServiceRequestIdAndProviderId(Long serviceRequestId, Long providerId);
+    // Candidature avec son annonce, le client et le prestataire (une seule requête)
+    @Query("SELECT a FROM Application a JOIN FETCH a.serviceRequest sr JOIN FETCH sr.client " +
+            "JOIN FETCH a.provider WHERE a.id = :id")
+    Optional<Application> findWithDetailsById(@Param("id") Long id);
+
+    // Candidatures en attente d'une annonce projetées pour le classement (prestataire et profil joints)
+    @Query("SELECT new com.home.services.ranking.ApplicationCandidate(a.id, sr.id, sr.titre, sr.quartier, " +
+            "sr.budgetMin, sr.budgetMax, p.id, p.nom, pp.noteGlobale, pp.sommeNotes, pp.nombreAvis, pp.statut, " +
+            "a.message, a.proposedPrice, a.proposedDays, a.statut, a.createdAt) " +
+            "FROM Application a JOIN a.serviceRequest sr JOIN a.provider p LEFT JOIN p.providerProfile pp " +
+            "WHERE sr.id = :serviceRequestId " +
+            "AND a.statut = com.home.services.model.enums.ApplicationStatus.EN_ATTENTE")
+    List<ApplicationCandidate> findCandidatesByServiceRequestId(@Param("serviceRequestId") Long serviceRequestId);
 
     // Trouver une candidature spécifique
     Optional<Application> findByServiceRequestIdAndProviderId(Long serviceRequestId, Long providerId);
@@ -32,9 +48,126 @@ public interface ApplicationRepository extends JpaRepository<Application, Long>
     // Compter les candidatures par statut pour un prestataire
     long countByProviderIdAndStatut(Long providerId, ApplicationStatus statut);
 
+    // Décompte des candidatures d'un prestataire par statut, en une requête d'agrégat
+    @Query("SELECT a.statut AS statut, COUNT(a) AS total FROM Application a " +
+            "WHERE a.provider.id = :providerId GROUP BY a.statut")
+    List<StatusCount> countByProviderIdGroupByStatut(@Param("providerId") Long providerId);
+
+    // Décompte des candidatures des annonces d'un client, par annonce et par statut (une requête)
+    @Query("SELECT sr.id AS serviceRequestId, a.statut AS statut, COUNT(a) AS total " +
+            "FROM Application a JOIN a.serviceRequest sr WHERE sr.client.id = :clientId " +
+            "GROUP BY sr.id, a.statut")
+    List<RequestStatusCount> countByClientIdGroupByRequestAndStatut(@Param("clientId") Long clientId);
+
+    // Candidatures récentes d'un prestataire (statut optionnel), projetées avec leur annonce
+    @Query("SELECT a.id AS id, sr.id AS serviceRequestId, sr.titre AS serviceRequestTitre, " +
+            "sr.quartier AS serviceRequestQuartier, a.message AS message, a.proposedPrice AS proposedPrice, " +
+            "a.proposedDays AS proposedDays, a.statut AS statut, a.clientResponse AS clientResponse, " +
+            "a.createdAt AS createdAt, a.respondedAt AS respondedAt " +
+            "FROM Application a JOIN a.serviceRequest sr WHERE a.provider.id = :providerId " +
+            "AND (:statut IS NULL OR a.statut = :statut) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ProviderApplicationRow> findRecentByProviderId(@Param("providerId") Long providerId,
+            @Param("statut") ApplicationStatus statut,
+            Pageable pageable);
+
+    // Candidatures antérieures au curseur
+    @Query("SELECT a.id AS id, sr.id AS serviceRequestId, sr.titre AS serviceRequestTitre, " +
+            "sr.quartier AS serviceRequestQuartier, a.message AS message, a.proposedPrice AS proposedPrice, " +
+            "a.proposedDays AS proposedDays, a.statut AS statut, a.clientResponse AS clientResponse, " +
+            "a.createdAt AS createdAt, a.respondedAt AS respondedAt " +
+            "FROM Application a JOIN a.serviceRequest sr WHERE a.provider.id = :providerId " +
+            "AND (:statut IS NULL OR a.statut = :statut) " +
+            "AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ProviderApplicationRow> findRecentByProviderIdBefore(@Param("providerId") Long providerId,
+            @Param("statut") ApplicationStatus statut,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
     // Compter les candidatures pour une annonce
     long countByServiceRequestId(Long serviceRequestId);
 
+    // Retrait d'une candidature encore en attente (sans effet si le client a déjà répondu)
+    @Modifying
+    @Query("UPDATE Application a SET a.statut = com.home.services.model.enums.ApplicationStatus.RETIREE " +
+            "WHERE a.id = :id AND a.statut = com.home.services.model.enums.ApplicationStatus.EN_ATTENTE")
+    int withdrawIfPending(@Param("id") Long id);
+
+    // Acceptation d'une candidature encore en attente
+    @Modifying
+    @Query("UPDATE Application a SET a.statut = com.home.services.model.enums.ApplicationStatus.ACCEPTEE, " +
+            "a.respondedAt = :now, a.updatedAt = :now " +
+            "WHERE a.id = :id AND a.statut = com.home.services.model.enums.ApplicationStatus.EN_ATTENTE")
+    int acceptIfPending(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Refus d'une candidature encore en attente
+    @Modifying
+    @Query("UPDATE Application a SET a.statut = com.home.services.model.enums.ApplicationStatus.REFUSEE, " +
+            "a.clientResponse = :reason, a.respondedAt = :now, a.updatedAt = :now " +
+            "WHERE a.id = :id AND a.statut = com.home.services.model.enums.ApplicationStatus.EN_ATTENTE")
+    int rejectIfPending(@Param("id") Long id, @Param("reason") String reason, @Param("now") LocalDateTime now);
+
+    // Candidatures encore en attente d'une annonce (id et prestataire, pour les notifications)
+    @Query("SELECT a.id AS id, a.provider.id AS providerId FROM Application a " +
+            "WHERE a.serviceRequest.id = :serviceRequestId " +
+            "AND a.statut = com.home.services.model.enums.ApplicationStatus.EN_ATTENTE")
+    List<PendingApplication> findPendingByServiceRequestId(@Param("serviceRequestId") Long serviceRequestId);
+
+    // Refus en une instruction de toutes les autres candidatures en attente d'une annonce
+    @Modifying
+    @Query("UPDATE Application a SET a.statut = com.home.services.model.enums.ApplicationStatus.REFUSEE, " +
+            "a.clientResponse = :reason, a.respondedAt = :now, a.updatedAt = :now " +
+            "WHERE a.serviceRequest.id = :serviceRequestId AND a.id <> :acceptedId " +
+            "AND a.statut = com.home.services.model.enums.ApplicationStatus.EN_ATTENTE")
+    int rejectOtherPending(@Param("serviceRequestId") Long serviceRequestId, @Param("acceptedId") Long acceptedId,
+            @Param("reason") String reason, @Param("now") LocalDateTime now);
+
+    interface PendingApplication {
+        Long getId();
+
+        Long getProviderId();
+    }
+
+    interface StatusCount {
+        ApplicationStatus getStatut();
+
+        Long getTotal();
+    }
+
+    interface RequestStatusCount {
+        Long getServiceRequestId();
+
+        ApplicationStatus getStatut();
+
+        Long getTotal();
+    }
+
+    interface ProviderApplicationRow {
+        Long getId();
+
+        Long getServiceRequestId();
+
+        String getServiceRequestTitre();
+
+        String getServiceRequestQuartier();
+
+        String getMessage();
+
+        BigDecimal getProposedPrice();
+
+        Integer getProposedDays();
+
+        ApplicationStatus getStatut();
+
+        String getClientResponse();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getRespondedAt();
+    }
+
     // Candidatures en attente pour les annonces d'un client
     @Query("SELECT a FROM Application a WHERE a.serviceRequest.client.id = :clientId " +
             "AND a.statut = 'EN_ATTENTE' ORDER BY a.createdAt DESC")
@@ -0,0 +1,94 @@
+package com.home.services.repository;
+
+import com.home.services.model.Conversation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+
+    // Conversations d'un utilisateur (client ou prestataire), les plus récentes d'abord
+    @Query("SELECT c FROM Conversation c JOIN FETCH c.client JOIN FETCH c.provider " +
+            "WHERE c.client.id = :userId OR c.provider.id = :userId " +
+            "ORDER BY c.lastMessageAt DESC")
+    List<Conversation> findByParticipant(@Param("userId") Long userId);
+
+    // Conversations d'un utilisateur modifiées depuis un message donné ou dans la fenêtre de recouvrement
+    @Query("SELECT c FROM Conversation c JOIN FETCH c.client JOIN FETCH c.provider " +
+            "WHERE (c.client.id = :userId OR c.provider.id = :userId) " +
+            "AND (c.lastMessageId > :since OR c.updatedAt >= :overlapFrom) " +
+            "ORDER BY c.lastMessageAt DESC")
+    List<Conversation> findChangedForUser(@Param("userId") Long userId, @Param("since") Long since,
+            @Param("overlapFrom") LocalDateTime overlapFrom);
+
+    // Id et date du dernier message toutes conversations confondues (0 et null si aucun)
+    @Query("SELECT COALESCE(MAX(c.lastMessageId), 0L) AS maxMessageId, MAX(c.lastMessageAt) AS lastMessageAt " +
+            "FROM Conversation c WHERE c.client.id = :userId OR c.provider.id = :userId")
+    SyncState findSyncStateForUser(@Param("userId") Long userId);
+
+    Optional<Conversation> findByApplicationId(Long applicationId);
+
+    // Participants d'une conversation, sans charger les entités (contrôle d'accès avant toute lecture)
+    @Query("SELECT c.client.id AS clientId, c.provider.id AS providerId FROM Conversation c " +
+            "WHERE c.application.id = :applicationId")
+    Optional<Participants> findParticipantsByApplicationId(@Param("applicationId") Long applicationId);
+
+    List<Conversation> findByApplicationIdIn(Collection<Long> applicationIds);
+
+    // Candidatures (conversations) d'un utilisateur
+    @Query("SELECT c.application.id FROM Conversation c WHERE c.client.id = :userId OR c.provider.id = :userId")
+    List<Long> findApplicationIdsForUser(@Param("userId") Long userId);
+
+    // Conversations ayant le plus récemment reçu un message
+    @Query("SELECT c.application.id FROM Conversation c WHERE c.lastMessageId IS NOT NULL " +
+            "ORDER BY c.lastMessageAt DESC")
+    List<Long> findRecentlyActiveApplicationIds(Pageable pageable);
+
+    // Avancer le repère de lecture du client ; sans effet si un message est arrivé entre-temps
+    @Transactional
+    @Modifying
+    @Query("UPDATE Conversation c SET c.clientLastReadMessageId = :messageId, c.clientLastReadAt = :readAt, " +
+            "c.clientUnreadCount = 0 " +
+            "WHERE c.id = :conversationId AND c.lastMessageId = :messageId")
+    int markReadByClient(@Param("conversationId") Long conversationId,
+            @Param("messageId") Long messageId,
+            @Param("readAt") LocalDateTime readAt);
+
+    // Avancer le repère de lecture du prestataire ; sans effet si un message est arrivé entre-temps
+    @Transactional
+    @Modifying
+    @Query("UPDATE Conversation c SET c.providerLastReadMessageId = :messageId, c.providerLastReadAt = :readAt, " +
+            "c.providerUnreadCount = 0 " +
+            "WHERE c.id = :conversationId AND c.lastMessageId = :messageId")
+    int markReadByProvider(@Param("conversationId") Long conversationId,
+            @Param("messageId") Long messageId,
+            @Param("readAt") LocalDateTime readAt);
+
+    // Total des messages non lus d'un utilisateur
+    @Query("SELECT COALESCE(SUM(CASE WHEN c.client.id = :userId THEN c.clientUnreadCount " +
+            "ELSE c.providerUnreadCount END), 0) FROM Conversation c " +
+            "WHERE c.client.id = :userId OR c.provider.id = :userId")
+    long sumUnreadForUser(@Param("userId") Long userId);
+
+    interface Participants {
+        Long getClientId();
+
+        Long getProviderId();
+    }
+
+    interface SyncState {
+        Long getMaxMessageId();
+
+        LocalDateTime getLastMessageAt();
+    }
+}
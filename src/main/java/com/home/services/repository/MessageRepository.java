@@ -1,40 +1,52 @@
 package com.home.services.repository;
 
 import com.home.services.model.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
-    // Messages d'une conversation (application)
-    List<Message> findByApplicationIdOrderByCreatedAtAsc(Long applicationId);
-
-    // Derniers messages par application pour un utilisateur
-    @Query("SELECT m FROM Message m WHERE m.application.id IN " +
-            "(SELECT a.id FROM Application a WHERE " +
-            "(a.serviceRequest.client.id = :userId OR a.provider.id = :userId) " +
-            "AND a.statut = 'ACCEPTEE') " +
-            "AND m.id IN (SELECT MAX(m2.id) FROM Message m2 GROUP BY m2.application.id) " +
-            "ORDER BY m.createdAt DESC")
-    List<Message> findLastMessagesForUser(@Param("userId") Long userId);
-
-    // Compter messages non lus pour un utilisateur
-    @Query("SELECT COUNT(m) FROM Message m WHERE m.sender.id != :userId " +
-            "AND m.isRead = false " +
-            "AND m.application.id IN (SELECT a.id FROM Application a WHERE " +
-            "(a.serviceRequest.client.id = :userId OR a.provider.id = :userId) " +
-            "AND a.statut = 'ACCEPTEE')")
-    long countUnreadForUser(@Param("userId") Long userId);
-
-    // Marquer comme lus
-    @Modifying
-    @Query("UPDATE Message m SET m.isRead = true, m.readAt = CURRENT_TIMESTAMP " +
-            "WHERE m.application.id = :applicationId AND m.sender.id != :userId AND m.isRead = false")
-    int markAsRead(@Param("applicationId") Long applicationId, @Param("userId") Long userId);
+    // Page la plus récente d'une conversation (ordre décroissant)
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.application.id = :applicationId " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findLatest(@Param("applicationId") Long applicationId, Pageable pageable);
+
+    // Messages antérieurs au curseur (ordre décroissant)
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.application.id = :applicationId " +
+            "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findBefore(@Param("applicationId") Long applicationId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    // Messages postérieurs au curseur (ordre croissant)
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.application.id = :applicationId " +
+            "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) " +
+            "ORDER BY m.createdAt ASC, m.id ASC")
+    List<Message> findAfter(@Param("applicationId") Long applicationId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    // Nouveaux messages d'un utilisateur depuis un id (synchronisation incrémentale)
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.id > :since AND m.application.id IN " +
+            "(SELECT c.application.id FROM Conversation c WHERE c.client.id = :userId OR c.provider.id = :userId) " +
+            "ORDER BY m.id ASC")
+    List<Message> findNewForUser(@Param("userId") Long userId, @Param("since") Long since, Pageable pageable);
+
+    // Messages récents d'id inférieur ou égal au curseur : validés après un message d'id supérieur
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.id <= :since AND m.createdAt >= :overlapFrom " +
+            "AND m.application.id IN " +
+            "(SELECT c.application.id FROM Conversation c WHERE c.client.id = :userId OR c.provider.id = :userId) " +
+            "ORDER BY m.id ASC")
+    List<Message> findLateForUser(@Param("userId") Long userId, @Param("since") Long since,
+            @Param("overlapFrom") LocalDateTime overlapFrom, Pageable pageable);
 }
@@ -3,6 +3,7 @@ package com.home.services.repository;
 import com.home.services.model.ProviderProfile;
 import com.home.services.model.enums.ProfileStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -27,4 +28,32 @@ public interface ProviderProfileRepository extends JpaRepository<ProviderProfile
             @Param("quartier") String quartier);
 
     List<ProviderProfile> findByStatutOrderByNoteGlobaleDesc(ProfileStatus statut);
+
+    // Prestataires intéressés par une annonce (catégorie proposée, même quartier ou sans quartier)
+    @Query("SELECT DISTINCT p.user.id FROM ProviderProfile p JOIN p.categories c WHERE c.id = :categoryId " +
+            "AND (p.quartier IS NULL OR LOWER(p.quartier) = LOWER(:quartier))")
+    List<Long> findUserIdsByCategoryAndQuartier(@Param("categoryId") Long categoryId,
+            @Param("quartier") String quartier);
+
+    // Note moyenne de la plateforme, tous avis confondus (null sans avis)
+    @Query("SELECT SUM(p.sommeNotes) * 1.0 / SUM(p.nombreAvis) FROM ProviderProfile p WHERE p.nombreAvis > 0")
+    Double findPlatformAverageNote();
+
+    // Prise en compte d'un nouvel avis en une instruction (valeurs de droite lues avant mise à jour)
+    @Modifying
+    @Query("UPDATE ProviderProfile p SET p.nombreAvis = p.nombreAvis + 1, " +
+            "p.sommeNotes = p.sommeNotes + :note, " +
+            "p.noteGlobale = (p.sommeNotes + :note) * 1.0 / (p.nombreAvis + 1), " +
+            "p.sommeQualite = p.sommeQualite + COALESCE(:qualite, 0), " +
+            "p.nombreQualite = p.nombreQualite + CASE WHEN :qualite IS NULL THEN 0 ELSE 1 END, " +
+            "p.sommePonctualite = p.sommePonctualite + COALESCE(:ponctualite, 0), " +
+            "p.nombrePonctualite = p.nombrePonctualite + CASE WHEN :ponctualite IS NULL THEN 0 ELSE 1 END, " +
+            "p.sommeCommunication = p.sommeCommunication + COALESCE(:communication, 0), " +
+            "p.nombreCommunication = p.nombreCommunication + CASE WHEN :communication IS NULL THEN 0 ELSE 1 END " +
+            "WHERE p.user.id = :providerId")
+    int addReview(@Param("providerId") Long providerId,
+            @Param("note") Integer note,
+            @Param("qualite") Integer qualite,
+            @Param("ponctualite") Integer ponctualite,
+            @Param("communication") Integer communication);
 }
@@ -1,32 +1,54 @@
 package com.home.services.repository;
 
 import com.home.services.model.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
 
-    // Avis d'un prestataire
-    List<Review> findByProviderIdOrderByCreatedAtDesc(Long providerId);
+    // Avis les plus récents d'un prestataire (associations affichées chargées dans la même requête)
+    @Query("SELECT r FROM Review r JOIN FETCH r.client JOIN FETCH r.provider JOIN FETCH r.application a " +
+            "JOIN FETCH a.serviceRequest WHERE r.provider.id = :providerId " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findLatestByProviderId(@Param("providerId") Long providerId, Pageable pageable);
+
+    // Avis antérieurs au curseur
+    @Query("SELECT r FROM Review r JOIN FETCH r.client JOIN FETCH r.provider JOIN FETCH r.application a " +
+            "JOIN FETCH a.serviceRequest WHERE r.provider.id = :providerId " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findByProviderIdBefore(@Param("providerId") Long providerId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    // Nombre d'avis d'un prestataire par note (1 à 5)
+    @Query("SELECT r.note AS note, COUNT(r) AS total FROM Review r WHERE r.provider.id = :providerId " +
+            "GROUP BY r.note")
+    List<NoteCount> countByProviderIdGroupByNote(@Param("providerId") Long providerId);
 
     // Vérifier si un avis existe pour une application
     boolean existsByApplicationId(Long applicationId);
 
     Optional<Review> findByApplicationId(Long applicationId);
 
-    // Moyenne des notes d'un prestataire
-    @Query("SELECT AVG(r.note) FROM Review r WHERE r.provider.id = :providerId")
-    Double findAverageNoteByProviderId(@Param("providerId") Long providerId);
-
     // Compter les avis d'un prestataire
     long countByProviderId(Long providerId);
 
     // Avis récents (pour admin)
     List<Review> findTop20ByOrderByCreatedAtDesc();
+
+    interface NoteCount {
+        Integer getNote();
+
+        Long getTotal();
+    }
 }
@@ -1,24 +1,40 @@
 package com.home.services.repository;
 
+import com.home.services.dto.response.ServiceRequestSummaryResponse;
 import com.home.services.model.ServiceRequest;
+import com.home.services.model.User;
 import com.home.services.model.enums.RequestStatus;
+import com.home.services.model.enums.Urgency;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ServiceRequestRepository extends JpaRepository<ServiceRequest, Long> {
 
-    // Annonces d'un client
-    List<ServiceRequest> findByClientIdOrderByCreatedAtDesc(Long clientId);
+    // Annonces d'un client, projetées en résumés en une seule requête (ni associations ni description complète)
+    @Query("SELECT new com.home.services.dto.response.ServiceRequestSummaryResponse(sr.id, c.id, c.nom, " +
+            "cat.id, cat.nom, cat.icone, sr.titre, sr.descriptionPreview, sr.quartier, sr.adresse, " +
+            "sr.budgetMin, sr.budgetMax, sr.datePrestation, sr.urgence, sr.statut, sr.nombreCandidatures, " +
+            "sp.id, sp.nom, sr.createdAt, sr.expiresAt) " +
+            "FROM ServiceRequest sr JOIN sr.client c JOIN sr.category cat LEFT JOIN sr.selectedProvider sp " +
+            "WHERE c.id = :clientId ORDER BY sr.createdAt DESC, sr.id DESC")
+    List<ServiceRequestSummaryResponse> findSummariesByClientId(@Param("clientId") Long clientId);
 
-    List<ServiceRequest> findByClientIdAndStatut(Long clientId, RequestStatus statut);
+    // Annonce avec ses associations affichées (client, catégorie, prestataire sélectionné)
+    @Query("SELECT sr FROM ServiceRequest sr JOIN FETCH sr.client JOIN FETCH sr.category " +
+            "LEFT JOIN FETCH sr.selectedProvider WHERE sr.id = :id")
+    Optional<ServiceRequest> findWithDetailsById(@Param("id") Long id);
 
-    // Annonces publiées (pour prestataires)
-    List<ServiceRequest> findByStatutOrderByCreatedAtDesc(RequestStatus statut);
+    List<ServiceRequest> findByClientIdAndStatut(Long clientId, RequestStatus statut);
 
     // Filtrage par catégorie
     List<ServiceRequest> findByStatutAndCategoryIdOrderByCreatedAtDesc(RequestStatus statut, Long categoryId);
@@ -30,23 +46,102 @@ public interface ServiceRequestRepository extends JpaRepository<ServiceRequest,
     List<ServiceRequest> findByStatutAndCategoryIdAndQuartierOrderByCreatedAtDesc(
             RequestStatus statut, Long categoryId, String quartier);
 
-    // Recherche combinée avec requête personnalisée
-    @Query("SELECT sr FROM ServiceRequest sr WHERE sr.statut = :statut " +
-            "AND (:categoryId IS NULL OR sr.category.id = :categoryId) " +
-            "AND (:quartier IS NULL OR sr.quartier = :quartier) " +
-            "ORDER BY sr.createdAt DESC")
-    List<ServiceRequest> findByFilters(
-            @Param("statut") RequestStatus statut,
+    // Fil des annonces publiées en base, pagination par clé (created_at, id) décroissante
+    // Une requête par combinaison catégorie / quartier : chacune suit un index de V8 ;
+    // urgence et budget sont filtrés sur les lignes parcourues
+    @Query("SELECT new com.home.services.dto.response.ServiceRequestSummaryResponse(sr.id, c.id, c.nom, " +
+            "cat.id, cat.nom, cat.icone, sr.titre, sr.descriptionPreview, sr.quartier, sr.adresse, " +
+            "sr.budgetMin, sr.budgetMax, sr.datePrestation, sr.urgence, sr.statut, sr.nombreCandidatures, " +
+            "sp.id, sp.nom, sr.createdAt, sr.expiresAt) " +
+            "FROM ServiceRequest sr JOIN sr.client c JOIN sr.category cat LEFT JOIN sr.selectedProvider sp " +
+            "WHERE sr.statut = com.home.services.model.enums.RequestStatus.PUBLIEE " +
+            "AND (sr.createdAt < :createdAt OR (sr.createdAt = :createdAt AND sr.id < :id)) " +
+            "AND (:urgence IS NULL OR sr.urgence = :urgence) " +
+            "AND (:budgetMin IS NULL OR COALESCE(sr.budgetMax, sr.budgetMin) >= :budgetMin) " +
+            "ORDER BY sr.createdAt DESC, sr.id DESC")
+    List<ServiceRequestSummaryResponse> findFeed(
+            @Param("urgence") Urgency urgence,
+            @Param("budgetMin") BigDecimal budgetMin,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    @Query("SELECT new com.home.services.dto.response.ServiceRequestSummaryResponse(sr.id, c.id, c.nom, " +
+            "cat.id, cat.nom, cat.icone, sr.titre, sr.descriptionPreview, sr.quartier, sr.adresse, " +
+            "sr.budgetMin, sr.budgetMax, sr.datePrestation, sr.urgence, sr.statut, sr.nombreCandidatures, " +
+            "sp.id, sp.nom, sr.createdAt, sr.expiresAt) " +
+            "FROM ServiceRequest sr JOIN sr.client c JOIN sr.category cat LEFT JOIN sr.selectedProvider sp " +
+            "WHERE sr.statut = com.home.services.model.enums.RequestStatus.PUBLIEE AND cat.id = :categoryId " +
+            "AND (sr.createdAt < :createdAt OR (sr.createdAt = :createdAt AND sr.id < :id)) " +
+            "AND (:urgence IS NULL OR sr.urgence = :urgence) " +
+            "AND (:budgetMin IS NULL OR COALESCE(sr.budgetMax, sr.budgetMin) >= :budgetMin) " +
+            "ORDER BY sr.createdAt DESC, sr.id DESC")
+    List<ServiceRequestSummaryResponse> findFeedByCategory(
+            @Param("categoryId") Long categoryId,
+            @Param("urgence") Urgency urgence,
+            @Param("budgetMin") BigDecimal budgetMin,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    @Query("SELECT new com.home.services.dto.response.ServiceRequestSummaryResponse(sr.id, c.id, c.nom, " +
+            "cat.id, cat.nom, cat.icone, sr.titre, sr.descriptionPreview, sr.quartier, sr.adresse, " +
+            "sr.budgetMin, sr.budgetMax, sr.datePrestation, sr.urgence, sr.statut, sr.nombreCandidatures, " +
+            "sp.id, sp.nom, sr.createdAt, sr.expiresAt) " +
+            "FROM ServiceRequest sr JOIN sr.client c JOIN sr.category cat LEFT JOIN sr.selectedProvider sp " +
+            "WHERE sr.statut = com.home.services.model.enums.RequestStatus.PUBLIEE AND sr.quartier = :quartier " +
+            "AND (sr.createdAt < :createdAt OR (sr.createdAt = :createdAt AND sr.id < :id)) " +
+            "AND (:urgence IS NULL OR sr.urgence = :urgence) " +
+            "AND (:budgetMin IS NULL OR COALESCE(sr.budgetMax, sr.budgetMin) >= :budgetMin) " +
+            "ORDER BY sr.createdAt DESC, sr.id DESC")
+    List<ServiceRequestSummaryResponse> findFeedByQuartier(
+            @Param("quartier") String quartier,
+            @Param("urgence") Urgency urgence,
+            @Param("budgetMin") BigDecimal budgetMin,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    @Query("SELECT new com.home.services.dto.response.ServiceRequestSummaryResponse(sr.id, c.id, c.nom, " +
+            "cat.id, cat.nom, cat.icone, sr.titre, sr.descriptionPreview, sr.quartier, sr.adresse, " +
+            "sr.budgetMin, sr.budgetMax, sr.datePrestation, sr.urgence, sr.statut, sr.nombreCandidatures, " +
+            "sp.id, sp.nom, sr.createdAt, sr.expiresAt) " +
+            "FROM ServiceRequest sr JOIN sr.client c JOIN sr.category cat LEFT JOIN sr.selectedProvider sp " +
+            "WHERE sr.statut = com.home.services.model.enums.RequestStatus.PUBLIEE AND cat.id = :categoryId " +
+            "AND sr.quartier = :quartier " +
+            "AND (sr.createdAt < :createdAt OR (sr.createdAt = :createdAt AND sr.id < :id)) " +
+            "AND (:urgence IS NULL OR sr.urgence = :urgence) " +
+            "AND (:budgetMin IS NULL OR COALESCE(sr.budgetMax, sr.budgetMin) >= :budgetMin) " +
+            "ORDER BY sr.createdAt DESC, sr.id DESC")
+    List<ServiceRequestSummaryResponse> findFeedByCategoryAndQuartier(
             @Param("categoryId") Long categoryId,
-            @Param("quartier") String quartier);
+            @Param("quartier") String quartier,
+            @Param("urgence") Urgency urgence,
+            @Param("budgetMin") BigDecimal budgetMin,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    // Compteur de candidatures (candidatures non retirées) : incrément atomique, seulement si l'annonce est publiée
+    @Modifying
+    @Query("UPDATE ServiceRequest sr SET sr.nombreCandidatures = sr.nombreCandidatures + 1 " +
+            "WHERE sr.id = :id AND sr.statut = com.home.services.model.enums.RequestStatus.PUBLIEE")
+    int incrementCandidatures(@Param("id") Long id);
+
+    // Décrément atomique, jamais en dessous de zéro
+    @Modifying
+    @Query("UPDATE ServiceRequest sr SET sr.nombreCandidatures = sr.nombreCandidatures - 1 " +
+            "WHERE sr.id = :id AND sr.nombreCandidatures > 0")
+    int decrementCandidatures(@Param("id") Long id);
+
+    // Attribution au prestataire retenu ; une seule acceptation réussit tant que l'annonce est publiée
+    @Modifying
+    @Query("UPDATE ServiceRequest sr SET sr.statut = com.home.services.model.enums.RequestStatus.EN_COURS, " +
+            "sr.selectedProvider = :provider, sr.updatedAt = :now " +
+            "WHERE sr.id = :id AND sr.statut = com.home.services.model.enums.RequestStatus.PUBLIEE")
+    int assignIfPublished(@Param("id") Long id, @Param("provider") User provider,
+            @Param("now") LocalDateTime now);
 
     // Compter les annonces par statut pour un client
     long countByClientIdAndStatut(Long clientId, RequestStatus statut);
-
-    // Recherche par mot-clé dans titre ou description
-    @Query("SELECT sr FROM ServiceRequest sr WHERE sr.statut = 'PUBLIEE' " +
-            "AND (LOWER(sr.titre) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-            "OR LOWER(sr.description) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
-            "ORDER BY sr.createdAt DESC")
-    List<ServiceRequest> searchByKeyword(@Param("keyword") String keyword);
 }
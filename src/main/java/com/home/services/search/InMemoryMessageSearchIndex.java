@@ -0,0 +1,128 @@
+package com.home.services.search;
+
+import com.home.services.dto.request.KeysetCursor;
+import com.home.services.dto.response.MessageResponse;
+import com.home.services.dto.response.MessageSearchHitResponse;
+import com.home.services.event.MessageSentEvent;
+import com.home.services.repository.ConversationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Index inversé en mémoire pour H2 (dev/test)
+ * Construit au démarrage depuis la base puis alimenté à chaque message envoyé ;
+ * les ids de messages étant croissants, l'ordre décroissant des ids donne les plus récents d'abord
+ */
+@Slf4j
+public class InMemoryMessageSearchIndex implements MessageSearchIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConversationRepository conversationRepository;
+
+    private final Map<Long, IndexedMessage> messages = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListSet<Long>> postings = new ConcurrentHashMap<>();
+
+    public InMemoryMessageSearchIndex(JdbcTemplate jdbcTemplate, ConversationRepository conversationRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.conversationRepository = conversationRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        jdbcTemplate.query("SELECT m.id, m.application_id, m.sender_id, u.nom, m.content, m.created_at " +
+                "FROM messages m JOIN users u ON u.id = m.sender_id",
+                (RowCallbackHandler) rs -> add(new IndexedMessage(rs.getLong("id"), rs.getLong("application_id"),
+                        rs.getLong("sender_id"), rs.getString("nom"), rs.getString("content"),
+                        rs.getObject("created_at", LocalDateTime.class))));
+        log.info("Index de recherche des messages construit en mémoire ({} messages)", messages.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        MessageResponse message = event.getMessage();
+        add(new IndexedMessage(message.getId(), message.getApplicationId(), message.getSenderId(),
+                message.getSenderNom(), message.getContent(), message.getCreatedAt()));
+    }
+
+    @Override
+    public List<MessageSearchHitResponse> search(String query, Long participantId, KeysetCursor after, int limit) {
+        Set<String> terms = TextAnalyzer.terms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        // Tous les termes doivent être présents : on parcourt la liste la plus courte
+        List<NavigableSet<Long>> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            NavigableSet<Long> ids = postings.get(term);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> allowedApplications = participantId == null ? null
+                : new HashSet<>(conversationRepository.findApplicationIdsForUser(participantId));
+
+        NavigableSet<Long> candidates = after == null
+                ? lists.get(0).descendingSet()
+                : lists.get(0).headSet(after.getId(), false).descendingSet();
+
+        List<MessageSearchHitResponse> hits = new ArrayList<>(limit);
+        for (Long id : candidates) {
+            if (hits.size() >= limit) {
+                break;
+            }
+            IndexedMessage message = messages.get(id);
+            if (message == null || !containsAll(lists, id)
+                    || (allowedApplications != null && !allowedApplications.contains(message.applicationId()))) {
+                continue;
+            }
+            hits.add(MessageSearchHitResponse.builder()
+                    .messageId(message.id())
+                    .applicationId(message.applicationId())
+                    .senderId(message.senderId())
+                    .senderNom(message.senderNom())
+                    .createdAt(message.createdAt())
+                    .snippet(TextAnalyzer.toHtml(TextAnalyzer.snippet(message.content(), terms)))
+                    .build());
+        }
+        return hits;
+    }
+
+    private boolean containsAll(List<NavigableSet<Long>> lists, Long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(IndexedMessage message) {
+        messages.put(message.id(), message);
+        for (String term : TextAnalyzer.terms(message.content())) {
+            postings.computeIfAbsent(term, t -> new ConcurrentSkipListSet<>()).add(message.id());
+        }
+    }
+
+    private record IndexedMessage(Long id, Long applicationId, Long senderId, String senderNom, String content,
+            LocalDateTime createdAt) {
+    }
+}
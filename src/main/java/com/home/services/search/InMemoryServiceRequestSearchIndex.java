@@ -0,0 +1,393 @@
+package com.home.services.search;
+
+import com.home.services.dto.response.ServiceRequestSummaryResponse;
+import com.home.services.event.ServiceRequestChangedEvent;
+import com.home.services.event.ServiceRequestsExpiredEvent;
+import com.home.services.model.enums.RequestStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé BM25 en mémoire sur les annonces publiées
+ * Listes de postings en tableaux d'int (numéros de document internes croissants et fréquences) ;
+ * une annonce modifiée reçoit un nouveau numéro, l'ancien reste inerte jusqu'au prochain compactage
+ * Construit au démarrage puis tenu à jour après chaque modification d'annonce ; la recherche ne lit pas la base
+ * Propre à chaque instance : reconstruit aussi périodiquement pour suivre les écritures des autres nœuds
+ */
+@Slf4j
+public class InMemoryServiceRequestSearchIndex implements ServiceRequestSearchIndex {
+
+    // La description complète n'est lue que pour l'indexation ; seuls les résumés sont conservés
+    private static final String SELECT = "SELECT " + ServiceRequestRows.COLUMNS + ", sr.description "
+            + "FROM service_requests sr " + ServiceRequestRows.JOINS;
+
+    // Paramètres BM25 usuels
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Un mot du titre compte comme plusieurs occurrences dans la description
+    private static final int TITLE_WEIGHT = 3;
+
+    // Même atténuation que sur PostgreSQL : demi-pertinence après une semaine
+    private static final double RECENCY_SECONDS = 604800;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_TOMBSTONES_BEFORE_COMPACT = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int minTombstonesBeforeCompact;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Sérialise les écritures (lecture de la ligne puis application) : une version lue plus tôt
+    // ne peut pas écraser une version lue plus tard
+    private final Object writeMutex = new Object();
+
+    // Annonces modifiées pendant une reconstruction, relues une fois l'instantané installé (protégé par writeMutex)
+    private Set<Long> changedDuringRebuild;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docByRequest = new HashMap<>();
+    private ServiceRequestSummaryResponse[] docs = new ServiceRequestSummaryResponse[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    // Postings de chaque document, pour le retirer sans réanalyser son texte
+    private Postings[][] docTerms = new Postings[INITIAL_CAPACITY][];
+    private int docCount;
+    private int liveCount;
+    private long totalLength;
+
+    public InMemoryServiceRequestSearchIndex(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, MIN_TOMBSTONES_BEFORE_COMPACT);
+    }
+
+    InMemoryServiceRequestSearchIndex(JdbcTemplate jdbcTemplate, int minTombstonesBeforeCompact) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.minTombstonesBeforeCompact = minTombstonesBeforeCompact;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.search.requests.rebuild-ms:300000}",
+            initialDelayString = "${app.search.requests.rebuild-ms:300000}")
+    public void rebuild() {
+        synchronized (writeMutex) {
+            if (changedDuringRebuild != null) {
+                // Reconstruction déjà en cours
+                return;
+            }
+            changedDuringRebuild = new HashSet<>();
+        }
+
+        List<IndexedRow> published;
+        try {
+            // Lecture hors verrou : les modifications validées entre-temps sont mémorisées puis relues
+            published = jdbcTemplate.query(SELECT + " WHERE sr.statut = 'PUBLIEE'",
+                    (rs, rowNum) -> new IndexedRow(ServiceRequestRows.toSummary(rs), rs.getString("description")));
+        } catch (RuntimeException e) {
+            synchronized (writeMutex) {
+                changedDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        int terms;
+        synchronized (writeMutex) {
+            lock.writeLock().lock();
+            try {
+                clear();
+                published.forEach(row -> add(row.summary(), row.description()));
+                terms = postings.size();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Set<Long> changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            changed.forEach(this::refresh);
+        }
+        log.info("Index de recherche des annonces construit en mémoire ({} annonces, {} termes)",
+                published.size(), terms);
+    }
+
+    @TransactionalEventListener
+    public void onServiceRequestChanged(ServiceRequestChangedEvent event) {
+        synchronized (writeMutex) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(event.getServiceRequestId());
+            } else {
+                refresh(event.getServiceRequestId());
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onServiceRequestsExpired(ServiceRequestsExpiredEvent event) {
+        synchronized (writeMutex) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(event.getServiceRequestIds());
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                event.getServiceRequestIds().forEach(this::remove);
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Relire une annonce et remplacer son document (appelé sous writeMutex)
+     */
+    private void refresh(Long serviceRequestId) {
+        List<IndexedRow> rows = jdbcTemplate.query(SELECT + " WHERE sr.id = ?",
+                (rs, rowNum) -> new IndexedRow(ServiceRequestRows.toSummary(rs), rs.getString("description")),
+                serviceRequestId);
+        lock.writeLock().lock();
+        try {
+            remove(serviceRequestId);
+            if (!rows.isEmpty() && rows.get(0).summary().getStatut() == RequestStatus.PUBLIEE) {
+                add(rows.get(0).summary(), rows.get(0).description());
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ServiceRequestSummaryResponse> search(String query, Long categoryId, String quartier, int offset,
+            int limit) {
+        Set<String> terms = TextAnalyzer.terms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            // Tous les termes doivent être présents : on parcourt la liste la plus courte
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(p -> p.size));
+
+            double averageLength = liveCount == 0 ? 1 : (double) totalLength / liveCount;
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < idf.length; i++) {
+                int df = lists.get(i).live;
+                idf[i] = Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+            }
+
+            // Tas minimal des meilleurs résultats jusqu'à la fin de la page demandée
+            int wanted = offset + limit;
+            Comparator<Hit> byRelevance = Comparator.comparingDouble(Hit::score).thenComparingInt(Hit::doc);
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(wanted, INITIAL_CAPACITY) + 1, byRelevance);
+            LocalDateTime now = LocalDateTime.now();
+
+            Postings first = lists.get(0);
+            candidates:
+            for (int i = 0; i < first.size; i++) {
+                int doc = first.docs[i];
+                ServiceRequestSummaryResponse request = docs[doc];
+                if (request == null
+                        || (categoryId != null && !categoryId.equals(request.getCategoryId()))
+                        || (quartier != null && !quartier.equals(request.getQuartier()))) {
+                    continue;
+                }
+
+                double normalization = K1 * (1 - B + B * lengths[doc] / averageLength);
+                double score = idf[0] * bm25(first.freqs[i], normalization);
+                for (int j = 1; j < lists.size(); j++) {
+                    Postings other = lists.get(j);
+                    int index = Arrays.binarySearch(other.docs, 0, other.size, doc);
+                    if (index < 0) {
+                        continue candidates;
+                    }
+                    score += idf[j] * bm25(other.freqs[index], normalization);
+                }
+                if (request.getCreatedAt() != null) {
+                    score /= 1 + Math.max(0, Duration.between(request.getCreatedAt(), now).getSeconds())
+                            / RECENCY_SECONDS;
+                }
+
+                top.offer(new Hit(doc, score));
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(byRelevance.reversed());
+            List<ServiceRequestSummaryResponse> results = new ArrayList<>(Math.max(0, ranked.size() - offset));
+            for (int i = offset; i < ranked.size(); i++) {
+                results.add(docs[ranked.get(i).doc()]);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static double bm25(int frequency, double normalization) {
+        return frequency * (K1 + 1) / (frequency + normalization);
+    }
+
+    private void add(ServiceRequestSummaryResponse request, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : TextAnalyzer.tokens(request.getTitre())) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : TextAnalyzer.tokens(description)) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        int doc = docCount++;
+        if (doc == docs.length) {
+            docs = Arrays.copyOf(docs, doc * 2);
+            lengths = Arrays.copyOf(lengths, doc * 2);
+            docTerms = Arrays.copyOf(docTerms, doc * 2);
+        }
+        Postings[] terms = new Postings[frequencies.size()];
+        int length = 0;
+        int t = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Postings list = postings.computeIfAbsent(entry.getKey(), Postings::new);
+            list.add(doc, entry.getValue());
+            terms[t++] = list;
+            length += entry.getValue();
+        }
+
+        docs[doc] = request;
+        lengths[doc] = length;
+        docTerms[doc] = terms;
+        docByRequest.put(request.getId(), doc);
+        liveCount++;
+        totalLength += length;
+    }
+
+    private void remove(Long requestId) {
+        Integer doc = docByRequest.remove(requestId);
+        if (doc == null) {
+            return;
+        }
+        for (Postings list : docTerms[doc]) {
+            // Liste sans document vivant : retirée, elle sera recréée au besoin
+            if (--list.live == 0) {
+                postings.remove(list.term, list);
+            }
+        }
+
+        docs[doc] = null;
+        docTerms[doc] = null;
+        liveCount--;
+        totalLength -= lengths[doc];
+    }
+
+    private void compactIfNeeded() {
+        int tombstones = docCount - liveCount;
+        if (tombstones >= minTombstonesBeforeCompact && tombstones > liveCount) {
+            compact();
+        }
+    }
+
+    /**
+     * Renuméroter les documents vivants (ordre conservé) et purger les postings des anciennes versions
+     */
+    private void compact() {
+        int[] renumbered = new int[docCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (docs[doc] == null) {
+                renumbered[doc] = -1;
+                continue;
+            }
+            renumbered[doc] = live;
+            docs[live] = docs[doc];
+            lengths[live] = lengths[doc];
+            docTerms[live] = docTerms[doc];
+            docByRequest.put(docs[live].getId(), live);
+            live++;
+        }
+        Arrays.fill(docs, live, docCount, null);
+        Arrays.fill(docTerms, live, docCount, null);
+        docCount = live;
+
+        for (Postings list : postings.values()) {
+            int size = 0;
+            for (int i = 0; i < list.size; i++) {
+                int doc = renumbered[list.docs[i]];
+                if (doc >= 0) {
+                    list.docs[size] = doc;
+                    list.freqs[size] = list.freqs[i];
+                    size++;
+                }
+            }
+            list.size = size;
+        }
+    }
+
+    private void clear() {
+        postings.clear();
+        docByRequest.clear();
+        docs = new ServiceRequestSummaryResponse[INITIAL_CAPACITY];
+        lengths = new int[INITIAL_CAPACITY];
+        docTerms = new Postings[INITIAL_CAPACITY][];
+        docCount = 0;
+        liveCount = 0;
+        totalLength = 0;
+    }
+
+    /**
+     * Liste de postings : numéros de documents croissants et fréquences associées
+     */
+    private static final class Postings {
+        private final String term;
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        // Documents vivants (fréquence documentaire pour l'IDF)
+        private int live;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = frequency;
+            size++;
+            live++;
+        }
+    }
+
+    private record Hit(int doc, double score) {
+    }
+
+    private record IndexedRow(ServiceRequestSummaryResponse summary, String description) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.home.services.search;
+
+import com.home.services.dto.request.KeysetCursor;
+import com.home.services.dto.response.MessageSearchHitResponse;
+
+import java.util.List;
+
+/**
+ * Recherche plein texte dans les messages
+ * PostgreSQL : colonne tsvector indexée (GIN) ; H2 : index inversé en mémoire
+ */
+public interface MessageSearchIndex {
+
+    /**
+     * Messages correspondant à la requête, plus récents d'abord (ordre created_at, id)
+     *
+     * @param participantId restreint aux conversations de cet utilisateur (null : tous les messages)
+     * @param after         curseur du dernier résultat de la page précédente (null : première page)
+     */
+    List<MessageSearchHitResponse> search(String query, Long participantId, KeysetCursor after, int limit);
+}
@@ -0,0 +1,64 @@
+package com.home.services.search;
+
+import com.home.services.dto.request.KeysetCursor;
+import com.home.services.dto.response.MessageSearchHitResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recherche via la colonne messages.search_vector (configuration french, index GIN)
+ * L'extrait n'est calculé que pour les lignes de la page
+ */
+public class PostgresMessageSearchIndex implements MessageSearchIndex {
+
+    private static final String HEADLINE_OPTIONS = "StartSel=" + TextAnalyzer.START_MARK +
+            ", StopSel=" + TextAnalyzer.STOP_MARK + ", MaxWords=20, MinWords=8, MaxFragments=2";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresMessageSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<MessageSearchHitResponse> search(String query, Long participantId, KeysetCursor after, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(
+                "WITH hits AS (SELECT m.id, m.application_id, m.sender_id, m.content, m.created_at " +
+                "FROM messages m WHERE m.search_vector @@ websearch_to_tsquery('french', ?) ");
+        params.add(query);
+
+        if (participantId != null) {
+            sql.append("AND m.application_id IN (SELECT c.application_id FROM conversations c " +
+                    "WHERE c.client_id = ? OR c.provider_id = ?) ");
+            params.add(participantId);
+            params.add(participantId);
+        }
+        if (after != null) {
+            sql.append("AND (m.created_at, m.id) < (?, ?) ");
+            params.add(after.getCreatedAt());
+            params.add(after.getId());
+        }
+        sql.append("ORDER BY m.created_at DESC, m.id DESC LIMIT ?) ");
+        params.add(limit);
+
+        sql.append("SELECT h.id, h.application_id, h.sender_id, u.nom, h.created_at, " +
+                "ts_headline('french', h.content, websearch_to_tsquery('french', ?), ?) AS snippet " +
+                "FROM hits h JOIN users u ON u.id = h.sender_id " +
+                "ORDER BY h.created_at DESC, h.id DESC");
+        params.add(query);
+        params.add(HEADLINE_OPTIONS);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> MessageSearchHitResponse.builder()
+                .messageId(rs.getLong("id"))
+                .applicationId(rs.getLong("application_id"))
+                .senderId(rs.getLong("sender_id"))
+                .senderNom(rs.getString("nom"))
+                .createdAt(rs.getObject("created_at", LocalDateTime.class))
+                .snippet(TextAnalyzer.toHtml(rs.getString("snippet")))
+                .build(), params.toArray());
+    }
+}
@@ -0,0 +1,54 @@
+package com.home.services.search;
+
+import com.home.services.dto.response.ServiceRequestSummaryResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recherche via la colonne service_requests.search_vector (configuration fr_unaccent, index GIN)
+ * Classement : ts_rank atténué par l'ancienneté de l'annonce (demi-pertinence après une semaine)
+ * Les jointures ne sont faites que pour les lignes de la page
+ */
+public class PostgresServiceRequestSearchIndex implements ServiceRequestSearchIndex {
+
+    private static final String RECENCY_SECONDS = "604800";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresServiceRequestSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<ServiceRequestSummaryResponse> search(String query, Long categoryId, String quartier, int offset,
+            int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(
+                "WITH hits AS (SELECT sr.id, ts_rank(sr.search_vector, q) / (1 + EXTRACT(EPOCH FROM " +
+                "(CURRENT_TIMESTAMP - sr.created_at)) / " + RECENCY_SECONDS + ") AS score " +
+                "FROM service_requests sr, websearch_to_tsquery('fr_unaccent', ?) q " +
+                "WHERE sr.statut = 'PUBLIEE' AND sr.search_vector @@ q ");
+        params.add(query);
+
+        if (categoryId != null) {
+            sql.append("AND sr.category_id = ? ");
+            params.add(categoryId);
+        }
+        if (quartier != null) {
+            sql.append("AND sr.quartier = ? ");
+            params.add(quartier);
+        }
+        sql.append("ORDER BY score DESC, sr.id DESC LIMIT ? OFFSET ?) ");
+        params.add(limit);
+        params.add(offset);
+
+        sql.append("SELECT ").append(ServiceRequestRows.COLUMNS)
+                .append(" FROM hits h JOIN service_requests sr ON sr.id = h.id ").append(ServiceRequestRows.JOINS)
+                .append(" ORDER BY h.score DESC, h.id DESC");
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> ServiceRequestRows.toSummary(rs),
+                params.toArray());
+    }
+}
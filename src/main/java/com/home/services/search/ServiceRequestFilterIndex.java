@@ -0,0 +1,301 @@
+package com.home.services.search;
+
+import com.home.services.dto.response.ServiceRequestSummaryResponse;
+import com.home.services.event.ServiceRequestChangedEvent;
+import com.home.services.event.ServiceRequestsExpiredEvent;
+import com.home.services.model.enums.RequestStatus;
+import com.home.services.model.enums.Urgency;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index des annonces publiées pour le fil des prestataires : un bitmap compressé (Roaring)
+ * par catégorie, quartier, urgence et tranche de budget, indexé par l'id de l'annonce
+ * Une combinaison de filtres se résout par intersection des bitmaps ; le fil est ordonné par id décroissant
+ * (ordre de création), le parcours à rebours donne donc les annonces les plus récentes d'abord
+ * L'index est propre à chaque instance : il suit les modifications validées sur ce nœud et est reconstruit
+ * périodiquement depuis la base, ce qui borne le retard sur les écritures faites par les autres nœuds
+ */
+@Component
+@Slf4j
+public class ServiceRequestFilterIndex {
+
+    private static final String SELECT = "SELECT " + ServiceRequestRows.COLUMNS + " FROM service_requests sr "
+            + ServiceRequestRows.JOINS;
+
+    // Bornes basses des tranches de budget (FCFA), sur le budget maximum de l'annonce (à défaut le minimum)
+    private static final long[] BUDGET_BOUNDS = { 0, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000 };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Sérialise les écritures (lecture de la ligne puis application) : une version lue plus tôt
+    // ne peut pas écraser une version lue plus tard
+    private final Object writeMutex = new Object();
+
+    // Annonces modifiées pendant une reconstruction, relues une fois l'instantané installé (protégé par writeMutex)
+    private Set<Long> changedDuringRebuild;
+
+    private final RoaringBitmap open = new RoaringBitmap();
+    private final Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+    private final Map<String, RoaringBitmap> byQuartier = new HashMap<>();
+    private final Map<Urgency, RoaringBitmap> byUrgency = new EnumMap<>(Urgency.class);
+    private final RoaringBitmap[] byBudget = new RoaringBitmap[BUDGET_BOUNDS.length];
+    private final Map<Integer, ServiceRequestSummaryResponse> requests = new HashMap<>();
+
+    private volatile boolean loaded;
+
+    public ServiceRequestFilterIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (int i = 0; i < byBudget.length; i++) {
+            byBudget[i] = new RoaringBitmap();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.requests.filter-index.rebuild-ms:300000}",
+            initialDelayString = "${app.requests.filter-index.rebuild-ms:300000}")
+    public void rebuild() {
+        synchronized (writeMutex) {
+            if (changedDuringRebuild != null) {
+                // Reconstruction déjà en cours
+                return;
+            }
+            changedDuringRebuild = new HashSet<>();
+        }
+
+        List<ServiceRequestSummaryResponse> published;
+        try {
+            // Lecture hors verrou : les modifications validées entre-temps sont mémorisées puis relues
+            published = jdbcTemplate.query(SELECT + " WHERE sr.statut = 'PUBLIEE'",
+                    (rs, rowNum) -> ServiceRequestRows.toSummary(rs));
+        } catch (RuntimeException e) {
+            synchronized (writeMutex) {
+                changedDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        synchronized (writeMutex) {
+            install(published);
+            Set<Long> changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            changed.forEach(this::refresh);
+        }
+        log.info("Index du fil des annonces construit ({} annonces ouvertes)", published.size());
+    }
+
+    private void install(List<ServiceRequestSummaryResponse> published) {
+        lock.writeLock().lock();
+        try {
+            open.clear();
+            byCategory.clear();
+            byQuartier.clear();
+            byUrgency.clear();
+            Arrays.stream(byBudget).forEach(RoaringBitmap::clear);
+            requests.clear();
+
+            published.forEach(this::add);
+            // Conversion en conteneurs "run" là où c'est plus compact
+            open.runOptimize();
+            byCategory.values().forEach(RoaringBitmap::runOptimize);
+            byQuartier.values().forEach(RoaringBitmap::runOptimize);
+            byUrgency.values().forEach(RoaringBitmap::runOptimize);
+            Arrays.stream(byBudget).forEach(RoaringBitmap::runOptimize);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onServiceRequestChanged(ServiceRequestChangedEvent event) {
+        synchronized (writeMutex) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(event.getServiceRequestId());
+            } else {
+                refresh(event.getServiceRequestId());
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onServiceRequestsExpired(ServiceRequestsExpiredEvent event) {
+        synchronized (writeMutex) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(event.getServiceRequestIds());
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                event.getServiceRequestIds().forEach(id -> remove(Math.toIntExact(id)));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Relire une annonce et remplacer son entrée (appelé sous writeMutex)
+     */
+    private void refresh(Long serviceRequestId) {
+        List<ServiceRequestSummaryResponse> rows = jdbcTemplate.query(SELECT + " WHERE sr.id = ?",
+                (rs, rowNum) -> ServiceRequestRows.toSummary(rs), serviceRequestId);
+        lock.writeLock().lock();
+        try {
+            remove(Math.toIntExact(serviceRequestId));
+            if (!rows.isEmpty() && rows.get(0).getStatut() == RequestStatus.PUBLIEE) {
+                add(rows.get(0));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index construit au moins une fois (sinon le fil est lu en base)
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Page du fil correspondant aux filtres (null : filtre absent), par id décroissant
+     *
+     * @param budgetMin budget minimum attendu par le prestataire (annonces sans budget exclues)
+     * @param afterId   id de la dernière annonce de la page précédente (null : première page)
+     */
+    public List<ServiceRequestSummaryResponse> page(Long categoryId, String quartier, Urgency urgence,
+            BigDecimal budgetMin, Long afterId, int limit) {
+        if (!loaded) {
+            rebuild();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> filters = new ArrayList<>(4);
+            if (categoryId != null) {
+                filters.add(byCategory.get(categoryId));
+            }
+            if (quartier != null) {
+                filters.add(byQuartier.get(quartier));
+            }
+            if (urgence != null) {
+                filters.add(byUrgency.get(urgence));
+            }
+            if (budgetMin != null) {
+                filters.add(fromBudget(budgetMin));
+            }
+            if (filters.contains(null)) {
+                return List.of();
+            }
+
+            RoaringBitmap matches = switch (filters.size()) {
+                case 0 -> open;
+                case 1 -> filters.get(0);
+                default -> FastAggregation.and(filters.toArray(new RoaringBitmap[0]));
+            };
+
+            List<ServiceRequestSummaryResponse> page = new ArrayList<>(limit);
+            long id = afterId == null ? last(matches)
+                    : previous(matches, Math.min(afterId - 1, Integer.MAX_VALUE));
+            while (id >= 0 && page.size() < limit) {
+                ServiceRequestSummaryResponse request = requests.get((int) id);
+                // La tranche contenant le budget demandé n'est que partiellement au-dessus du seuil
+                if (budgetMin == null || budgetMin.compareTo(budget(request)) <= 0) {
+                    page.add(request);
+                }
+                id = previous(matches, id - 1);
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long last(RoaringBitmap bitmap) {
+        return bitmap.isEmpty() ? -1 : Integer.toUnsignedLong(bitmap.last());
+    }
+
+    /**
+     * Plus grand id présent inférieur ou égal à la borne (-1 si aucun)
+     */
+    private static long previous(RoaringBitmap bitmap, long upTo) {
+        return upTo < 0 ? -1 : bitmap.previousValue((int) upTo);
+    }
+
+    private RoaringBitmap fromBudget(BigDecimal budgetMin) {
+        int first = bucket(budgetMin);
+        return FastAggregation.or(Arrays.copyOfRange(byBudget, first, byBudget.length));
+    }
+
+    private static int bucket(BigDecimal amount) {
+        long value = amount.longValue();
+        int bucket = 0;
+        while (bucket + 1 < BUDGET_BOUNDS.length && BUDGET_BOUNDS[bucket + 1] <= value) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static BigDecimal budget(ServiceRequestSummaryResponse request) {
+        return request.getBudgetMax() != null ? request.getBudgetMax() : request.getBudgetMin();
+    }
+
+    private void add(ServiceRequestSummaryResponse request) {
+        int id = Math.toIntExact(request.getId());
+        open.add(id);
+        byCategory.computeIfAbsent(request.getCategoryId(), k -> new RoaringBitmap()).add(id);
+        byQuartier.computeIfAbsent(request.getQuartier(), k -> new RoaringBitmap()).add(id);
+        byUrgency.computeIfAbsent(request.getUrgence(), k -> new RoaringBitmap()).add(id);
+        BigDecimal budget = budget(request);
+        if (budget != null) {
+            byBudget[bucket(budget)].add(id);
+        }
+        requests.put(id, request);
+    }
+
+    private void remove(int id) {
+        ServiceRequestSummaryResponse request = requests.remove(id);
+        if (request == null) {
+            return;
+        }
+        open.remove(id);
+        removeFrom(byCategory, request.getCategoryId(), id);
+        removeFrom(byQuartier, request.getQuartier(), id);
+        removeFrom(byUrgency, request.getUrgence(), id);
+        BigDecimal budget = budget(request);
+        if (budget != null) {
+            byBudget[bucket(budget)].remove(id);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int id) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.home.services.search;
+
+import com.home.services.dto.response.ServiceRequestSummaryResponse;
+import com.home.services.model.enums.RequestStatus;
+import com.home.services.model.enums.Urgency;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Lecture JDBC des résumés d'annonces pour les index (vue publique, sans adresse)
+ * Seul l'aperçu est lu : la description complète (TEXT) reste hors des listes
+ */
+final class ServiceRequestRows {
+
+    static final String COLUMNS = "sr.id, sr.client_id, u.nom AS client_nom, sr.category_id, " +
+            "c.nom AS category_nom, c.icone AS category_icone, sr.titre, sr.description_preview, sr.quartier, " +
+            "sr.budget_min, sr.budget_max, sr.date_prestation, sr.urgence, sr.statut, sr.nombre_candidatures, " +
+            "sr.created_at, sr.expires_at";
+
+    static final String JOINS = "JOIN users u ON u.id = sr.client_id JOIN categories c ON c.id = sr.category_id";
+
+    private ServiceRequestRows() {
+    }
+
+    static ServiceRequestSummaryResponse toSummary(ResultSet rs) throws SQLException {
+        return ServiceRequestSummaryResponse.builder()
+                .id(rs.getLong("id"))
+                .clientId(rs.getLong("client_id"))
+                .clientNom(rs.getString("client_nom"))
+                .categoryId(rs.getLong("category_id"))
+                .categoryNom(rs.getString("category_nom"))
+                .categoryIcone(rs.getString("category_icone"))
+                .titre(rs.getString("titre"))
+                .descriptionPreview(rs.getString("description_preview"))
+                .quartier(rs.getString("quartier"))
+                .budgetMin(rs.getBigDecimal("budget_min"))
+                .budgetMax(rs.getBigDecimal("budget_max"))
+                .datePrestation(rs.getObject("date_prestation", LocalDate.class))
+                .urgence(Urgency.valueOf(rs.getString("urgence")))
+                .statut(RequestStatus.valueOf(rs.getString("statut")))
+                .nombreCandidatures(rs.getObject("nombre_candidatures", Integer.class))
+                .createdAt(rs.getObject("created_at", LocalDateTime.class))
+                .expiresAt(rs.getObject("expires_at", LocalDateTime.class))
+                .build();
+    }
+}
@@ -0,0 +1,21 @@
+package com.home.services.search;
+
+import com.home.services.dto.response.ServiceRequestSummaryResponse;
+
+import java.util.List;
+
+/**
+ * Recherche plein texte dans les annonces publiées
+ * PostgreSQL : colonne tsvector indexée (GIN) ; sinon index inversé BM25 en mémoire
+ */
+public interface ServiceRequestSearchIndex {
+
+    /**
+     * Annonces publiées correspondant à la requête, les plus pertinentes d'abord (vue publique, sans adresse)
+     *
+     * @param categoryId filtre de catégorie (null : toutes)
+     * @param quartier   filtre de quartier (null : tous)
+     * @param offset     nombre de résultats déjà servis
+     */
+    List<ServiceRequestSummaryResponse> search(String query, Long categoryId, String quartier, int offset, int limit);
+}
@@ -0,0 +1,153 @@
+package com.home.services.search;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Découpage et normalisation du texte pour les index de recherche en mémoire
+ * (minuscules, sans accents, racinisation légère du français : pluriels et féminins courants)
+ */
+public final class TextAnalyzer {
+
+    // Marqueurs de surlignage placés avant l'échappement HTML
+    public static final String START_MARK = "\u0002";
+    public static final String STOP_MARK = "\u0003";
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int SNIPPET_WORDS_BEFORE = 6;
+    private static final int SNIPPET_WORDS = 20;
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Termes distincts d'un texte, dans l'ordre d'apparition
+     */
+    public static Set<String> terms(String text) {
+        return new LinkedHashSet<>(tokens(text));
+    }
+
+    /**
+     * Termes d'un texte avec répétitions, dans l'ordre d'apparition (fréquences pour le classement)
+     */
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            String term = term(matcher.group());
+            if (term != null) {
+                tokens.add(term);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Forme indexée d'un mot (null si trop court)
+     */
+    public static String term(String word) {
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(word, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        if (normalized.length() < MIN_TERM_LENGTH) {
+            return null;
+        }
+        return stem(normalized);
+    }
+
+    /**
+     * Racinisation légère (pluriel puis féminin) : "électriciennes" et "electricien" donnent le même terme
+     */
+    private static String stem(String word) {
+        String stem = word;
+        if (stem.length() > 5 && stem.endsWith("aux")) {
+            stem = stem.substring(0, stem.length() - 3) + "al";
+        } else if (stem.length() > 3 && (stem.endsWith("s") || stem.endsWith("x"))) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+
+        if (stem.length() > 5) {
+            if (stem.endsWith("enne")) {
+                stem = stem.substring(0, stem.length() - 2);
+            } else if (stem.endsWith("euse")) {
+                stem = stem.substring(0, stem.length() - 4) + "eur";
+            } else if (stem.endsWith("ere")) {
+                stem = stem.substring(0, stem.length() - 1);
+            } else if (stem.endsWith("ive")) {
+                stem = stem.substring(0, stem.length() - 2) + "f";
+            }
+        }
+        if (stem.length() > 4 && stem.endsWith("e")) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        return stem;
+    }
+
+    /**
+     * Extrait autour du premier terme trouvé, termes entourés des marqueurs
+     */
+    public static String snippet(String text, Set<String> queryTerms) {
+        List<int[]> words = new ArrayList<>();
+        int firstHit = -1;
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            boolean hit = queryTerms.contains(term(matcher.group()));
+            if (hit && firstHit < 0) {
+                firstHit = words.size();
+            }
+            words.add(new int[] { matcher.start(), matcher.end(), hit ? 1 : 0 });
+        }
+        if (words.isEmpty()) {
+            return text;
+        }
+
+        int from = Math.max(0, firstHit - SNIPPET_WORDS_BEFORE);
+        int to = Math.min(words.size(), from + SNIPPET_WORDS);
+        int start = from == 0 ? 0 : words.get(from)[0];
+        int end = to == words.size() ? text.length() : words.get(to - 1)[1];
+
+        StringBuilder snippet = new StringBuilder();
+        if (start > 0) {
+            snippet.append("... ");
+        }
+        int position = start;
+        for (int i = from; i < to; i++) {
+            int[] word = words.get(i);
+            if (word[2] == 1) {
+                snippet.append(text, position, word[0])
+                        .append(START_MARK).append(text, word[0], word[1]).append(STOP_MARK);
+                position = word[1];
+            }
+        }
+        snippet.append(text, position, end);
+        if (end < text.length()) {
+            snippet.append(" ...");
+        }
+        return snippet.toString();
+    }
+
+    /**
+     * Échapper un extrait puis transformer les marqueurs en balises <mark>
+     */
+    public static String toHtml(String markedSnippet) {
+        if (markedSnippet == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(markedSnippet)
+                .replace(START_MARK, "<mark>")
+                .replace(STOP_MARK, "</mark>");
+    }
+}
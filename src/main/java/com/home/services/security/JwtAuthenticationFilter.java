@@ -25,17 +25,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
+    private final StreamTicketStore streamTicketStore;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         try {
-            String token = extractTokenFromRequest(request);
-
-            if (StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)) {
-                String email = jwtTokenProvider.getEmailFromToken(token);
+            String email = authenticatedEmail(request);
 
+            if (email != null) {
                 UserDetails userDetails = userDetailsService.loadUserByUsername(email);
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -52,12 +51,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Extrait le token JWT de l'en-tête Authorization
+     * Email de l'utilisateur, d'après le token JWT de l'en-tête Authorization
+     * (ou le ticket à usage unique du paramètre ticket pour WebSocket et EventSource)
      */
-    private String extractTokenFromRequest(HttpServletRequest request) {
+    private String authenticatedEmail(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7);
+            String token = bearerToken.substring(7);
+            return jwtTokenProvider.validateToken(token) ? jwtTokenProvider.getEmailFromToken(token) : null;
+        }
+        // Les navigateurs ne peuvent pas ajouter d'en-tête à une connexion WebSocket ou EventSource
+        String uri = request.getRequestURI();
+        String ticket = request.getParameter("ticket");
+        if (StringUtils.hasText(ticket) && (uri.startsWith("/ws/") || uri.equals("/api/events/stream"))) {
+            return streamTicketStore.redeem(ticket);
         }
         return null;
     }
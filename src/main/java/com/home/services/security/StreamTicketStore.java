@@ -0,0 +1,69 @@
+package com.home.services.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tickets de connexion à usage unique pour WebSocket et EventSource
+ * Les navigateurs ne peuvent pas y ajouter l'en-tête Authorization : le ticket passe dans l'URL
+ * à la place du JWT, qui n'apparaît donc plus dans les journaux d'accès et des proxys
+ */
+@Component
+public class StreamTicketStore {
+
+    private static final int TICKET_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlMs;
+
+    // Ticket -> email de l'utilisateur et date d'expiration
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    public StreamTicketStore(@Value("${app.security.stream-ticket-ttl-ms:30000}") long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Émettre un ticket pour l'utilisateur authentifié
+     */
+    public String issue(String email) {
+        byte[] bytes = new byte[TICKET_BYTES];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(email, System.currentTimeMillis() + ttlMs));
+        return ticket;
+    }
+
+    /**
+     * Consommer un ticket : l'email de son titulaire, ou null s'il est inconnu, déjà utilisé ou expiré
+     */
+    public String redeem(String ticket) {
+        Ticket redeemed = tickets.remove(ticket);
+        if (redeemed == null || redeemed.expiresAt() < System.currentTimeMillis()) {
+            return null;
+        }
+        return redeemed.email();
+    }
+
+    /**
+     * Oublier les tickets jamais utilisés
+     */
+    @Scheduled(fixedDelayString = "${app.security.stream-ticket-ttl-ms:30000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        tickets.values().removeIf(ticket -> ticket.expiresAt() < now);
+    }
+
+    int size() {
+        return tickets.size();
+    }
+
+    private record Ticket(String email, long expiresAt) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.home.services.service;
+
+import com.home.services.event.ServiceRequestChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Recalcul périodique de service_requests.nombre_candidatures depuis la table applications
+ * (candidatures non retirées), par tranches d'ids : une transaction courte par tranche
+ * Corrige toute dérive du compteur incrémental (écritures hors application, incidents)
+ */
+@Service
+@Slf4j
+public class ApplicationCounterReconciliation {
+
+    private static final String COUNT = "(SELECT COUNT(*) FROM applications a " +
+            "WHERE a.service_request_id = sr.id AND a.statut <> 'RETIREE')";
+
+    private static final String FIND_DRIFTED = "SELECT sr.id FROM service_requests sr " +
+            "WHERE sr.id >= ? AND sr.id < ? AND COALESCE(sr.nombre_candidatures, -1) <> " + COUNT;
+
+    private static final String RECOMPUTE = "UPDATE service_requests sr SET nombre_candidatures = " + COUNT +
+            " WHERE sr.id >= ? AND sr.id < ? AND COALESCE(sr.nombre_candidatures, -1) <> " + COUNT;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int rangeSize;
+
+    public ApplicationCounterReconciliation(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.applications.reconcile.range-size:5000}") int rangeSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.rangeSize = rangeSize;
+    }
+
+    @Scheduled(cron = "${app.applications.reconcile.cron:0 45 3 * * *}")
+    public void reconcile() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM service_requests", Long.class);
+        if (maxId == null) {
+            return;
+        }
+
+        int fixed = 0;
+        for (long from = 1; from <= maxId; from += rangeSize) {
+            final long lo = from;
+            final long hi = from + rangeSize;
+            Integer count = transactionTemplate.execute(status -> {
+                List<Long> drifted = jdbcTemplate.queryForList(FIND_DRIFTED, Long.class, lo, hi);
+                if (drifted.isEmpty()) {
+                    return 0;
+                }
+                jdbcTemplate.update(RECOMPUTE, lo, hi);
+                // Les index en mémoire relisent les annonces corrigées après le commit
+                drifted.forEach(id -> eventPublisher.publishEvent(new ServiceRequestChangedEvent(id)));
+                return drifted.size();
+            });
+            fixed += count != null ? count : 0;
+        }
+        if (fixed > 0) {
+            log.warn("Compteur de candidatures corrigé pour {} annonce(s)", fixed);
+        }
+    }
+}
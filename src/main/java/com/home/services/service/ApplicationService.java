@@ -1,23 +1,42 @@
 package com.home.services.service;
 
 import com.home.services.dto.request.ApplicationDto;
+import com.home.services.dto.request.KeysetCursor;
 import com.home.services.dto.response.ApplicationResponse;
+import com.home.services.dto.response.CursorPageResponse;
+import com.home.services.dto.response.ProviderDashboardResponse;
+import com.home.services.event.ApplicationDecidedEvent;
+import com.home.services.event.ApplicationSubmittedEvent;
+import com.home.services.event.ServiceRequestChangedEvent;
+import com.home.services.exception.ConflictException;
 import com.home.services.exception.ResourceNotFoundException;
 import com.home.services.model.Application;
+import com.home.services.model.Conversation;
+import com.home.services.model.ProviderProfile;
 import com.home.services.model.ServiceRequest;
 import com.home.services.model.User;
 import com.home.services.model.enums.ApplicationStatus;
 import com.home.services.model.enums.RequestStatus;
 import com.home.services.model.enums.Role;
+import com.home.services.ranking.ApplicationCandidate;
+import com.home.services.ranking.ApplicationRanker;
+import com.home.services.ranking.RankingProfile;
 import com.home.services.repository.ApplicationRepository;
+import com.home.services.repository.ConversationRepository;
 import com.home.services.repository.ServiceRequestRepository;
 import com.home.services.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -27,10 +46,17 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ApplicationService {
 
+    private static final int MAX_RANKED = 100;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 50;
+
     private final ApplicationRepository applicationRepository;
     private final ServiceRequestRepository serviceRequestRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final ConversationRepository conversationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ApplicationRanker applicationRanker;
 
     /**
      * Postuler à une annonce
@@ -45,19 +71,15 @@ public class ApplicationService {
             throw new RuntimeException("Seuls les prestataires peuvent postuler");
         }
 
-        ServiceRequest request = serviceRequestRepository.findById(dto.getServiceRequestId())
+        ServiceRequest request = serviceRequestRepository.findWithDetailsById(dto.getServiceRequestId())
                 .orElseThrow(() -> new ResourceNotFoundException("Annonce", "id", dto.getServiceRequestId()));
 
-        // Vérifier que l'annonce est publiée
-        if (request.getStatut() != RequestStatus.PUBLIEE) {
+        // Vérifier que l'annonce est publiée (et pas encore expirée, le passage en EXPIREE étant périodique)
+        if (request.getStatut() != RequestStatus.PUBLIEE
+                || (request.getExpiresAt() != null && request.getExpiresAt().isBefore(LocalDateTime.now()))) {
             throw new RuntimeException("Cette annonce n'accepte plus de candidatures");
         }
 
-        // Vérifier que le prestataire n'a pas déjà postulé
-        if (applicationRepository.existsByServiceRequestIdAndProviderId(request.getId(), provider.getId())) {
-            throw new RuntimeException("Vous avez déjà postulé à cette annonce");
-        }
-
         Application application = Application.builder()
                 .serviceRequest(request)
                 .provider(provider)
@@ -67,11 +89,18 @@ public class ApplicationService {
                 .statut(ApplicationStatus.EN_ATTENTE)
                 .build();
 
-        application = applicationRepository.save(application);
+        // Le doublon est détecté par la contrainte unique (service_request_id, provider_id)
+        try {
+            application = applicationRepository.saveAndFlush(application);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Vous avez déjà postulé à cette annonce");
+        }
 
-        // Incrémenter le compteur de candidatures
-        request.setNombreCandidatures(request.getNombreCandidatures() + 1);
-        serviceRequestRepository.save(request);
+        // Incrément atomique ; échoue si l'annonce a été pourvue ou a expiré entre-temps
+        if (serviceRequestRepository.incrementCandidatures(request.getId()) == 0) {
+            throw new RuntimeException("Cette annonce n'accepte plus de candidatures");
+        }
+        eventPublisher.publishEvent(new ServiceRequestChangedEvent(request.getId()));
 
         // Envoyer une notification par mail au client
         emailService.sendNewApplicationNotification(
@@ -80,6 +109,10 @@ public class ApplicationService {
                 request.getTitre(),
                 provider.getNom());
 
+        // Notification temps réel du client
+        eventPublisher.publishEvent(new ApplicationSubmittedEvent(application.getId(), request.getId(),
+                request.getTitre(), request.getClient().getId(), provider.getId(), provider.getNom()));
+
         return toResponse(application, false);
     }
 
@@ -95,25 +128,25 @@ public class ApplicationService {
             throw new RuntimeException("Vous n'êtes pas autorisé à retirer cette candidature");
         }
 
-        if (application.getStatut() != ApplicationStatus.EN_ATTENTE) {
+        // Changement de statut conditionnel : un retrait concurrent ou une réponse du client l'emporte
+        if (applicationRepository.withdrawIfPending(applicationId) == 0) {
             throw new RuntimeException("Cette candidature ne peut plus être retirée");
         }
 
-        application.setStatut(ApplicationStatus.RETIREE);
-        applicationRepository.save(application);
-
-        // Décrémenter le compteur
-        ServiceRequest request = application.getServiceRequest();
-        request.setNombreCandidatures(Math.max(0, request.getNombreCandidatures() - 1));
-        serviceRequestRepository.save(request);
+        // Les candidatures retirées ne comptent plus (un refus ne change pas le compteur)
+        Long serviceRequestId = application.getServiceRequest().getId();
+        serviceRequestRepository.decrementCandidatures(serviceRequestId);
+        eventPublisher.publishEvent(new ServiceRequestChangedEvent(serviceRequestId));
     }
 
     /**
      * Accepter une candidature (Client)
+     * Nombre d'instructions fixe quel que soit le nombre de candidats : attribution conditionnelle
+     * de l'annonce, acceptation conditionnelle, puis refus groupé des autres candidatures en attente
      */
     @Transactional
     public ApplicationResponse accept(Long applicationId, String clientEmail) {
-        Application application = applicationRepository.findById(applicationId)
+        Application application = applicationRepository.findWithDetailsById(applicationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Candidature", "id", applicationId));
 
         ServiceRequest request = application.getServiceRequest();
@@ -123,32 +156,48 @@ public class ApplicationService {
         }
 
         if (application.getStatut() != ApplicationStatus.EN_ATTENTE) {
-            throw new RuntimeException("Cette candidature a déjà été traitée");
+            throw new ConflictException("Cette candidature a déjà été traitée");
         }
 
-        // Accepter cette candidature
-        application.setStatut(ApplicationStatus.ACCEPTEE);
-        application.setRespondedAt(LocalDateTime.now());
-        applicationRepository.save(application);
+        LocalDateTime now = LocalDateTime.now();
 
-        // Mettre à jour l'annonce
-        request.setStatut(RequestStatus.EN_COURS);
-        request.setSelectedProvider(application.getProvider());
-        serviceRequestRepository.save(request);
+        // Verrouille la ligne de l'annonce : de deux acceptations concurrentes, seule la première aboutit
+        if (serviceRequestRepository.assignIfPublished(request.getId(), application.getProvider(), now) == 0) {
+            throw new ConflictException("Un prestataire a déjà été sélectionné pour cette annonce");
+        }
+        // Un retrait ou un refus concurrent annule l'attribution (rollback)
+        if (applicationRepository.acceptIfPending(applicationId, now) == 0) {
+            throw new ConflictException("Cette candidature a déjà été traitée");
+        }
 
         // Refuser automatiquement les autres candidatures en attente
-        List<Application> otherApplications = applicationRepository
-                .findByServiceRequestIdAndStatut(request.getId(), ApplicationStatus.EN_ATTENTE);
-        for (Application other : otherApplications) {
+        List<ApplicationRepository.PendingApplication> others = applicationRepository
+                .findPendingByServiceRequestId(request.getId());
+        applicationRepository.rejectOtherPending(request.getId(), applicationId,
+                "Un autre prestataire a été sélectionné", now);
+
+        // Ouvrir la conversation entre le client et le prestataire
+        conversationRepository.save(Conversation.builder()
+                .application(application)
+                .client(request.getClient())
+                .provider(application.getProvider())
+                .requestTitre(request.getTitre())
+                .lastMessageAt(now)
+                .build());
+
+        eventPublisher.publishEvent(new ServiceRequestChangedEvent(request.getId()));
+        for (ApplicationRepository.PendingApplication other : others) {
             if (!other.getId().equals(applicationId)) {
-                other.setStatut(ApplicationStatus.REFUSEE);
-                other.setClientResponse("Un autre prestataire a été sélectionné");
-                other.setRespondedAt(LocalDateTime.now());
-                applicationRepository.save(other);
+                publishDecision(other.getId(), request, other.getProviderId(), ApplicationStatus.REFUSEE);
             }
         }
+        publishDecision(applicationId, request, application.getProvider().getId(), ApplicationStatus.ACCEPTEE);
 
-        return toResponse(application, true);
+        // Les mises à jour groupées ne touchent pas l'entité chargée : la réponse reflète l'état en base
+        ApplicationResponse response = toResponse(application, true);
+        response.setStatut(ApplicationStatus.ACCEPTEE);
+        response.setRespondedAt(now);
+        return response;
     }
 
     /**
@@ -166,15 +215,23 @@ public class ApplicationService {
         }
 
         if (application.getStatut() != ApplicationStatus.EN_ATTENTE) {
-            throw new RuntimeException("Cette candidature a déjà été traitée");
+            throw new ConflictException("Cette candidature a déjà été traitée");
         }
 
-        application.setStatut(ApplicationStatus.REFUSEE);
-        application.setClientResponse(reason);
-        application.setRespondedAt(LocalDateTime.now());
-        applicationRepository.save(application);
+        LocalDateTime now = LocalDateTime.now();
+        // Une acceptation ou un retrait concurrent n'est jamais écrasé
+        if (applicationRepository.rejectIfPending(applicationId, reason, now) == 0) {
+            throw new ConflictException("Cette candidature a déjà été traitée");
+        }
 
-        return toResponse(application, false);
+        publishDecision(applicationId, request, application.getProvider().getId(), ApplicationStatus.REFUSEE);
+
+        // La mise à jour conditionnelle ne touche pas l'entité chargée : la réponse reflète l'état en base
+        ApplicationResponse response = toResponse(application, false);
+        response.setStatut(ApplicationStatus.REFUSEE);
+        response.setClientResponse(reason);
+        response.setRespondedAt(now);
+        return response;
     }
 
     /**
@@ -190,6 +247,95 @@ public class ApplicationService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Tableau de bord prestataire : décomptes par statut (une requête d'agrégat), état du profil
+     * et première page des candidatures récentes, quel que soit l'historique du prestataire
+     */
+    @Transactional(readOnly = true)
+    public ProviderDashboardResponse getProviderDashboard(String providerEmail, Integer limit) {
+        User provider = userRepository.findByEmail(providerEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "email", providerEmail));
+
+        Map<ApplicationStatus, Long> counts = new EnumMap<>(ApplicationStatus.class);
+        for (ApplicationStatus statut : ApplicationStatus.values()) {
+            counts.put(statut, 0L);
+        }
+        long total = 0;
+        for (ApplicationRepository.StatusCount count : applicationRepository
+                .countByProviderIdGroupByStatut(provider.getId())) {
+            counts.put(count.getStatut(), count.getTotal());
+            total += count.getTotal();
+        }
+
+        ProviderProfile profile = provider.getProviderProfile();
+        return ProviderDashboardResponse.builder()
+                .applicationsByStatut(counts)
+                .totalApplications(total)
+                .profileStatut(profile != null ? profile.getStatut() : null)
+                .verified(provider.getVerified())
+                .noteGlobale(profile != null ? profile.getNoteGlobale() : null)
+                .nombreAvis(profile != null ? profile.getNombreAvis() : null)
+                .recentApplications(recentPage(provider, null, null, limit))
+                .build();
+    }
+
+    /**
+     * Candidatures d'un prestataire, plus récentes d'abord, paginées par clé (created_at, id)
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ApplicationResponse> getProviderApplications(String providerEmail,
+            ApplicationStatus statut, String cursor, Integer limit) {
+        User provider = userRepository.findByEmail(providerEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "email", providerEmail));
+
+        return recentPage(provider, statut, KeysetCursor.decode(cursor), limit);
+    }
+
+    private CursorPageResponse<ApplicationResponse> recentPage(User provider, ApplicationStatus statut,
+            KeysetCursor before, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Un élément de plus pour savoir s'il reste des candidatures
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<ApplicationRepository.ProviderApplicationRow> rows = before != null
+                ? applicationRepository.findRecentByProviderIdBefore(provider.getId(), statut,
+                        before.getCreatedAt(), before.getId(), pageable)
+                : applicationRepository.findRecentByProviderId(provider.getId(), statut, pageable);
+        boolean hasMore = rows.size() > pageSize;
+        rows = rows.subList(0, Math.min(pageSize, rows.size()));
+
+        // Le prestataire est le même pour toutes les lignes : lu une seule fois
+        ProviderProfile profile = provider.getProviderProfile();
+        Double rating = profile != null ? profile.getNoteGlobale() : null;
+        List<ApplicationResponse> items = rows.stream()
+                .map(row -> ApplicationResponse.builder()
+                        .id(row.getId())
+                        .serviceRequestId(row.getServiceRequestId())
+                        .serviceRequestTitre(row.getServiceRequestTitre())
+                        .serviceRequestQuartier(row.getServiceRequestQuartier())
+                        .providerId(provider.getId())
+                        .providerNom(provider.getNom())
+                        .providerTelephone(
+                                row.getStatut() == ApplicationStatus.ACCEPTEE ? provider.getTelephone() : null)
+                        .providerNote(rating)
+                        .message(row.getMessage())
+                        .proposedPrice(row.getProposedPrice())
+                        .proposedDays(row.getProposedDays())
+                        .statut(row.getStatut())
+                        .clientResponse(row.getClientResponse())
+                        .createdAt(row.getCreatedAt())
+                        .respondedAt(row.getRespondedAt())
+                        .build())
+                .collect(Collectors.toList());
+
+        ApplicationRepository.ProviderApplicationRow last = hasMore ? rows.get(rows.size() - 1) : null;
+        return CursorPageResponse.<ApplicationResponse>builder()
+                .items(items)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? KeysetCursor.of(last.getCreatedAt(), last.getId()).encode() : null)
+                .build();
+    }
+
     /**
      * Lister les candidatures pour une annonce (Client)
      */
@@ -207,14 +353,68 @@ public class ApplicationService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Candidatures en attente pour une annonce, classées selon un profil de pondération (Client)
+     * Notées en un passage sur une projection jointe ; seules les {@code limit} meilleures sont triées
+     */
+    @Transactional(readOnly = true)
+    public List<ApplicationResponse> getRankedByServiceRequest(Long serviceRequestId, String clientEmail,
+            RankingProfile profile, Integer limit) {
+        ServiceRequest request = serviceRequestRepository.findById(serviceRequestId)
+                .orElseThrow(() -> new ResourceNotFoundException("Annonce", "id", serviceRequestId));
+
+        if (!request.getClient().getEmail().equals(clientEmail)) {
+            throw new RuntimeException("Vous n'êtes pas autorisé à voir ces candidatures");
+        }
+
+        List<ApplicationCandidate> candidates = applicationRepository
+                .findCandidatesByServiceRequestId(serviceRequestId);
+        // Sans limite demandée, K vaut MAX_RANKED : le tas reste borné quel que soit le nombre de candidatures
+        int k = limit == null ? MAX_RANKED : Math.max(1, Math.min(limit, MAX_RANKED));
+        return applicationRanker.top(candidates, profile, k).stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Notifier le prestataire de la décision du client
+     */
+    private void publishDecision(Long applicationId, ServiceRequest request, Long providerId,
+            ApplicationStatus statut) {
+        eventPublisher.publishEvent(new ApplicationDecidedEvent(applicationId, request.getId(),
+                request.getTitre(), providerId, statut));
+    }
+
+    private ApplicationResponse toResponse(ApplicationRanker.RankedApplication ranked) {
+        ApplicationCandidate candidate = ranked.candidate();
+        return ApplicationResponse.builder()
+                .id(candidate.id())
+                .serviceRequestId(candidate.serviceRequestId())
+                .serviceRequestTitre(candidate.serviceRequestTitre())
+                .serviceRequestQuartier(candidate.serviceRequestQuartier())
+                .providerId(candidate.providerId())
+                .providerNom(candidate.providerNom())
+                .providerNote(candidate.noteGlobale())
+                .providerNombreAvis(candidate.nombreAvis())
+                .message(candidate.message())
+                .proposedPrice(candidate.proposedPrice())
+                .proposedDays(candidate.proposedDays())
+                .statut(candidate.statut())
+                .createdAt(candidate.createdAt())
+                .score(ranked.score())
+                .build();
+    }
+
     /**
      * Convertir en DTO de réponse
      */
     private ApplicationResponse toResponse(Application application, boolean showContact) {
         User provider = application.getProvider();
         Double rating = null;
+        Integer reviews = null;
         if (provider.getProviderProfile() != null) {
             rating = provider.getProviderProfile().getNoteGlobale();
+            reviews = provider.getProviderProfile().getNombreAvis();
         }
 
         return ApplicationResponse.builder()
@@ -226,6 +426,7 @@ public class ApplicationService {
                 .providerNom(provider.getNom())
                 .providerTelephone(showContact ? provider.getTelephone() : null)
                 .providerNote(rating)
+                .providerNombreAvis(reviews)
                 .message(application.getMessage())
                 .proposedPrice(application.getProposedPrice())
                 .proposedDays(application.getProposedDays())
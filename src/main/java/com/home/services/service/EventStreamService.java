@@ -0,0 +1,290 @@
+package com.home.services.service;
+
+import com.home.services.exception.ResourceNotFoundException;
+import com.home.services.model.User;
+import com.home.services.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flux Server-Sent Events par utilisateur
+ * Chaque connexion dispose d'un tampon borné ; les derniers événements de
+ * chaque utilisateur sont conservés pour la reprise via Last-Event-ID
+ * Les ids ont la forme « époque-numéro » : l'époque change à chaque démarrage, un id d'un démarrage
+ * précédent déclenche donc RESYNC au lieu d'être comparé à des numéros sans rapport
+ */
+@Service
+@Slf4j
+public class EventStreamService {
+
+    private static final String RESYNC_EVENT = "RESYNC";
+    private static final char ID_SEPARATOR = '-';
+
+    private final UserRepository userRepository;
+    private final long emitterTimeoutMs;
+    private final int connectionBufferSize;
+    private final int replayBufferSize;
+    private final long replayRetentionMs;
+
+    // Époque propre à ce démarrage, préfixe de tous les ids d'événements
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Set<Connection>> connectionsByUser = new ConcurrentHashMap<>();
+    private final Map<Long, History> historyByUser = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher;
+
+    public EventStreamService(
+            UserRepository userRepository,
+            @Value("${app.events.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${app.events.connection-buffer-size:256}") int connectionBufferSize,
+            @Value("${app.events.replay-buffer-size:100}") int replayBufferSize,
+            @Value("${app.events.replay-retention-ms:300000}") long replayRetentionMs,
+            @Value("${app.events.dispatcher-threads:4}") int dispatcherThreads) {
+        this.userRepository = userRepository;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.connectionBufferSize = connectionBufferSize;
+        this.replayBufferSize = replayBufferSize;
+        this.replayRetentionMs = replayRetentionMs;
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads);
+    }
+
+    /**
+     * Ouvrir un flux pour l'utilisateur, en rejouant les événements manqués
+     */
+    public SseEmitter subscribe(String userEmail, String lastEventId) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "email", userEmail));
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Connection connection = new Connection(user.getId(), emitter);
+        emitter.onCompletion(connection::close);
+        emitter.onTimeout(connection::close);
+        emitter.onError(e -> connection.close());
+
+        History history = historyByUser.computeIfAbsent(user.getId(), id -> new History(sequence.get()));
+        synchronized (history) {
+            history.lastSeenAt = System.currentTimeMillis();
+            historyByUser.putIfAbsent(user.getId(), history);
+            connectionsByUser.computeIfAbsent(user.getId(), id -> ConcurrentHashMap.newKeySet()).add(connection);
+            connection.offer(SseEmitter.event().reconnectTime(3000).comment("connected"));
+            replay(history, connection, lastEventId);
+        }
+        return emitter;
+    }
+
+    /**
+     * Publier un événement typé vers un utilisateur
+     * Ignoré si l'utilisateur n'a pas de flux ouvert ou récemment fermé
+     */
+    public void publish(Long userId, String type, Object data) {
+        History history = historyByUser.get(userId);
+        if (history == null) {
+            return;
+        }
+        synchronized (history) {
+            StreamEvent event = new StreamEvent(sequence.incrementAndGet(), type, data);
+            history.events.addLast(event);
+            if (history.events.size() > replayBufferSize) {
+                history.floor = history.events.removeFirst().id();
+            }
+            Set<Connection> connections = connectionsByUser.get(userId);
+            if (connections != null) {
+                connections.forEach(c -> c.offer(event.toSse(epoch)));
+            }
+        }
+    }
+
+    /**
+     * L'utilisateur a-t-il un flux ouvert (ou reprenable) ?
+     */
+    public boolean isListening(Long userId) {
+        return historyByUser.containsKey(userId);
+    }
+
+    public boolean hasListeners() {
+        return !historyByUser.isEmpty();
+    }
+
+    /**
+     * Heartbeat pour garder les connexions ouvertes derrière les proxys,
+     * et purge des historiques des utilisateurs déconnectés
+     */
+    @Scheduled(fixedRateString = "${app.events.heartbeat-ms:20000}")
+    public void heartbeat() {
+        connectionsByUser.values().forEach(connections -> connections
+                .forEach(c -> c.offer(SseEmitter.event().comment("heartbeat"))));
+
+        long expiredBefore = System.currentTimeMillis() - replayRetentionMs;
+        historyByUser.forEach((userId, history) -> {
+            synchronized (history) {
+                Set<Connection> connections = connectionsByUser.get(userId);
+                if ((connections == null || connections.isEmpty()) && history.lastSeenAt < expiredBefore) {
+                    historyByUser.remove(userId);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    private void replay(History history, Connection connection, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return;
+        }
+        Long lastId = parseEventId(lastEventId);
+        // Id d'un autre démarrage, ou antérieur aux événements conservés : le client doit recharger ses données
+        if (lastId == null || lastId < history.floor || lastId > sequence.get()) {
+            StreamEvent newest = history.events.peekLast();
+            connection.offer(SseEmitter.event()
+                    .id(formatEventId(epoch, newest != null ? newest.id() : history.floor))
+                    .name(RESYNC_EVENT)
+                    .data(Map.of("reason", lastId == null ? "restarted" : "history-expired"),
+                            MediaType.APPLICATION_JSON));
+            return;
+        }
+        history.events.stream()
+                .filter(e -> e.id() > lastId)
+                .forEach(e -> connection.offer(e.toSse(epoch)));
+    }
+
+    /**
+     * Numéro d'un id reçu via Last-Event-ID, null s'il n'a pas été émis par ce démarrage
+     */
+    private Long parseEventId(String lastEventId) {
+        String value = lastEventId.trim();
+        int separator = value.lastIndexOf(ID_SEPARATOR);
+        if (separator < 0 || !value.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String formatEventId(String epoch, long id) {
+        return epoch + ID_SEPARATOR + id;
+    }
+
+    private void unregister(Connection connection) {
+        Long userId = connection.userId;
+        History history = historyByUser.get(userId);
+        if (history != null) {
+            history.lastSeenAt = System.currentTimeMillis();
+        }
+        connectionsByUser.computeIfPresent(userId, (id, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    /**
+     * Derniers événements d'un utilisateur (reprise après reconnexion)
+     * Les ids sont globaux : seul le plancher propre à l'utilisateur dit si des événements ont été perdus.
+     * Tout événement de cet utilisateur d'id supérieur au plancher est conservé ; à la création, le plancher
+     * est le numéro courant (les événements antérieurs ont été ignorés faute d'historique)
+     */
+    private static final class History {
+        private final Deque<StreamEvent> events = new ArrayDeque<>();
+        private long floor;
+        private volatile long lastSeenAt = System.currentTimeMillis();
+
+        private History(long floor) {
+            this.floor = floor;
+        }
+    }
+
+    private record StreamEvent(long id, String type, Object data) {
+
+        SseEmitter.SseEventBuilder toSse(String epoch) {
+            return SseEmitter.event()
+                    .id(formatEventId(epoch, id))
+                    .name(type)
+                    .data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * Connexion SSE avec tampon d'envoi borné
+     * Un client trop lent est déconnecté et reprendra via Last-Event-ID
+     */
+    private final class Connection {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(connectionBufferSize);
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                log.debug("Tampon SSE plein pour l'utilisateur {}, connexion fermée", userId);
+                close();
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = buffer.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (Exception e) {
+                close();
+            } finally {
+                draining.set(false);
+                if (!closed && !buffer.isEmpty()) {
+                    scheduleDrain();
+                }
+            }
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                buffer.clear();
+                unregister(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.home.services.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ensemble de clés à durée de vie, expirées par une roue temporelle
+ * Rafraîchissement, retrait et expiration d'une clé sont atomiques (verrou de case de la table, par clé) ;
+ * une clé rafraîchie n'est replacée dans la roue que lorsque son ancienne case est traitée
+ */
+class ExpiringKeySet<K> {
+
+    private final long ttlMs;
+    private final long tickMs;
+    private final int maxKeys;
+    private final Queue<Entry<K>>[] wheel;
+    private final ConcurrentHashMap<K, Entry<K>> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private long processedTick;
+
+    @SuppressWarnings("unchecked")
+    ExpiringKeySet(long ttlMs, long tickMs, int maxKeys) {
+        this.ttlMs = ttlMs;
+        this.tickMs = tickMs;
+        this.maxKeys = maxKeys;
+        this.wheel = new Queue[(int) (ttlMs / tickMs) + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.processedTick = System.currentTimeMillis() / tickMs;
+    }
+
+    /**
+     * Marquer la clé comme active jusqu'à maintenant + TTL
+     *
+     * @return false si la capacité est atteinte : la nouvelle clé n'est pas retenue (comptée dans dropped())
+     */
+    boolean touch(K key) {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        Entry<K> entry = entries.compute(key, (k, current) -> {
+            if (current == null) {
+                if (size.incrementAndGet() > maxKeys) {
+                    size.decrementAndGet();
+                    return null;
+                }
+                current = new Entry<>(k);
+            }
+            current.expiresAt = expiresAt;
+            return current;
+        });
+        if (entry == null) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (entry.scheduled.compareAndSet(false, true)) {
+            schedule(entry);
+        }
+        return true;
+    }
+
+    /**
+     * Retirer la clé immédiatement ; son entrée restée dans la roue sera ignorée à son passage
+     */
+    void remove(K key) {
+        if (entries.remove(key) != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    boolean contains(K key) {
+        Entry<K> entry = entries.get(key);
+        return entry != null && entry.expiresAt > System.currentTimeMillis();
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Nombre de nouvelles clés refusées faute de place depuis la création
+     */
+    long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Traiter les cases échues depuis le dernier passage (un seul appelant à la fois)
+     */
+    synchronized void advance() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / tickMs;
+        // Au plus un tour complet : au-delà, les mêmes cases seraient traitées deux fois
+        long fromTick = Math.max(processedTick + 1, currentTick - wheel.length + 1);
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            Queue<Entry<K>> slot = wheel[(int) (tick % wheel.length)];
+            int pending = slot.size();
+            for (int i = 0; i < pending; i++) {
+                Entry<K> entry = slot.poll();
+                if (entry == null) {
+                    break;
+                }
+                // Vérification et retrait atomiques : un rafraîchissement concurrent garde la clé
+                boolean[] expired = new boolean[1];
+                Entry<K> current = entries.computeIfPresent(entry.key, (k, e) -> {
+                    if (e == entry && e.expiresAt <= now) {
+                        expired[0] = true;
+                        return null;
+                    }
+                    return e;
+                });
+                if (expired[0]) {
+                    size.decrementAndGet();
+                } else if (current != entry) {
+                    // Clé retirée (ou recréée avec sa propre entrée) : cette entrée n'est plus suivie
+                    continue;
+                } else if (entry.expiresAt / tickMs <= tick) {
+                    // Échéance dans la case courante : repasser au prochain tour
+                    wheel[(int) ((tick + 1) % wheel.length)].offer(entry);
+                } else {
+                    schedule(entry);
+                }
+            }
+        }
+        processedTick = currentTick;
+    }
+
+    private void schedule(Entry<K> entry) {
+        long tick = entry.expiresAt / tickMs;
+        wheel[(int) (tick % wheel.length)].offer(entry);
+    }
+
+    private static class Entry<K> {
+        private final K key;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long expiresAt;
+
+        private Entry(K key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.home.services.service;
+
+import com.home.services.dto.response.MessageResponse;
+import com.home.services.event.MessageSentEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Écriture groupée des messages
+ * Les envois concurrents sont regroupés en un insert JDBC par lot (un aller-retour),
+ * chaque appelant reçoit son message avec l'id attribué une fois le lot validé
+ * Les MessageSentEvent sont publiés ensuite, dans l'ordre des ids, par un fil dédié : le coût des écouteurs
+ * (WebSocket, notifications, caches, index) ne s'ajoute ni à la latence d'envoi ni au lot suivant
+ */
+@Service
+@Slf4j
+public class MessageBatchWriter {
+
+    private static final String INSERT_MESSAGE = "INSERT INTO messages (application_id, sender_id, content, is_read, " +
+            "created_at) VALUES (?, ?, ?, FALSE, ?)";
+
+    // Le résumé ne recule jamais : un lot validé après un lot d'ids supérieurs ne compte que ses non lus
+    private static final String IS_LATEST = "CASE WHEN last_message_id IS NULL OR last_message_id < ? ";
+
+    private static final String UPDATE_CONVERSATION = "UPDATE conversations SET " +
+            "last_message_sender_id = " + IS_LATEST + "THEN ? ELSE last_message_sender_id END, " +
+            "last_message_preview = " + IS_LATEST + "THEN ? ELSE last_message_preview END, " +
+            "last_message_at = " + IS_LATEST + "THEN ? ELSE last_message_at END, " +
+            "last_message_id = " + IS_LATEST + "THEN ? ELSE last_message_id END, " +
+            "updated_at = ?, " +
+            "client_unread_count = client_unread_count + ?, provider_unread_count = provider_unread_count + ? " +
+            "WHERE application_id = ?";
+
+    private static final int PREVIEW_LENGTH = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingMessage> queue;
+
+    // Un seul fil : les événements sont diffusés dans l'ordre des lots ; file pleine : le fil d'écriture
+    // publie lui-même (ralentit les lots plutôt que de perdre des événements)
+    private final ExecutorService eventDispatcher;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public MessageBatchWriter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.messages.batch.max-size:100}") int maxBatchSize,
+            @Value("${app.messages.batch.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.messages.batch.event-queue-capacity:10000}") int eventQueueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.eventDispatcher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(eventQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "message-event-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = new Thread(this::run, "message-batch-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(5000);
+        }
+        PendingMessage pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new RuntimeException("Service de messagerie arrêté"));
+        }
+        eventDispatcher.shutdown();
+        eventDispatcher.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Mettre un message en file d'écriture
+     */
+    public CompletableFuture<MessageResponse> submit(Long applicationId, Long senderId, String senderNom,
+            Long clientId, Long providerId, String content) {
+        PendingMessage pending = new PendingMessage(applicationId, senderId, senderNom, clientId, providerId,
+                content, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            throw new RuntimeException("La messagerie est momentanément surchargée, veuillez réessayer");
+        }
+        return pending.result();
+    }
+
+    private void run() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingMessage first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Tout ce qui s'est accumulé pendant le lot précédent part dans le même lot
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Erreur inattendue de l'écriture groupée des messages", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingMessage> batch) {
+        List<MessageResponse> responses;
+        try {
+            responses = transactionTemplate.execute(status -> insert(batch));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // Rejouer message par message pour n'échouer que l'envoi fautif
+            log.warn("Échec d'un lot de {} messages, nouvelle tentative unitaire", batch.size(), e);
+            for (PendingMessage pending : batch) {
+                write(List.of(pending));
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(responses.get(i));
+        }
+
+        // Diffusion après le commit et après la réponse aux appelants
+        List<MessageSentEvent> events = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMessage pending = batch.get(i);
+            events.add(new MessageSentEvent(responses.get(i), pending.clientId(), pending.providerId()));
+        }
+        eventDispatcher.execute(() -> publish(events));
+    }
+
+    private void publish(List<MessageSentEvent> events) {
+        for (MessageSentEvent event : events) {
+            try {
+                eventPublisher.publishEvent(event);
+            } catch (RuntimeException e) {
+                log.error("Diffusion du message {} en échec", event.getMessage().getId(), e);
+            }
+        }
+    }
+
+    private List<MessageResponse> insert(List<PendingMessage> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_MESSAGE, new String[] { "id" })) {
+                for (PendingMessage pending : batch) {
+                    ps.setLong(1, pending.applicationId());
+                    ps.setLong(2, pending.senderId());
+                    ps.setString(3, pending.content());
+                    ps.setObject(4, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> generated = new ArrayList<>(batch.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        generated.add(keys.getLong(1));
+                    }
+                }
+                return generated;
+            }
+        });
+        if (ids == null || ids.size() != batch.size()) {
+            throw new IllegalStateException("Ids générés incomplets pour le lot de messages");
+        }
+
+        // Un seul update de résumé par conversation du lot
+        Map<Long, ConversationDelta> deltas = new LinkedHashMap<>();
+        List<MessageResponse> responses = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMessage pending = batch.get(i);
+            MessageResponse response = MessageResponse.builder()
+                    .id(ids.get(i))
+                    .applicationId(pending.applicationId())
+                    .senderId(pending.senderId())
+                    .senderNom(pending.senderNom())
+                    .isOwnMessage(true)
+                    .content(pending.content())
+                    .isRead(false)
+                    .createdAt(now)
+                    .build();
+            responses.add(response);
+
+            ConversationDelta delta = deltas.computeIfAbsent(pending.applicationId(), id -> new ConversationDelta());
+            delta.last = response;
+            if (pending.senderId().equals(pending.clientId())) {
+                delta.providerUnread++;
+            } else {
+                delta.clientUnread++;
+            }
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_CONVERSATION, deltas.entrySet().stream()
+                .map(e -> new Object[] {
+                        e.getValue().last.getId(), e.getValue().last.getSenderId(),
+                        e.getValue().last.getId(), truncate(e.getValue().last.getContent()),
+                        e.getValue().last.getId(), now,
+                        e.getValue().last.getId(), e.getValue().last.getId(),
+                        now,
+                        e.getValue().clientUnread,
+                        e.getValue().providerUnread,
+                        e.getKey() })
+                .toList());
+        return responses;
+    }
+
+    private String truncate(String text) {
+        if (text == null || text.length() <= PREVIEW_LENGTH) {
+            return text;
+        }
+        return text.substring(0, PREVIEW_LENGTH) + "...";
+    }
+
+    private static class ConversationDelta {
+        private MessageResponse last;
+        private int clientUnread;
+        private int providerUnread;
+    }
+
+    private record PendingMessage(Long applicationId, Long senderId, String senderNom, Long clientId,
+            Long providerId, String content, CompletableFuture<MessageResponse> result) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.home.services.service;
+
+import com.home.services.dto.response.MessageResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Déduplication des envois de messages par clé d'idempotence fournie par le client
+ * Un double envoi (double Entrée, nouvelle tentative réseau) renvoie le même message
+ */
+@Service
+public class MessageIdempotencyStore {
+
+    private final long ttlMs;
+
+    // Clé : expéditeur + clé client ; valeur : envoi en cours ou terminé
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public MessageIdempotencyStore(@Value("${app.messages.idempotency-ttl-ms:300000}") long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Exécuter l'envoi une seule fois par clé ; les appels concurrents partagent le même résultat
+     * Un envoi en échec libère la clé pour permettre une nouvelle tentative
+     */
+    public CompletableFuture<MessageResponse> submitOnce(Long senderId, String clientMessageId,
+            Supplier<CompletableFuture<MessageResponse>> send) {
+        String key = senderId + ":" + clientMessageId;
+        long now = System.currentTimeMillis();
+        CompletableFuture<MessageResponse> candidate = new CompletableFuture<>();
+        Entry entry = entries.compute(key, (k, existing) ->
+                existing != null && existing.expiresAt() > now ? existing : new Entry(candidate, now + ttlMs));
+
+        if (entry.result() != candidate) {
+            return entry.result();
+        }
+
+        try {
+            send.get().whenComplete((response, error) -> {
+                if (error != null) {
+                    entries.remove(key, entry);
+                    candidate.completeExceptionally(error);
+                } else {
+                    candidate.complete(response);
+                }
+            });
+        } catch (RuntimeException e) {
+            entries.remove(key, entry);
+            candidate.completeExceptionally(e);
+        }
+        return candidate;
+    }
+
+    /**
+     * Purger les clés expirées
+     */
+    @Scheduled(fixedDelayString = "${app.messages.idempotency-purge-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+    }
+
+    private record Entry(CompletableFuture<MessageResponse> result, long expiresAt) {
+    }
+}
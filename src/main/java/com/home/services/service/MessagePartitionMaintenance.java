@@ -0,0 +1,119 @@
+package com.home.services.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintenance des partitions mensuelles de la table messages (PostgreSQL uniquement)
+ * Crée les partitions des prochains mois et détache ou supprime celles hors rétention
+ */
+@Service
+@Slf4j
+public class MessagePartitionMaintenance {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("messages_y(\\d{4})m(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final String retentionMode;
+
+    public MessagePartitionMaintenance(
+            JdbcTemplate jdbcTemplate,
+            @Value("${spring.datasource.url:}") String datasourceUrl,
+            @Value("${app.messages.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${app.messages.partitions.retention-months:0}") int retentionMonths,
+            @Value("${app.messages.partitions.retention-mode:detach}") String retentionMode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgres = DatabaseDriver.fromJdbcUrl(datasourceUrl) == DatabaseDriver.POSTGRESQL;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.retentionMode = retentionMode.toLowerCase(Locale.ROOT);
+        if (!List.of("detach", "drop").contains(this.retentionMode)) {
+            throw new IllegalArgumentException("app.messages.partitions.retention-mode doit valoir detach ou drop");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    /**
+     * Passage quotidien : partitions futures puis rétention (0 mois = conservation illimitée)
+     */
+    @Scheduled(cron = "${app.messages.partitions.cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!postgres || !isPartitioned()) {
+            return;
+        }
+
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(retentionMonths);
+            for (String partition : listPartitions()) {
+                Matcher matcher = PARTITION_NAME.matcher(partition);
+                if (matcher.matches() && YearMonth.of(Integer.parseInt(matcher.group(1)),
+                        Integer.parseInt(matcher.group(2))).isBefore(oldestKept)) {
+                    expire(partition);
+                }
+            }
+        }
+    }
+
+    private boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt " +
+                "JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = 'messages' " +
+                "AND pg_table_is_visible(c.oid))", Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList("SELECT child.relname FROM pg_inherits i " +
+                "JOIN pg_class parent ON parent.oid = i.inhparent " +
+                "JOIN pg_class child ON child.oid = i.inhrelid " +
+                "WHERE parent.relname = 'messages' AND pg_table_is_visible(parent.oid) " +
+                "ORDER BY child.relname", String.class);
+    }
+
+    private void createPartition(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        // Noms et bornes générés ici, sans entrée utilisateur
+        jdbcTemplate.execute(String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF messages " +
+                "FOR VALUES FROM ('%s') TO ('%s')", partitionName(month), from, to));
+    }
+
+    private void expire(String partition) {
+        if ("drop".equals(retentionMode)) {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            log.info("Partition {} supprimée (rétention de {} mois)", partition, retentionMonths);
+        } else {
+            // La table détachée reste disponible pour archivage (pg_dump, stockage froid)
+            jdbcTemplate.execute("ALTER TABLE messages DETACH PARTITION " + partition);
+            log.info("Partition {} détachée (rétention de {} mois)", partition, retentionMonths);
+        }
+    }
+
+    private String partitionName(YearMonth month) {
+        return String.format("messages_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -1,22 +1,40 @@
 package com.home.services.service;
 
+import com.home.services.cache.HotConversationCache;
+import com.home.services.dto.request.KeysetCursor;
 import com.home.services.dto.request.MessageDto;
 import com.home.services.dto.response.ConversationResponse;
+import com.home.services.dto.response.MessagePageResponse;
 import com.home.services.dto.response.MessageResponse;
+import com.home.services.dto.response.MessageSearchHitResponse;
+import com.home.services.dto.response.MessageSearchResponse;
+import com.home.services.dto.response.MessageSyncResponse;
 import com.home.services.exception.ResourceNotFoundException;
-import com.home.services.model.Application;
+import com.home.services.model.Conversation;
 import com.home.services.model.Message;
 import com.home.services.model.User;
-import com.home.services.model.enums.ApplicationStatus;
-import com.home.services.repository.ApplicationRepository;
+import com.home.services.model.enums.Role;
+import com.home.services.repository.ConversationRepository;
 import com.home.services.repository.MessageRepository;
 import com.home.services.repository.UserRepository;
+import com.home.services.search.MessageSearchIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -26,175 +44,285 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MessageService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SYNC_MESSAGES = 200;
+    private static final int DEFAULT_SEARCH_SIZE = 20;
+    private static final int MAX_SEARCH_SIZE = 50;
+    private static final int MIN_QUERY_LENGTH = 2;
+
     private final MessageRepository messageRepository;
-    private final ApplicationRepository applicationRepository;
     private final UserRepository userRepository;
+    private final ConversationRepository conversationRepository;
+    private final MessageSyncTracker syncTracker;
+    private final MessageBatchWriter batchWriter;
+    private final MessageIdempotencyStore idempotencyStore;
+    private final MessageSearchIndex searchIndex;
+    private final HotConversationCache hotCache;
+    private final PresenceRegistry presenceRegistry;
+
+    @Value("${app.messages.batch.ack-timeout-ms:5000}")
+    private long sendTimeoutMs;
 
     /**
      * Envoyer un message
+     * L'écriture passe par le lot en cours ; une clé d'idempotence évite les doublons
+     * Sans confirmation dans le délai, le message reste en file : il est renvoyé comme accepté (pending),
+     * un nouvel envoi avec la même clé renvoie le message confirmé sans le dupliquer
      */
-    @Transactional
     public MessageResponse send(MessageDto dto, String senderEmail) {
         User sender = userRepository.findByEmail(senderEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "email", senderEmail));
 
-        Application application = applicationRepository.findById(dto.getApplicationId())
+        // La conversation n'existe que pour une candidature acceptée
+        Conversation conversation = conversationRepository.findByApplicationId(dto.getApplicationId())
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation", "id", dto.getApplicationId()));
 
-        // Vérifier que l'application est acceptée
-        if (application.getStatut() != ApplicationStatus.ACCEPTEE) {
-            throw new RuntimeException("Vous ne pouvez pas envoyer de messages pour cette conversation");
-        }
-
         // Vérifier que l'utilisateur fait partie de la conversation
-        Long clientId = application.getServiceRequest().getClient().getId();
-        Long providerId = application.getProvider().getId();
+        Long clientId = conversation.getClient().getId();
+        Long providerId = conversation.getProvider().getId();
 
         if (!sender.getId().equals(clientId) && !sender.getId().equals(providerId)) {
             throw new RuntimeException("Vous n'êtes pas autorisé à envoyer des messages dans cette conversation");
         }
 
-        Message message = Message.builder()
-                .application(application)
-                .sender(sender)
-                .content(dto.getContent())
-                .isRead(false)
-                .build();
+        presenceRegistry.stoppedTyping(sender.getId(), dto.getApplicationId());
 
-        message = messageRepository.save(message);
+        Supplier<CompletableFuture<MessageResponse>> write = () -> batchWriter.submit(dto.getApplicationId(),
+                sender.getId(), sender.getNom(), clientId, providerId, dto.getContent());
+        CompletableFuture<MessageResponse> result = dto.getClientMessageId() == null
+                ? write.get()
+                : idempotencyStore.submitOnce(sender.getId(), dto.getClientMessageId(), write);
 
-        return toMessageResponse(message, sender.getId());
+        return await(result, MessageResponse.builder()
+                .applicationId(dto.getApplicationId())
+                .senderId(sender.getId())
+                .senderNom(sender.getNom())
+                .isOwnMessage(true)
+                .content(dto.getContent())
+                .pending(true)
+                .build());
     }
 
     /**
-     * Récupérer les messages d'une conversation
+     * Récupérer une page de messages d'une conversation
+     * Sans curseur : les derniers messages ; before/after : pagination par clé (created_at, id)
+     * La participation est vérifiée avant toute lecture, cache compris ; seule la page la plus récente
+     * vient du cache, le polling (after) lit la base pour voir les messages reçus par les autres nœuds
      */
-    @Transactional
-    public List<MessageResponse> getConversation(Long applicationId, String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "email", userEmail));
+    public MessagePageResponse getConversation(Long applicationId, String userEmail, String before, String after,
+            Integer limit) {
+        Long userId = hotCache.userId(userEmail);
+        if (userId == null) {
+            throw new ResourceNotFoundException("Utilisateur", "email", userEmail);
+        }
+        presenceRegistry.touch(userId);
 
-        Application application = applicationRepository.findById(applicationId)
+        HotConversationCache.Participants participants = hotCache.participants(applicationId);
+        if (participants == null) {
+            throw new ResourceNotFoundException("Conversation", "id", applicationId);
+        }
+        if (!participants.includes(userId)) {
+            throw new RuntimeException("Vous n'êtes pas autorisé à voir cette conversation");
+        }
+
+        KeysetCursor beforeCursor = KeysetCursor.decode(before);
+        KeysetCursor afterCursor = KeysetCursor.decode(after);
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Conversations actives : derniers messages servis depuis le cache
+        if (beforeCursor == null && afterCursor == null) {
+            HotConversationCache.HotPage hotPage = hotCache.page(applicationId, pageSize);
+            if (hotPage != null) {
+                return fromCache(applicationId, hotPage, userId);
+            }
+        }
+
+        // La conversation n'existe que pour une candidature acceptée
+        Conversation conversation = conversationRepository.findByApplicationId(applicationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation", "id", applicationId));
 
-        // Vérifier que l'application est acceptée
-        if (application.getStatut() != ApplicationStatus.ACCEPTEE) {
-            throw new RuntimeException("Cette conversation n'est pas disponible");
+        boolean isClient = userId.equals(participants.clientId());
+
+        // Un élément de plus pour savoir s'il reste des messages
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<Message> messages;
+        boolean hasMore;
+        MessagePageResponse.MessagePageResponseBuilder page = MessagePageResponse.builder();
+
+        if (afterCursor != null) {
+            messages = messageRepository.findAfter(applicationId, afterCursor.getCreatedAt(), afterCursor.getId(),
+                    pageable);
+            hasMore = messages.size() > pageSize;
+            messages = new ArrayList<>(messages.subList(0, Math.min(pageSize, messages.size())));
+            page.hasNewer(hasMore);
+        } else {
+            messages = beforeCursor != null
+                    ? messageRepository.findBefore(applicationId, beforeCursor.getCreatedAt(), beforeCursor.getId(),
+                            pageable)
+                    : messageRepository.findLatest(applicationId, pageable);
+            hasMore = messages.size() > pageSize;
+            messages = new ArrayList<>(messages.subList(0, Math.min(pageSize, messages.size())));
+            Collections.reverse(messages);
+            page.hasOlder(hasMore);
         }
 
-        // Vérifier que l'utilisateur fait partie de la conversation
-        Long clientId = application.getServiceRequest().getClient().getId();
-        Long providerId = application.getProvider().getId();
+        // Avancer le repère de lecture (inutile pour l'historique ancien)
+        ReadState readState = beforeCursor == null
+                ? markRead(applicationId, conversation.getId(), conversation.getLastMessageId(), isClient,
+                        ReadState.of(conversation))
+                : ReadState.of(conversation);
+
+        if (messages.isEmpty()) {
+            return page.messages(List.of())
+                    .beforeCursor(before)
+                    .afterCursor(after)
+                    .build();
+        }
 
-        if (!user.getId().equals(clientId) && !user.getId().equals(providerId)) {
-            throw new RuntimeException("Vous n'êtes pas autorisé à voir cette conversation");
+        Message oldest = messages.get(0);
+        Message newest = messages.get(messages.size() - 1);
+
+        return page.messages(messages.stream()
+                .map(m -> toMessageResponse(m, userId, readState))
+                .collect(Collectors.toList()))
+                .beforeCursor(KeysetCursor.of(oldest.getCreatedAt(), oldest.getId()).encode())
+                .afterCursor(KeysetCursor.of(newest.getCreatedAt(), newest.getId()).encode())
+                .build();
+    }
+
+    private MessagePageResponse fromCache(Long applicationId, HotConversationCache.HotPage hotPage, Long userId) {
+        HotConversationCache.HotConversation hot = hotPage.conversation();
+        boolean isClient = hot.getClientId().equals(userId);
+
+        ReadState readState = markRead(applicationId, hot.getConversationId(), hotPage.lastMessageId(), isClient,
+                new ReadState(hot.getClientId(), hot.getClientLastRead(), hot.getClientReadAt(),
+                        hot.getProviderLastRead(), hot.getProviderReadAt()));
+
+        List<MessageResponse> messages = hotPage.messages();
+        MessagePageResponse.MessagePageResponseBuilder page = MessagePageResponse.builder()
+                .hasOlder(hotPage.hasOlder());
+        if (messages.isEmpty()) {
+            return page.messages(List.of()).build();
         }
 
-        // Marquer les messages comme lus
-        messageRepository.markAsRead(applicationId, user.getId());
+        MessageResponse oldest = messages.get(0);
+        MessageResponse newest = messages.get(messages.size() - 1);
+        messages.forEach(m -> withViewer(m, userId, readState));
+        return page.messages(messages)
+                .beforeCursor(KeysetCursor.of(oldest.getCreatedAt(), oldest.getId()).encode())
+                .afterCursor(KeysetCursor.of(newest.getCreatedAt(), newest.getId()).encode())
+                .build();
+    }
+
+    /**
+     * Récupérer la liste des conversations
+     */
+    public List<ConversationResponse> getConversations(String userEmail) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "email", userEmail));
 
-        return messageRepository.findByApplicationIdOrderByCreatedAtAsc(applicationId)
+        presenceRegistry.touch(user.getId());
+        return conversationRepository.findByParticipant(user.getId())
                 .stream()
-                .map(m -> toMessageResponse(m, user.getId()))
+                .map(c -> toConversationResponse(c, user.getId()))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Récupérer la liste des conversations
+     * Synchronisation incrémentale : nouveaux messages et conversations modifiées depuis un id
+     * Sans changement, la réponse vient du repère en mémoire sans requête sur les messages
+     * Les messages récents d'id inférieur au curseur (validés après coup) sont renvoyés pendant la fenêtre
+     * de recouvrement : le client ignore ceux qu'il a déjà reçus
      */
-    public List<ConversationResponse> getConversations(String userEmail) {
+    @Transactional(readOnly = true)
+    public MessageSyncResponse sync(String userEmail, Long since) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "email", userEmail));
 
-        // Récupérer toutes les applications acceptées de l'utilisateur
-        List<Application> applications = new ArrayList<>();
-
-        // Si client, récupérer les applications de ses annonces
-        applications.addAll(applicationRepository.findPendingForClient(user.getId()));
-
-        // Récupérer aussi celles où il est prestataire accepté
-        applicationRepository.findByProviderIdAndStatut(user.getId(), ApplicationStatus.ACCEPTEE)
-                .forEach(app -> {
-                    if (!applications.contains(app)) {
-                        applications.add(app);
-                    }
-                });
-
-        // Récupérer aussi pour les clients (applications acceptées pour leurs annonces)
-        // On va chercher toutes les applications acceptées liées à l'utilisateur
-        List<ConversationResponse> conversations = new ArrayList<>();
-
-        for (Application app : getAcceptedApplicationsForUser(user)) {
-            User otherUser;
-            String otherRole;
-
-            if (user.getId().equals(app.getServiceRequest().getClient().getId())) {
-                // L'utilisateur est le client, l'autre est le prestataire
-                otherUser = app.getProvider();
-                otherRole = "Prestataire";
-            } else {
-                // L'utilisateur est le prestataire, l'autre est le client
-                otherUser = app.getServiceRequest().getClient();
-                otherRole = "Client";
-            }
+        presenceRegistry.touch(user.getId());
+        MessageSyncTracker.SyncMark mark = syncTracker.mark(user.getId());
+
+        // Premier appel : seulement le curseur, l'état initial vient de /conversations
+        if (since == null || syncTracker.isUpToDate(mark, since)) {
+            return MessageSyncResponse.builder()
+                    .messages(List.of())
+                    .conversations(List.of())
+                    .cursor(since == null ? mark.maxMessageId() : since)
+                    .hasMore(false)
+                    .pollIntervalMs(syncTracker.recommendPollInterval(false))
+                    .build();
+        }
 
-            // Récupérer le dernier message
-            List<Message> messages = messageRepository.findByApplicationIdOrderByCreatedAtAsc(app.getId());
-            Message lastMessage = messages.isEmpty() ? null : messages.get(messages.size() - 1);
-
-            boolean hasUnread = messages.stream()
-                    .anyMatch(m -> !m.getIsRead() && !m.getSender().getId().equals(user.getId()));
-
-            conversations.add(ConversationResponse.builder()
-                    .applicationId(app.getId())
-                    .requestTitre(app.getServiceRequest().getTitre())
-                    .otherUserId(otherUser.getId())
-                    .otherUserNom(otherUser.getNom())
-                    .otherUserRole(otherRole)
-                    .otherUserPhone(otherUser.getTelephone()) // Visible car match accepté
-                    .lastMessage(lastMessage != null ? truncate(lastMessage.getContent(), 50) : null)
-                    .lastMessageAt(lastMessage != null ? lastMessage.getCreatedAt() : app.getRespondedAt())
-                    .hasUnread(hasUnread)
-                    .build());
-        }
-
-        // Trier par dernier message
-        conversations.sort((a, b) -> {
-            if (a.getLastMessageAt() == null)
-                return 1;
-            if (b.getLastMessageAt() == null)
-                return -1;
-            return b.getLastMessageAt().compareTo(a.getLastMessageAt());
-        });
-
-        return conversations;
+        LocalDateTime overlapFrom = syncTracker.overlapFrom();
+        List<Message> messages = new ArrayList<>(messageRepository.findLateForUser(user.getId(), since, overlapFrom,
+                PageRequest.of(0, MAX_SYNC_MESSAGES)));
+        List<Message> newer = messageRepository.findNewForUser(user.getId(), since,
+                PageRequest.of(0, MAX_SYNC_MESSAGES + 1));
+        boolean hasMore = newer.size() > MAX_SYNC_MESSAGES;
+        if (hasMore) {
+            newer = newer.subList(0, MAX_SYNC_MESSAGES);
+        }
+        long cursor = newer.isEmpty() ? since : newer.get(newer.size() - 1).getId();
+        messages.addAll(newer);
+
+        List<Conversation> conversations = conversationRepository.findChangedForUser(user.getId(), since,
+                overlapFrom);
+        // Chaque message renvoyé appartient à une conversation modifiée : ses repères de lecture sont déjà chargés
+        Map<Long, ReadState> readStates = conversations.stream()
+                .collect(Collectors.toMap(c -> c.getApplication().getId(), ReadState::of));
+
+        return MessageSyncResponse.builder()
+                .messages(messages.stream()
+                        .map(m -> toMessageResponse(m, user.getId(),
+                                readStates.get(m.getApplication().getId())))
+                        .collect(Collectors.toList()))
+                .conversations(conversations.stream()
+                        .map(c -> toConversationResponse(c, user.getId()))
+                        .collect(Collectors.toList()))
+                .cursor(cursor)
+                .hasMore(hasMore)
+                .pollIntervalMs(syncTracker.recommendPollInterval(!messages.isEmpty()))
+                .build();
     }
 
     /**
-     * Récupérer les applications acceptées pour un utilisateur
+     * Rechercher dans les messages de l'utilisateur (tous les messages pour un administrateur)
      */
-    private List<Application> getAcceptedApplicationsForUser(User user) {
-        List<Application> result = new ArrayList<>();
-
-        // En tant que prestataire
-        result.addAll(applicationRepository.findByProviderIdAndStatut(user.getId(), ApplicationStatus.ACCEPTEE));
-
-        // En tant que client (via les annonces)
-        // On utilise une requête personnalisée pour trouver les applications acceptées
-        // des annonces du client
-        // Pour simplifier, on va chercher toutes les applications et filtrer
-        List<Application> allAccepted = applicationRepository.findAll().stream()
-                .filter(a -> a.getStatut() == ApplicationStatus.ACCEPTEE)
-                .filter(a -> a.getServiceRequest().getClient().getId().equals(user.getId()))
-                .collect(Collectors.toList());
+    public MessageSearchResponse search(String userEmail, String query, String cursor, Integer limit) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "email", userEmail));
 
-        for (Application app : allAccepted) {
-            if (!result.contains(app)) {
-                result.add(app);
-            }
+        String trimmed = query == null ? "" : query.trim();
+        if (trimmed.length() < MIN_QUERY_LENGTH) {
+            throw new RuntimeException("La recherche doit contenir au moins " + MIN_QUERY_LENGTH + " caractères");
         }
 
-        return result;
+        int pageSize = limit == null ? DEFAULT_SEARCH_SIZE : Math.max(1, Math.min(limit, MAX_SEARCH_SIZE));
+        Long participantId = user.getRole() == Role.ADMIN ? null : user.getId();
+
+        List<MessageSearchHitResponse> hits = new ArrayList<>(
+                searchIndex.search(trimmed, participantId, KeysetCursor.decode(cursor), pageSize + 1));
+        boolean hasMore = hits.size() > pageSize;
+        if (hasMore) {
+            hits = hits.subList(0, pageSize);
+        }
+
+        // Titres des annonces pour les seules conversations de la page
+        Map<Long, String> titles = conversationRepository.findByApplicationIdIn(hits.stream()
+                        .map(MessageSearchHitResponse::getApplicationId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(c -> c.getApplication().getId(), Conversation::getRequestTitre));
+        hits.forEach(hit -> hit.setRequestTitre(titles.get(hit.getApplicationId())));
+
+        MessageSearchHitResponse last = hits.isEmpty() ? null : hits.get(hits.size() - 1);
+        return MessageSearchResponse.builder()
+                .results(hits)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? KeysetCursor.of(last.getCreatedAt(), last.getMessageId()).encode() : null)
+                .build();
     }
 
     /**
@@ -204,27 +332,111 @@ public class MessageService {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "email", userEmail));
 
-        return messageRepository.countUnreadForUser(user.getId());
+        return conversationRepository.sumUnreadForUser(user.getId());
+    }
+
+    private ConversationResponse toConversationResponse(Conversation conversation, Long currentUserId) {
+        boolean isClient = conversation.getClient().getId().equals(currentUserId);
+        // L'autre participant est le prestataire si l'utilisateur est le client, et inversement
+        User otherUser = isClient ? conversation.getProvider() : conversation.getClient();
+        int unreadCount = isClient ? conversation.getClientUnreadCount() : conversation.getProviderUnreadCount();
+
+        return ConversationResponse.builder()
+                .applicationId(conversation.getApplication().getId())
+                .requestTitre(conversation.getRequestTitre())
+                .otherUserId(otherUser.getId())
+                .otherUserNom(otherUser.getNom())
+                .otherUserRole(isClient ? "Prestataire" : "Client")
+                .otherUserPhone(otherUser.getTelephone()) // Visible car match accepté
+                .otherUserOnline(presenceRegistry.isOnline(otherUser.getId()))
+                .otherUserTyping(presenceRegistry.isTyping(otherUser.getId(), conversation.getApplication().getId()))
+                .lastMessage(conversation.getLastMessagePreview())
+                .lastMessageAt(conversation.getLastMessageAt())
+                .hasUnread(unreadCount > 0)
+                .unreadCount(unreadCount)
+                .build();
+    }
+
+    /**
+     * Avancer le repère de lecture du lecteur jusqu'au dernier message
+     * Aucune écriture si tout est déjà lu ; un message arrivé entre-temps reste non lu
+     */
+    private ReadState markRead(Long applicationId, Long conversationId, Long lastMessageId, boolean isClient,
+            ReadState readState) {
+        Long watermark = isClient ? readState.clientLastRead() : readState.providerLastRead();
+        if (lastMessageId == null || (watermark != null && watermark >= lastMessageId)) {
+            return readState;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int updated = isClient
+                ? conversationRepository.markReadByClient(conversationId, lastMessageId, now)
+                : conversationRepository.markReadByProvider(conversationId, lastMessageId, now);
+        if (updated == 0) {
+            return readState;
+        }
+        hotCache.recordRead(applicationId, isClient, lastMessageId, now);
+        return isClient
+                ? new ReadState(readState.clientId(), lastMessageId, now,
+                        readState.providerLastRead(), readState.providerReadAt())
+                : new ReadState(readState.clientId(), readState.clientLastRead(), readState.clientReadAt(),
+                        lastMessageId, now);
     }
 
-    private MessageResponse toMessageResponse(Message message, Long currentUserId) {
-        return MessageResponse.builder()
+    private MessageResponse toMessageResponse(Message message, Long currentUserId, ReadState readState) {
+        return withViewer(MessageResponse.builder()
                 .id(message.getId())
                 .applicationId(message.getApplication().getId())
                 .senderId(message.getSender().getId())
                 .senderNom(message.getSender().getNom())
-                .isOwnMessage(message.getSender().getId().equals(currentUserId))
                 .content(message.getContent())
-                .isRead(message.getIsRead())
                 .createdAt(message.getCreatedAt())
-                .readAt(message.getReadAt())
-                .build();
+                .build(), currentUserId, readState);
+    }
+
+    /**
+     * Compléter un message avec les champs propres au lecteur
+     * Lu si le repère du destinataire a dépassé le message
+     */
+    private MessageResponse withViewer(MessageResponse message, Long currentUserId, ReadState readState) {
+        boolean sentByClient = readState != null && message.getSenderId().equals(readState.clientId());
+        Long recipientWatermark = readState == null ? null
+                : sentByClient ? readState.providerLastRead() : readState.clientLastRead();
+        boolean isRead = recipientWatermark != null && message.getId() <= recipientWatermark;
+
+        message.setIsOwnMessage(message.getSenderId().equals(currentUserId));
+        message.setIsRead(isRead);
+        message.setReadAt(isRead ? (sentByClient ? readState.providerReadAt() : readState.clientReadAt()) : null);
+        return message;
     }
 
-    private String truncate(String text, int maxLength) {
-        if (text == null || text.length() <= maxLength) {
-            return text;
+    private MessageResponse await(CompletableFuture<MessageResponse> result, MessageResponse pending) {
+        try {
+            return result.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Envoi du message interrompu");
+        } catch (TimeoutException e) {
+            // Toujours en file : il sera écrit, l'échec éventuel libère la clé d'idempotence
+            return pending;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Le message n'a pas pu être envoyé", e.getCause());
+        }
+    }
+
+    /**
+     * Repères de lecture des deux participants d'une conversation
+     */
+    private record ReadState(Long clientId, Long clientLastRead, LocalDateTime clientReadAt,
+            Long providerLastRead, LocalDateTime providerReadAt) {
+
+        static ReadState of(Conversation conversation) {
+            return new ReadState(conversation.getClient().getId(),
+                    conversation.getClientLastReadMessageId(), conversation.getClientLastReadAt(),
+                    conversation.getProviderLastReadMessageId(), conversation.getProviderLastReadAt());
         }
-        return text.substring(0, maxLength) + "...";
     }
 }
@@ -0,0 +1,156 @@
+package com.home.services.service;
+
+import com.home.services.event.MessageSentEvent;
+import com.home.services.repository.ConversationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suivi en mémoire du dernier message visible par chaque utilisateur
+ * et de la charge de synchronisation, pour la réponse rapide du polling
+ * Les ids sont attribués avant le commit : un message d'id inférieur au curseur d'un client peut être validé
+ * après coup. La synchronisation relit donc les messages créés dans la fenêtre de recouvrement (overlap-ms),
+ * et ne répond « rien de nouveau » sans requête qu'une fois cette fenêtre écoulée depuis le dernier changement.
+ * Les repères expirent après mark-ttl-ms : ils sont relus en base, ce qui borne leur nombre et le retard
+ * sur les messages écrits par un autre nœud
+ */
+@Service
+@Slf4j
+public class MessageSyncTracker {
+
+    private final ConversationRepository conversationRepository;
+    private final long minIntervalMs;
+    private final long idleIntervalMs;
+    private final long maxIntervalMs;
+    private final long loadThreshold;
+    private final long overlapMs;
+    private final long markTtlMs;
+
+    // Repère des utilisateurs ayant synchronisé récemment
+    private final Map<Long, SyncMark> marks = new ConcurrentHashMap<>();
+
+    // Appels de synchronisation sur la seconde courante et la précédente
+    private final AtomicLong currentSecond = new AtomicLong();
+    private final AtomicLong currentCount = new AtomicLong();
+    private volatile long previousCount;
+
+    public MessageSyncTracker(
+            ConversationRepository conversationRepository,
+            @Value("${app.messages.sync.min-interval-ms:2000}") long minIntervalMs,
+            @Value("${app.messages.sync.idle-interval-ms:5000}") long idleIntervalMs,
+            @Value("${app.messages.sync.max-interval-ms:30000}") long maxIntervalMs,
+            @Value("${app.messages.sync.load-threshold:200}") long loadThreshold,
+            @Value("${app.messages.sync.overlap-ms:10000}") long overlapMs,
+            @Value("${app.messages.sync.mark-ttl-ms:10000}") long markTtlMs) {
+        this.conversationRepository = conversationRepository;
+        this.minIntervalMs = minIntervalMs;
+        this.idleIntervalMs = idleIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+        this.loadThreshold = loadThreshold;
+        this.overlapMs = overlapMs;
+        this.markTtlMs = markTtlMs;
+    }
+
+    /**
+     * Repère de l'utilisateur, relu depuis les conversations s'il est absent ou expiré
+     */
+    public SyncMark mark(Long userId) {
+        long now = System.currentTimeMillis();
+        SyncMark mark = marks.get(userId);
+        if (mark != null && now - mark.loadedAt() <= markTtlMs) {
+            return mark;
+        }
+
+        ConversationRepository.SyncState state = conversationRepository.findSyncStateForUser(userId);
+        long maxMessageId = state != null && state.getMaxMessageId() != null ? state.getMaxMessageId() : 0;
+        long changedAt = state != null && state.getLastMessageAt() != null
+                ? state.getLastMessageAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0;
+        // Un message observé pendant la lecture est conservé
+        return marks.merge(userId, new SyncMark(maxMessageId, changedAt, now), (current, loaded) ->
+                new SyncMark(Math.max(current.maxMessageId(), loaded.maxMessageId()),
+                        Math.max(current.changedAt(), loaded.changedAt()), loaded.loadedAt()));
+    }
+
+    /**
+     * Vrai si rien ne peut avoir changé depuis le curseur : aucun message d'id supérieur
+     * et aucun message validé dans la fenêtre de recouvrement
+     */
+    public boolean isUpToDate(SyncMark mark, long since) {
+        return since >= mark.maxMessageId() && System.currentTimeMillis() - mark.changedAt() > overlapMs;
+    }
+
+    /**
+     * Début de la fenêtre de recouvrement : les messages créés depuis sont relus quel que soit leur id
+     */
+    public LocalDateTime overlapFrom() {
+        return LocalDateTime.now().minus(overlapMs, ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Avancer le repère des deux participants après le commit d'un message
+     * Seuls les repères existants sont mis à jour : les autres seront lus en base
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        long messageId = event.getMessage().getId();
+        long now = System.currentTimeMillis();
+        advance(event.getClientId(), messageId, now);
+        advance(event.getProviderId(), messageId, now);
+    }
+
+    /**
+     * Oublier les repères expirés (utilisateurs qui ne synchronisent plus)
+     */
+    @Scheduled(fixedDelayString = "${app.messages.sync.mark-ttl-ms:10000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        marks.values().removeIf(mark -> now - mark.loadedAt() > markTtlMs);
+    }
+
+    int trackedUsers() {
+        return marks.size();
+    }
+
+    /**
+     * Enregistrer un appel et calculer l'intervalle de polling conseillé
+     * Plus court après un changement, plus long au repos, allongé quand la charge augmente
+     */
+    public long recommendPollInterval(boolean changed) {
+        long rate = recordCall();
+        long base = changed ? minIntervalMs : idleIntervalMs;
+        double loadFactor = 1.0 + (double) rate / loadThreshold;
+        return Math.min(maxIntervalMs, Math.round(base * loadFactor));
+    }
+
+    private void advance(Long userId, long messageId, long now) {
+        marks.computeIfPresent(userId, (id, mark) ->
+                new SyncMark(Math.max(mark.maxMessageId(), messageId), now, mark.loadedAt()));
+    }
+
+    private long recordCall() {
+        long second = System.currentTimeMillis() / 1000;
+        long current = currentSecond.get();
+        if (second != current && currentSecond.compareAndSet(current, second)) {
+            long finished = currentCount.getAndSet(0);
+            previousCount = second == current + 1 ? finished : 0;
+        }
+        return Math.max(previousCount, currentCount.incrementAndGet());
+    }
+
+    /**
+     * Dernier message connu d'un utilisateur, date du dernier changement et date de lecture en base (ms)
+     */
+    public record SyncMark(long maxMessageId, long changedAt, long loadedAt) {
+    }
+}
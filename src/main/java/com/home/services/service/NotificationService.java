@@ -0,0 +1,97 @@
+package com.home.services.service;
+
+import com.home.services.event.ApplicationDecidedEvent;
+import com.home.services.event.ApplicationSubmittedEvent;
+import com.home.services.event.MessageSentEvent;
+import com.home.services.event.ServiceRequestPublishedEvent;
+import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.repository.ConversationRepository;
+import com.home.services.repository.ProviderProfileRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+
+/**
+ * Service de notifications temps réel de la place de marché
+ * Traduit les événements métier (après commit) en événements SSE typés
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationService {
+
+    public static final String APPLICATION_RECEIVED = "APPLICATION_RECEIVED";
+    public static final String APPLICATION_ACCEPTED = "APPLICATION_ACCEPTED";
+    public static final String APPLICATION_REJECTED = "APPLICATION_REJECTED";
+    public static final String UNREAD_COUNT = "UNREAD_COUNT";
+    public static final String REQUEST_PUBLISHED = "REQUEST_PUBLISHED";
+
+    private final EventStreamService eventStreamService;
+    private final ConversationRepository conversationRepository;
+    private final ProviderProfileRepository providerProfileRepository;
+
+    /**
+     * Nouvelle candidature sur une annonce du client
+     */
+    @TransactionalEventListener
+    public void onApplicationSubmitted(ApplicationSubmittedEvent event) {
+        eventStreamService.publish(event.getClientId(), APPLICATION_RECEIVED, Map.of(
+                "applicationId", event.getApplicationId(),
+                "serviceRequestId", event.getServiceRequestId(),
+                "requestTitre", event.getRequestTitre(),
+                "providerId", event.getProviderId(),
+                "providerNom", event.getProviderNom()));
+    }
+
+    /**
+     * Candidature du prestataire acceptée ou refusée
+     */
+    @TransactionalEventListener
+    public void onApplicationDecided(ApplicationDecidedEvent event) {
+        String type = event.getStatut() == ApplicationStatus.ACCEPTEE ? APPLICATION_ACCEPTED : APPLICATION_REJECTED;
+        eventStreamService.publish(event.getProviderId(), type, Map.of(
+                "applicationId", event.getApplicationId(),
+                "serviceRequestId", event.getServiceRequestId(),
+                "requestTitre", event.getRequestTitre()));
+    }
+
+    /**
+     * Nouveau compteur de non lus pour le destinataire d'un message
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        Long recipientId = event.getMessage().getSenderId().equals(event.getClientId())
+                ? event.getProviderId()
+                : event.getClientId();
+
+        if (!eventStreamService.isListening(recipientId)) {
+            return;
+        }
+
+        eventStreamService.publish(recipientId, UNREAD_COUNT, Map.of(
+                "applicationId", event.getMessage().getApplicationId(),
+                "count", conversationRepository.sumUnreadForUser(recipientId)));
+    }
+
+    /**
+     * Nouvelle annonce correspondant aux catégories et au quartier du prestataire
+     */
+    @TransactionalEventListener
+    public void onServiceRequestPublished(ServiceRequestPublishedEvent event) {
+        if (!eventStreamService.hasListeners()) {
+            return;
+        }
+
+        Map<String, Object> payload = Map.of(
+                "serviceRequestId", event.getServiceRequestId(),
+                "titre", event.getTitre(),
+                "categoryId", event.getCategoryId(),
+                "quartier", event.getQuartier());
+
+        providerProfileRepository.findUserIdsByCategoryAndQuartier(event.getCategoryId(), event.getQuartier())
+                .stream()
+                .filter(eventStreamService::isListening)
+                .forEach(providerId -> eventStreamService.publish(providerId, REQUEST_PUBLISHED, payload));
+    }
+}
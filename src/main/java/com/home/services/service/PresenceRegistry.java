@@ -0,0 +1,82 @@
+package com.home.services.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Présence (« en ligne ») et indicateur de saisie, uniquement en mémoire
+ * Rien n'est écrit en base : l'état expire seul après son TTL
+ */
+@Service
+@Slf4j
+public class PresenceRegistry {
+
+    private static final long TICK_MS = 1000;
+
+    private final ExpiringKeySet<Long> online;
+    private final ExpiringKeySet<TypingKey> typing;
+
+    // Clés refusées (capacité atteinte) déjà signalées dans les logs (seul expire() y accède)
+    private long reportedDrops;
+
+    public PresenceRegistry(
+            @Value("${app.presence.online-ttl-ms:60000}") long onlineTtlMs,
+            @Value("${app.presence.typing-ttl-ms:6000}") long typingTtlMs,
+            @Value("${app.presence.max-entries:100000}") int maxEntries) {
+        this.online = new ExpiringKeySet<>(onlineTtlMs, TICK_MS, maxEntries);
+        this.typing = new ExpiringKeySet<>(typingTtlMs, TICK_MS, maxEntries);
+    }
+
+    /**
+     * Signe d'activité de l'utilisateur (connexion WebSocket, ping, lecture de la messagerie)
+     */
+    public void touch(Long userId) {
+        online.touch(userId);
+    }
+
+    public void offline(Long userId) {
+        online.remove(userId);
+        // Un utilisateur hors ligne ne saisit plus rien ; les indicateurs de saisie expirent seuls
+    }
+
+    /**
+     * L'utilisateur est en train d'écrire dans la conversation
+     */
+    public void typing(Long userId, Long applicationId) {
+        online.touch(userId);
+        typing.touch(new TypingKey(userId, applicationId));
+    }
+
+    /**
+     * Fin de saisie (message envoyé)
+     */
+    public void stoppedTyping(Long userId, Long applicationId) {
+        typing.remove(new TypingKey(userId, applicationId));
+    }
+
+    public boolean isOnline(Long userId) {
+        return online.contains(userId);
+    }
+
+    public boolean isTyping(Long userId, Long applicationId) {
+        return typing.contains(new TypingKey(userId, applicationId));
+    }
+
+    @Scheduled(fixedRate = TICK_MS)
+    public void expire() {
+        online.advance();
+        typing.advance();
+
+        long dropped = online.dropped() + typing.dropped();
+        if (dropped > reportedDrops) {
+            log.warn("Présence : {} clé(s) refusée(s), capacité app.presence.max-entries atteinte",
+                    dropped - reportedDrops);
+            reportedDrops = dropped;
+        }
+    }
+
+    private record TypingKey(Long userId, Long applicationId) {
+    }
+}
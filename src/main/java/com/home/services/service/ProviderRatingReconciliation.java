@@ -0,0 +1,81 @@
+package com.home.services.service;
+
+import com.home.services.cache.ProviderRatingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Recalcul des notes des prestataires (sommes, nombres et note globale) depuis la table reviews
+ * Par tranches d'ids de profil, une transaction courte par tranche ; seuls les profils divergents sont réécrits
+ */
+@Service
+@Slf4j
+public class ProviderRatingReconciliation {
+
+    private static final String REVIEWS = "FROM reviews r WHERE r.provider_id = p.user_id";
+
+    private static final String REBUILD = "UPDATE provider_profiles p SET " +
+            "nombre_avis = (SELECT COUNT(*) " + REVIEWS + "), " +
+            "somme_notes = (SELECT COALESCE(SUM(r.note), 0) " + REVIEWS + "), " +
+            "note_globale = (SELECT COALESCE(AVG(CAST(r.note AS DOUBLE PRECISION)), 0) " + REVIEWS + "), " +
+            "somme_qualite = (SELECT COALESCE(SUM(r.note_qualite), 0) " + REVIEWS + "), " +
+            "nombre_qualite = (SELECT COUNT(r.note_qualite) " + REVIEWS + "), " +
+            "somme_ponctualite = (SELECT COALESCE(SUM(r.note_ponctualite), 0) " + REVIEWS + "), " +
+            "nombre_ponctualite = (SELECT COUNT(r.note_ponctualite) " + REVIEWS + "), " +
+            "somme_communication = (SELECT COALESCE(SUM(r.note_communication), 0) " + REVIEWS + "), " +
+            "nombre_communication = (SELECT COUNT(r.note_communication) " + REVIEWS + ") " +
+            "WHERE p.id >= ? AND p.id < ? AND (" +
+            "nombre_avis <> (SELECT COUNT(*) " + REVIEWS + ") OR " +
+            "somme_notes <> (SELECT COALESCE(SUM(r.note), 0) " + REVIEWS + ") OR " +
+            "nombre_qualite <> (SELECT COUNT(r.note_qualite) " + REVIEWS + ") OR " +
+            "somme_qualite <> (SELECT COALESCE(SUM(r.note_qualite), 0) " + REVIEWS + ") OR " +
+            "nombre_ponctualite <> (SELECT COUNT(r.note_ponctualite) " + REVIEWS + ") OR " +
+            "somme_ponctualite <> (SELECT COALESCE(SUM(r.note_ponctualite), 0) " + REVIEWS + ") OR " +
+            "nombre_communication <> (SELECT COUNT(r.note_communication) " + REVIEWS + ") OR " +
+            "somme_communication <> (SELECT COALESCE(SUM(r.note_communication), 0) " + REVIEWS + "))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProviderRatingCache providerRatingCache;
+    private final int rangeSize;
+
+    public ProviderRatingReconciliation(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ProviderRatingCache providerRatingCache,
+            @Value("${app.reviews.reconcile.range-size:1000}") int rangeSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.providerRatingCache = providerRatingCache;
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * @return nombre de profils corrigés
+     */
+    @Scheduled(cron = "${app.reviews.reconcile.cron:0 15 4 * * SUN}")
+    public int rebuild() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM provider_profiles", Long.class);
+        if (maxId == null) {
+            return 0;
+        }
+
+        int fixed = 0;
+        for (long from = 1; from <= maxId; from += rangeSize) {
+            final long lo = from;
+            final long hi = from + rangeSize;
+            Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(REBUILD, lo, hi));
+            fixed += updated != null ? updated : 0;
+        }
+        if (fixed > 0) {
+            providerRatingCache.clear();
+            log.warn("Notes recalculées pour {} prestataire(s)", fixed);
+        }
+        return fixed;
+    }
+}
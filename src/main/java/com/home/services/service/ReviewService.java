@@ -1,7 +1,12 @@
 package com.home.services.service;
 
+import com.home.services.cache.ProviderRatingCache;
+import com.home.services.dto.request.KeysetCursor;
 import com.home.services.dto.request.ReviewDto;
+import com.home.services.dto.response.CursorPageResponse;
+import com.home.services.dto.response.ProviderRatingSummaryResponse;
 import com.home.services.dto.response.ReviewResponse;
+import com.home.services.event.ReviewCreatedEvent;
 import com.home.services.exception.ResourceNotFoundException;
 import com.home.services.model.Application;
 import com.home.services.model.ProviderProfile;
@@ -9,15 +14,21 @@ import com.home.services.model.Review;
 import com.home.services.model.User;
 import com.home.services.model.enums.ApplicationStatus;
 import com.home.services.model.enums.RequestStatus;
+import com.home.services.ranking.BayesianRating;
 import com.home.services.repository.ApplicationRepository;
 import com.home.services.repository.ProviderProfileRepository;
 import com.home.services.repository.ReviewRepository;
 import com.home.services.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -27,10 +38,16 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ReviewService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 50;
+
     private final ReviewRepository reviewRepository;
     private final ApplicationRepository applicationRepository;
     private final UserRepository userRepository;
     private final ProviderProfileRepository providerProfileRepository;
+    private final ProviderRatingCache providerRatingCache;
+    private final BayesianRating bayesianRating;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Laisser un avis
@@ -73,46 +90,81 @@ public class ReviewService {
 
         review = reviewRepository.save(review);
 
-        // Mettre à jour la note moyenne du prestataire
-        updateProviderRating(provider.getId());
+        // Mettre à jour les notes du prestataire (incrément atomique, dans la transaction de l'avis)
+        int updated = providerProfileRepository.addReview(provider.getId(), review.getNote(),
+                review.getNoteQualite(), review.getNotePonctualite(), review.getNoteCommunication());
+        if (updated == 0) {
+            throw new ResourceNotFoundException("Profil prestataire", "utilisateur", provider.getId());
+        }
+        eventPublisher.publishEvent(new ReviewCreatedEvent(provider.getId()));
 
         return toResponse(review);
     }
 
     /**
-     * Récupérer les avis d'un prestataire
+     * Avis d'un prestataire, plus récents d'abord, paginés par clé (created_at, id)
      */
-    public List<ReviewResponse> getByProvider(Long providerId) {
-        return reviewRepository.findByProviderIdOrderByCreatedAtDesc(providerId)
-                .stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ReviewResponse> getByProvider(Long providerId, String cursor, Integer limit) {
+        KeysetCursor before = KeysetCursor.decode(cursor);
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Un élément de plus pour savoir s'il reste des avis
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<Review> reviews = before != null
+                ? reviewRepository.findByProviderIdBefore(providerId, before.getCreatedAt(), before.getId(), pageable)
+                : reviewRepository.findLatestByProviderId(providerId, pageable);
+        boolean hasMore = reviews.size() > pageSize;
+        reviews = reviews.subList(0, Math.min(pageSize, reviews.size()));
+
+        Review last = hasMore ? reviews.get(reviews.size() - 1) : null;
+        return CursorPageResponse.<ReviewResponse>builder()
+                .items(reviews.stream().map(this::toResponse).collect(Collectors.toList()))
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? KeysetCursor.of(last.getCreatedAt(), last.getId()).encode() : null)
+                .build();
     }
 
     /**
-     * Récupérer la note moyenne d'un prestataire
+     * Résumé des notes d'un prestataire (moyennes, répartition, score bayésien), servi depuis le cache
      */
-    public Double getAverageRating(Long providerId) {
-        return reviewRepository.findAverageNoteByProviderId(providerId);
+    public ProviderRatingSummaryResponse getRatingSummary(Long providerId) {
+        return providerRatingCache.get(providerId, () -> buildRatingSummary(providerId));
     }
 
-    /**
-     * Mettre à jour la note globale du prestataire
-     */
-    private void updateProviderRating(Long providerId) {
-        Double avgRating = reviewRepository.findAverageNoteByProviderId(providerId);
-        long count = reviewRepository.countByProviderId(providerId);
-
-        if (avgRating != null) {
-            ProviderProfile profile = providerProfileRepository.findByUserId(providerId)
-                    .orElse(null);
-
-            if (profile != null) {
-                profile.setNoteGlobale(avgRating);
-                profile.setNombreAvis((int) count);
-                providerProfileRepository.save(profile);
-            }
+    private ProviderRatingSummaryResponse buildRatingSummary(Long providerId) {
+        ProviderProfile profile = providerProfileRepository.findByUserId(providerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Prestataire", "id", providerId));
+
+        Map<Integer, Long> repartition = new TreeMap<>();
+        for (int note = 1; note <= 5; note++) {
+            repartition.put(note, 0L);
         }
+        reviewRepository.countByProviderIdGroupByNote(providerId)
+                .forEach(count -> repartition.put(count.getNote(), count.getTotal()));
+
+        // Même score que le classement des candidatures
+        int count = profile.getNombreAvis();
+        double bayesian = bayesianRating.score(profile.getSommeNotes(), count);
+
+        return ProviderRatingSummaryResponse.builder()
+                .providerId(providerId)
+                .noteGlobale(average(profile.getSommeNotes(), count))
+                .nombreAvis(count)
+                .repartition(repartition)
+                .noteQualite(average(profile.getSommeQualite(), profile.getNombreQualite()))
+                .notePonctualite(average(profile.getSommePonctualite(), profile.getNombrePonctualite()))
+                .noteCommunication(average(profile.getSommeCommunication(), profile.getNombreCommunication()))
+                .scoreBayesien(round(bayesian))
+                .build();
+    }
+
+    private static Double average(long sum, int count) {
+        return count == 0 ? null : round((double) sum / count);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
     }
 
     /**
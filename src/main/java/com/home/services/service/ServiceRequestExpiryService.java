@@ -0,0 +1,142 @@
+package com.home.services.service;
+
+import com.home.services.event.ServiceRequestsExpiredEvent;
+import com.home.services.model.enums.Urgency;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durée de publication des annonces selon l'urgence et expiration périodique
+ * L'expiration procède par lots (une transaction courte par lot) : les annonces passent en EXPIREE
+ * et leurs candidatures en attente en EXPIREE, sans verrou au-delà des lignes du lot
+ */
+@Service
+@Slf4j
+public class ServiceRequestExpiryService {
+
+    // Parcours de l'index (statut, expires_at, id)
+    private static final String FIND_EXPIRED = "SELECT id FROM service_requests " +
+            "WHERE statut = 'PUBLIEE' AND expires_at <= ? ORDER BY expires_at, id LIMIT ?";
+
+    // Annonces publiées avant la mise en place de l'expiration
+    private static final String DATE_UNDATED = "UPDATE service_requests SET expires_at = ? " +
+            "WHERE id IN (SELECT id FROM service_requests WHERE statut = 'PUBLIEE' AND expires_at IS NULL " +
+            "AND urgence = ? ORDER BY id LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<Urgency, Duration> lifetimes = new EnumMap<>(Urgency.class);
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    public ServiceRequestExpiryService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.requests.lifetime.normal-days:30}") int normalDays,
+            @Value("${app.requests.lifetime.urgent-days:7}") int urgentDays,
+            @Value("${app.requests.lifetime.tres-urgent-days:2}") int tresUrgentDays,
+            @Value("${app.requests.expiry.chunk-size:500}") int chunkSize,
+            @Value("${app.requests.expiry.max-chunks-per-run:200}") int maxChunksPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.lifetimes.put(Urgency.NORMAL, Duration.ofDays(normalDays));
+        this.lifetimes.put(Urgency.URGENT, Duration.ofDays(urgentDays));
+        this.lifetimes.put(Urgency.TRES_URGENT, Duration.ofDays(tresUrgentDays));
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+    }
+
+    /**
+     * Date d'expiration d'une annonce publiée maintenant
+     */
+    public LocalDateTime expiresAt(Urgency urgence, LocalDateTime publishedAt) {
+        return publishedAt.plus(lifetimes.get(urgence != null ? urgence : Urgency.NORMAL));
+    }
+
+    /**
+     * Date d'expiration après un changement d'urgence : même date de publication, durée de la nouvelle urgence
+     * (une annonce sans date, publiée avant l'expiration, repart de maintenant)
+     */
+    public LocalDateTime rescheduled(LocalDateTime expiresAt, Urgency previous, Urgency urgence) {
+        if (expiresAt == null) {
+            return expiresAt(urgence, LocalDateTime.now());
+        }
+        LocalDateTime publishedAt = expiresAt.minus(lifetimes.get(previous != null ? previous : Urgency.NORMAL));
+        return expiresAt(urgence, publishedAt);
+    }
+
+    @Scheduled(fixedDelayString = "${app.requests.expiry.interval-ms:300000}",
+            initialDelayString = "${app.requests.expiry.initial-delay-ms:60000}")
+    public void expire() {
+        LocalDateTime now = LocalDateTime.now();
+        dateUndated(now);
+
+        int expired = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            List<Long> ids = jdbcTemplate.queryForList(FIND_EXPIRED, Long.class, now, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> expireChunk(ids, now));
+            expired += ids.size();
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        if (expired > 0) {
+            log.info("{} annonce(s) expirée(s)", expired);
+        }
+    }
+
+    private void expireChunk(List<Long> ids, LocalDateTime now) {
+        String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+
+        // Statut revérifié : une annonce acceptée entre-temps n'est pas touchée
+        List<Object> params = new ArrayList<>(ids.size() + 2);
+        params.add(now);
+        params.add(now);
+        params.addAll(ids);
+        jdbcTemplate.update("UPDATE service_requests SET statut = 'EXPIREE', updated_at = ? " +
+                "WHERE statut = 'PUBLIEE' AND expires_at <= ? AND id IN (" + in + ")", params.toArray());
+
+        params = new ArrayList<>(ids.size() + 1);
+        params.add(now);
+        params.addAll(ids);
+        jdbcTemplate.update("UPDATE applications SET statut = 'EXPIREE', responded_at = ? " +
+                "WHERE statut = 'EN_ATTENTE' AND service_request_id IN (SELECT id FROM service_requests " +
+                "WHERE statut = 'EXPIREE' AND id IN (" + in + "))", params.toArray());
+
+        // Retrait des index en mémoire après le commit du lot
+        eventPublisher.publishEvent(new ServiceRequestsExpiredEvent(ids));
+    }
+
+    /**
+     * Les annonces publiées sans date d'expiration reçoivent une durée complète à partir de maintenant
+     */
+    private void dateUndated(LocalDateTime now) {
+        for (Urgency urgence : Urgency.values()) {
+            LocalDateTime expiresAt = expiresAt(urgence, now);
+            int updated;
+            do {
+                updated = jdbcTemplate.update(DATE_UNDATED, expiresAt, urgence.name(), chunkSize);
+            } while (updated >= chunkSize);
+        }
+    }
+}
@@ -1,22 +1,41 @@
 package com.home.services.service;
 
+import com.home.services.dto.request.KeysetCursor;
 import com.home.services.dto.request.ServiceRequestDto;
+import com.home.services.dto.response.ClientDashboardResponse;
+import com.home.services.dto.response.ClientRequestSummaryResponse;
+import com.home.services.dto.response.CursorPageResponse;
 import com.home.services.dto.response.ServiceRequestResponse;
+import com.home.services.dto.response.ServiceRequestSummaryResponse;
+import com.home.services.event.ServiceRequestChangedEvent;
+import com.home.services.event.ServiceRequestPublishedEvent;
 import com.home.services.exception.ResourceNotFoundException;
 import com.home.services.model.Category;
 import com.home.services.model.ServiceRequest;
 import com.home.services.model.User;
+import com.home.services.model.enums.ApplicationStatus;
 import com.home.services.model.enums.RequestStatus;
 import com.home.services.model.enums.Urgency;
+import com.home.services.repository.ApplicationRepository;
 import com.home.services.repository.CategoryRepository;
 import com.home.services.repository.ServiceRequestRepository;
 import com.home.services.repository.UserRepository;
+import com.home.services.search.ServiceRequestFilterIndex;
+import com.home.services.search.ServiceRequestSearchIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * Service pour la gestion des annonces de services
@@ -25,9 +44,20 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ServiceRequestService {
 
+    private static final int DEFAULT_FEED_SIZE = 20;
+    private static final int MAX_FEED_SIZE = 50;
+    private static final int MIN_SEARCH_LENGTH = 2;
+    // Borne de départ du fil en base (première page) : postérieure à toute annonce
+    private static final LocalDateTime FEED_START = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final ServiceRequestRepository serviceRequestRepository;
+    private final ApplicationRepository applicationRepository;
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ServiceRequestSearchIndex serviceRequestSearchIndex;
+    private final ServiceRequestFilterIndex serviceRequestFilterIndex;
+    private final ServiceRequestExpiryService serviceRequestExpiryService;
 
     /**
      * Créer une nouvelle annonce
@@ -54,8 +84,17 @@ public class ServiceRequestService {
                 .statut(Boolean.TRUE.equals(dto.getPublier()) ? RequestStatus.PUBLIEE : RequestStatus.BROUILLON)
                 .nombreCandidatures(0)
                 .build();
+        if (request.getStatut() == RequestStatus.PUBLIEE) {
+            request.setExpiresAt(serviceRequestExpiryService.expiresAt(request.getUrgence(), LocalDateTime.now()));
+        }
 
         request = serviceRequestRepository.save(request);
+        eventPublisher.publishEvent(new ServiceRequestChangedEvent(request.getId()));
+
+        if (request.getStatut() == RequestStatus.PUBLIEE) {
+            publishPublished(request);
+        }
+
         return toResponse(request, true);
     }
 
@@ -97,15 +136,31 @@ public class ServiceRequestService {
             request.setBudgetMax(dto.getBudgetMax());
         if (dto.getDatePrestation() != null)
             request.setDatePrestation(dto.getDatePrestation());
-        if (dto.getUrgence() != null)
+        if (dto.getUrgence() != null && dto.getUrgence() != request.getUrgence()) {
+            // La durée de publication dépend de l'urgence
+            if (request.getStatut() == RequestStatus.PUBLIEE) {
+                request.setExpiresAt(serviceRequestExpiryService.rescheduled(request.getExpiresAt(),
+                        request.getUrgence(), dto.getUrgence()));
+            }
             request.setUrgence(dto.getUrgence());
+        }
 
-        // Publier si demandé
-        if (Boolean.TRUE.equals(dto.getPublier()) && request.getStatut() == RequestStatus.BROUILLON) {
+        // Publier si demandé (une annonce expirée peut être republiée pour une nouvelle durée)
+        boolean published = false;
+        if (Boolean.TRUE.equals(dto.getPublier()) && (request.getStatut() == RequestStatus.BROUILLON
+                || request.getStatut() == RequestStatus.EXPIREE)) {
             request.setStatut(RequestStatus.PUBLIEE);
+            request.setExpiresAt(serviceRequestExpiryService.expiresAt(request.getUrgence(), LocalDateTime.now()));
+            published = true;
         }
 
         request = serviceRequestRepository.save(request);
+        eventPublisher.publishEvent(new ServiceRequestChangedEvent(request.getId()));
+
+        if (published) {
+            publishPublished(request);
+        }
+
         return toResponse(request, true);
     }
 
@@ -127,13 +182,15 @@ public class ServiceRequestService {
 
         request.setStatut(RequestStatus.ANNULEE);
         serviceRequestRepository.save(request);
+        eventPublisher.publishEvent(new ServiceRequestChangedEvent(request.getId()));
     }
 
     /**
      * Obtenir une annonce par ID
      */
+    @Transactional(readOnly = true)
     public ServiceRequestResponse getById(Long id, String userEmail) {
-        ServiceRequest request = serviceRequestRepository.findById(id)
+        ServiceRequest request = serviceRequestRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Annonce", "id", id));
 
         // L'adresse n'est visible que par le propriétaire ou le prestataire sélectionné
@@ -146,41 +203,173 @@ public class ServiceRequestService {
     /**
      * Lister les annonces d'un client
      */
-    public List<ServiceRequestResponse> getByClient(String userEmail) {
+    public List<ServiceRequestSummaryResponse> getByClient(String userEmail) {
         User client = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "email", userEmail));
 
-        return serviceRequestRepository.findByClientIdOrderByCreatedAtDesc(client.getId())
-                .stream()
-                .map(r -> toResponse(r, true))
-                .collect(Collectors.toList());
+        // Projection : une requête quel que soit le nombre d'annonces (adresse visible, le client est propriétaire)
+        return serviceRequestRepository.findSummariesByClientId(client.getId());
     }
 
     /**
-     * Lister les annonces publiées (pour prestataires)
+     * Tableau de bord client : annonces (projection) et candidatures par annonce et statut (agrégat),
+     * soit deux requêtes quel que soit le nombre d'annonces
      */
-    public List<ServiceRequestResponse> getPublished(Long categoryId, String quartier) {
-        List<ServiceRequest> requests;
+    @Transactional(readOnly = true)
+    public ClientDashboardResponse getClientDashboard(String userEmail) {
+        User client = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "email", userEmail));
 
-        if (categoryId != null || quartier != null) {
-            requests = serviceRequestRepository.findByFilters(RequestStatus.PUBLIEE, categoryId, quartier);
-        } else {
-            requests = serviceRequestRepository.findByStatutOrderByCreatedAtDesc(RequestStatus.PUBLIEE);
+        List<ServiceRequestSummaryResponse> requests = serviceRequestRepository.findSummariesByClientId(client.getId());
+
+        // Décomptes par annonce : [en attente, acceptées, refusées]
+        Map<Long, long[]> counts = new HashMap<>();
+        long pending = 0;
+        long total = 0;
+        for (ApplicationRepository.RequestStatusCount count : applicationRepository
+                .countByClientIdGroupByRequestAndStatut(client.getId())) {
+            long[] perRequest = counts.computeIfAbsent(count.getServiceRequestId(), k -> new long[3]);
+            switch (count.getStatut()) {
+                case EN_ATTENTE -> {
+                    perRequest[0] = count.getTotal();
+                    pending += count.getTotal();
+                }
+                case ACCEPTEE -> perRequest[1] = count.getTotal();
+                case REFUSEE -> perRequest[2] = count.getTotal();
+                default -> {
+                }
+            }
+            if (count.getStatut() != ApplicationStatus.RETIREE) {
+                total += count.getTotal();
+            }
+        }
+
+        // Les décomptes par statut d'annonce se déduisent de la liste déjà chargée
+        Map<RequestStatus, Long> byStatut = new EnumMap<>(RequestStatus.class);
+        for (RequestStatus statut : RequestStatus.values()) {
+            byStatut.put(statut, 0L);
         }
+        List<ClientRequestSummaryResponse> items = new ArrayList<>(requests.size());
+        for (ServiceRequestSummaryResponse request : requests) {
+            byStatut.merge(request.getStatut(), 1L, Long::sum);
+            long[] perRequest = counts.getOrDefault(request.getId(), new long[3]);
+            items.add(ClientRequestSummaryResponse.builder()
+                    .request(request)
+                    .pendingApplications(perRequest[0])
+                    .acceptedApplications(perRequest[1])
+                    .rejectedApplications(perRequest[2])
+                    .build());
+        }
+
+        return ClientDashboardResponse.builder()
+                .requestsByStatut(byStatut)
+                .totalRequests((long) requests.size())
+                .pendingApplications(pending)
+                .totalApplications(total)
+                .requests(items)
+                .build();
+    }
+
+    /**
+     * Fil des annonces publiées (prestataires), le plus récent d'abord
+     * Servi par l'index bitmap en mémoire : toute combinaison de filtres, sans requête en base
+     * Tant que l'index n'est pas construit (démarrage, reconstruction en échec), le fil est lu en base
+     * par clé (created_at, id) ; les deux chemins suivent le même ordre et le même curseur
+     */
+    public CursorPageResponse<ServiceRequestSummaryResponse> getPublished(Long categoryId, String quartier,
+            Urgency urgence, BigDecimal budgetMin, String cursor, Integer limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = limit == null ? DEFAULT_FEED_SIZE : Math.max(1, Math.min(limit, MAX_FEED_SIZE));
+        String quartierFilter = quartier == null || quartier.isBlank() ? null : quartier.trim();
+
+        // Un élément de plus pour savoir s'il reste des annonces
+        List<ServiceRequestSummaryResponse> requests = serviceRequestFilterIndex.isLoaded()
+                ? serviceRequestFilterIndex.page(categoryId, quartierFilter, urgence, budgetMin,
+                        after != null ? after.getId() : null, pageSize + 1)
+                : findFeed(categoryId, quartierFilter, urgence, budgetMin, after, pageSize + 1);
 
-        return requests.stream()
-                .map(r -> toResponse(r, false)) // Pas d'adresse pour les non-propriétaires
-                .collect(Collectors.toList());
+        boolean hasMore = requests.size() > pageSize;
+        if (hasMore) {
+            requests = requests.subList(0, pageSize);
+        }
+        ServiceRequestSummaryResponse last = requests.isEmpty() ? null : requests.get(requests.size() - 1);
+
+        return CursorPageResponse.<ServiceRequestSummaryResponse>builder()
+                .items(requests)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? KeysetCursor.of(last.getCreatedAt(), last.getId()).encode() : null)
+                .build();
+    }
+
+    private List<ServiceRequestSummaryResponse> findFeed(Long categoryId, String quartier, Urgency urgence,
+            BigDecimal budgetMin, KeysetCursor after, int limit) {
+        LocalDateTime createdAt = after != null ? after.getCreatedAt() : FEED_START;
+        Long id = after != null ? after.getId() : Long.MAX_VALUE;
+        Pageable pageable = PageRequest.of(0, limit);
+        if (categoryId != null && quartier != null) {
+            return serviceRequestRepository.findFeedByCategoryAndQuartier(categoryId, quartier, urgence, budgetMin,
+                    createdAt, id, pageable);
+        }
+        if (categoryId != null) {
+            return serviceRequestRepository.findFeedByCategory(categoryId, urgence, budgetMin, createdAt, id,
+                    pageable);
+        }
+        if (quartier != null) {
+            return serviceRequestRepository.findFeedByQuartier(quartier, urgence, budgetMin, createdAt, id, pageable);
+        }
+        return serviceRequestRepository.findFeed(urgence, budgetMin, createdAt, id, pageable);
+    }
+
+    /**
+     * Rechercher dans les annonces publiées, les plus pertinentes d'abord
+     * Les filtres catégorie et quartier s'appliquent dans la même requête que le texte
+     */
+    public CursorPageResponse<ServiceRequestSummaryResponse> search(String query, Long categoryId, String quartier,
+            String cursor, Integer limit) {
+        String text = query == null ? "" : query.trim();
+        if (text.length() < MIN_SEARCH_LENGTH) {
+            throw new RuntimeException("La recherche doit contenir au moins " + MIN_SEARCH_LENGTH + " caractères");
+        }
+        int offset = decodeSearchCursor(cursor);
+        int pageSize = limit == null ? DEFAULT_FEED_SIZE : Math.max(1, Math.min(limit, MAX_FEED_SIZE));
+        String quartierFilter = quartier == null || quartier.isBlank() ? null : quartier.trim();
+
+        // Un élément de plus pour savoir s'il reste des résultats
+        List<ServiceRequestSummaryResponse> results = serviceRequestSearchIndex.search(text, categoryId,
+                quartierFilter, offset, pageSize + 1);
+        boolean hasMore = results.size() > pageSize;
+
+        return CursorPageResponse.<ServiceRequestSummaryResponse>builder()
+                .items(hasMore ? results.subList(0, pageSize) : results)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? String.valueOf(offset + pageSize) : null)
+                .build();
+    }
+
+    /**
+     * Le classement par pertinence n'a pas de clé stable : le curseur de recherche est un décalage
+     */
+    private int decodeSearchCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(cursor);
+            if (offset < 0) {
+                throw new NumberFormatException(cursor);
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Curseur de pagination invalide");
+        }
     }
 
     /**
-     * Rechercher par mot-clé
+     * Notifier les prestataires concernés d'une nouvelle annonce
      */
-    public List<ServiceRequestResponse> search(String keyword) {
-        return serviceRequestRepository.searchByKeyword(keyword)
-                .stream()
-                .map(r -> toResponse(r, false))
-                .collect(Collectors.toList());
+    private void publishPublished(ServiceRequest request) {
+        eventPublisher.publishEvent(new ServiceRequestPublishedEvent(request.getId(), request.getTitre(),
+                request.getCategory().getId(), request.getQuartier()));
     }
 
     /**
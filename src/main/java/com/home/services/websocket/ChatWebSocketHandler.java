@@ -0,0 +1,177 @@
+package com.home.services.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.home.services.cache.HotConversationCache;
+import com.home.services.dto.response.MessageResponse;
+import com.home.services.event.MessageSentEvent;
+import com.home.services.model.User;
+import com.home.services.repository.UserRepository;
+import com.home.services.service.PresenceRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Transport WebSocket de la messagerie
+ * Pousse chaque nouveau message aux deux participants dès le commit de l'envoi
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String USER_ID_ATTRIBUTE = "userId";
+    private static final String OUTBOUND_ATTRIBUTE = "outbound";
+    private static final int SEND_TIME_LIMIT_MS = 5000;
+    private static final int BUFFER_SIZE_LIMIT = 64 * 1024;
+    private static final String TYPING_PREFIX = "typing:";
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final PresenceRegistry presenceRegistry;
+    private final HotConversationCache hotCache;
+
+    // Sessions ouvertes par utilisateur (plusieurs onglets possibles)
+    private final Map<Long, Set<WebSocketSession>> sessionsByUser = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        // La poignée de main a été authentifiée par JwtAuthenticationFilter
+        Long userId = session.getPrincipal() == null ? null
+                : userRepository.findByEmail(session.getPrincipal().getName()).map(User::getId).orElse(null);
+
+        if (userId == null) {
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+
+        // Les envois concurrents sur une même session doivent être sérialisés
+        WebSocketSession outbound = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS,
+                BUFFER_SIZE_LIMIT);
+        session.getAttributes().put(USER_ID_ATTRIBUTE, userId);
+        session.getAttributes().put(OUTBOUND_ATTRIBUTE, outbound);
+        sessionsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(outbound);
+        presenceRegistry.touch(userId);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        // Keep-alive et indicateur de saisie uniquement, l'envoi passe par POST /api/messages
+        WebSocketSession outbound = (WebSocketSession) session.getAttributes().get(OUTBOUND_ATTRIBUTE);
+        Long userId = (Long) session.getAttributes().get(USER_ID_ATTRIBUTE);
+        if (outbound == null || userId == null) {
+            return;
+        }
+        String payload = message.getPayload();
+        if ("ping".equals(payload)) {
+            presenceRegistry.touch(userId);
+            outbound.sendMessage(new TextMessage("pong"));
+        } else if (payload.startsWith(TYPING_PREFIX)) {
+            onTyping(userId, payload.substring(TYPING_PREFIX.length()));
+        }
+    }
+
+    /**
+     * Enregistrer la saisie et la signaler à l'autre participant
+     * La participation est vérifiée sans charger la conversation dans le cache
+     */
+    private void onTyping(Long userId, String rawApplicationId) {
+        Long applicationId;
+        try {
+            applicationId = Long.valueOf(rawApplicationId);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        Long otherUserId = hotCache.otherParticipant(applicationId, userId);
+        if (otherUserId == null) {
+            return;
+        }
+
+        presenceRegistry.typing(userId, applicationId);
+        try {
+            send(otherUserId, new TextMessage(objectMapper.writeValueAsString(Map.of("type", "typing",
+                    "data", Map.of("applicationId", applicationId, "userId", userId)))));
+        } catch (IOException e) {
+            log.error("Impossible de sérialiser l'indicateur de saisie", e);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Long userId = (Long) session.getAttributes().get(USER_ID_ATTRIBUTE);
+        if (userId == null) {
+            return;
+        }
+        Set<WebSocketSession> remaining = sessionsByUser.computeIfPresent(userId, (id, sessions) -> {
+            sessions.removeIf(s -> s.getId().equals(session.getId()));
+            return sessions.isEmpty() ? null : sessions;
+        });
+        if (remaining == null) {
+            presenceRegistry.offline(userId);
+        }
+    }
+
+    /**
+     * Diffuser un message aux participants une fois la transaction validée
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        MessageResponse message = event.getMessage();
+        push(event.getClientId(), message);
+        if (!event.getProviderId().equals(event.getClientId())) {
+            push(event.getProviderId(), message);
+        }
+    }
+
+    private void push(Long userId, MessageResponse message) {
+        if (!sessionsByUser.containsKey(userId)) {
+            return;
+        }
+
+        TextMessage frame;
+        try {
+            MessageResponse view = MessageResponse.builder()
+                    .id(message.getId())
+                    .applicationId(message.getApplicationId())
+                    .senderId(message.getSenderId())
+                    .senderNom(message.getSenderNom())
+                    .isOwnMessage(message.getSenderId().equals(userId))
+                    .content(message.getContent())
+                    .isRead(message.getIsRead())
+                    .createdAt(message.getCreatedAt())
+                    .readAt(message.getReadAt())
+                    .build();
+            frame = new TextMessage(objectMapper.writeValueAsString(Map.of("type", "message", "data", view)));
+        } catch (IOException e) {
+            log.error("Impossible de sérialiser le message {}", message.getId(), e);
+            return;
+        }
+        send(userId, frame);
+    }
+
+    private void send(Long userId, TextMessage frame) {
+        Set<WebSocketSession> sessions = sessionsByUser.get(userId);
+        if (sessions == null) {
+            return;
+        }
+        for (WebSocketSession session : sessions) {
+            try {
+                session.sendMessage(frame);
+            } catch (Exception e) {
+                // Le client retombera sur le polling
+                log.debug("Envoi WebSocket impossible pour l'utilisateur {}", userId, e);
+            }
+        }
+    }
+}
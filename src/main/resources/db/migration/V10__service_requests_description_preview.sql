@@ -0,0 +1,9 @@
+-- Flyway migration: aperçu de description stocké pour les listes d'annonces
+-- Les listes ne lisent plus la colonne TEXT (hors ligne / TOAST sur PostgreSQL)
+
+ALTER TABLE service_requests ADD COLUMN description_preview VARCHAR(163);
+
+UPDATE service_requests SET description_preview = CASE
+    WHEN CHAR_LENGTH(description) > 160 THEN SUBSTRING(description FROM 1 FOR 160) || '...'
+    ELSE description
+END;
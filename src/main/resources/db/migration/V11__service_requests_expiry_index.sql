@@ -0,0 +1,3 @@
+-- Flyway migration: recherche des annonces publiées arrivées à expiration
+
+CREATE INDEX idx_service_requests_expiry ON service_requests (statut, expires_at, id);
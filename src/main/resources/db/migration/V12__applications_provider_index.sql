@@ -0,0 +1,5 @@
+-- Flyway migration: index du tableau de bord prestataire
+-- (provider_id, statut) : décompte par statut sans lire la table ; (provider_id, created_at, id) : pagination par clé
+
+CREATE INDEX idx_applications_provider_statut_created ON applications (provider_id, statut, created_at, id);
+CREATE INDEX idx_applications_provider_created ON applications (provider_id, created_at, id);
@@ -0,0 +1,5 @@
+-- Flyway migration: index du tableau de bord client
+-- Annonces d'un client (plus récentes d'abord) et décompte des candidatures par annonce et statut
+
+CREATE INDEX idx_service_requests_client_created ON service_requests (client_id, created_at, id);
+CREATE INDEX idx_applications_request_statut ON applications (service_request_id, statut);
@@ -0,0 +1,28 @@
+-- Flyway migration: sommes et nombres de notes (globale et sous-notes) tenus à jour à chaque avis
+
+ALTER TABLE provider_profiles ADD COLUMN somme_notes BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE provider_profiles ADD COLUMN somme_qualite BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE provider_profiles ADD COLUMN nombre_qualite INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE provider_profiles ADD COLUMN somme_ponctualite BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE provider_profiles ADD COLUMN nombre_ponctualite INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE provider_profiles ADD COLUMN somme_communication BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE provider_profiles ADD COLUMN nombre_communication INTEGER NOT NULL DEFAULT 0;
+
+-- Initialisation depuis les avis existants
+UPDATE provider_profiles p SET
+    nombre_avis = (SELECT COUNT(*) FROM reviews r WHERE r.provider_id = p.user_id),
+    somme_notes = (SELECT COALESCE(SUM(r.note), 0) FROM reviews r WHERE r.provider_id = p.user_id),
+    somme_qualite = (SELECT COALESCE(SUM(r.note_qualite), 0) FROM reviews r WHERE r.provider_id = p.user_id),
+    nombre_qualite = (SELECT COUNT(r.note_qualite) FROM reviews r WHERE r.provider_id = p.user_id),
+    somme_ponctualite = (SELECT COALESCE(SUM(r.note_ponctualite), 0) FROM reviews r WHERE r.provider_id = p.user_id),
+    nombre_ponctualite = (SELECT COUNT(r.note_ponctualite) FROM reviews r WHERE r.provider_id = p.user_id),
+    somme_communication = (SELECT COALESCE(SUM(r.note_communication), 0) FROM reviews r
+        WHERE r.provider_id = p.user_id),
+    nombre_communication = (SELECT COUNT(r.note_communication) FROM reviews r WHERE r.provider_id = p.user_id);
+
+UPDATE provider_profiles SET note_globale = CASE WHEN nombre_avis > 0
+    THEN CAST(somme_notes AS DOUBLE PRECISION) / nombre_avis ELSE 0 END;
+
+ALTER TABLE provider_profiles ALTER COLUMN nombre_avis SET NOT NULL;
+
+CREATE INDEX idx_reviews_provider ON reviews (provider_id);
@@ -0,0 +1,4 @@
+-- Flyway migration: avis d'un prestataire paginés par clé (created_at, id) ; remplace l'index sur provider_id seul
+
+CREATE INDEX idx_reviews_provider_created ON reviews (provider_id, created_at, id);
+DROP INDEX idx_reviews_provider;
@@ -0,0 +1,47 @@
+-- Flyway migration: read model des conversations (une ligne par candidature acceptée)
+
+CREATE TABLE conversations (
+    id BIGSERIAL PRIMARY KEY,
+    application_id BIGINT NOT NULL UNIQUE REFERENCES applications(id) ON DELETE CASCADE,
+    client_id BIGINT NOT NULL REFERENCES users(id),
+    provider_id BIGINT NOT NULL REFERENCES users(id),
+    request_titre VARCHAR(200) NOT NULL,
+    last_message_id BIGINT,
+    last_message_sender_id BIGINT,
+    last_message_preview VARCHAR(100),
+    last_message_at TIMESTAMP WITHOUT TIME ZONE,
+    client_unread_count INTEGER NOT NULL DEFAULT 0,
+    provider_unread_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_conversations_client_last ON conversations (client_id, last_message_at DESC);
+CREATE INDEX idx_conversations_provider_last ON conversations (provider_id, last_message_at DESC);
+
+-- Reprise des conversations existantes
+INSERT INTO conversations (application_id, client_id, provider_id, request_titre, last_message_at)
+SELECT a.id, sr.client_id, a.provider_id, sr.titre, COALESCE(a.responded_at, a.updated_at)
+FROM applications a
+JOIN service_requests sr ON sr.id = a.service_request_id
+WHERE a.statut = 'ACCEPTEE';
+
+UPDATE conversations c
+SET last_message_id = (SELECT MAX(m.id) FROM messages m WHERE m.application_id = c.application_id);
+
+UPDATE conversations c
+SET last_message_sender_id = (SELECT m.sender_id FROM messages m WHERE m.id = c.last_message_id),
+    last_message_at = (SELECT m.created_at FROM messages m WHERE m.id = c.last_message_id),
+    last_message_preview = (SELECT CASE WHEN LENGTH(m.content) > 50
+                                        THEN SUBSTRING(m.content, 1, 50) || '...'
+                                        ELSE m.content END
+                            FROM messages m WHERE m.id = c.last_message_id)
+WHERE c.last_message_id IS NOT NULL;
+
+UPDATE conversations c
+SET client_unread_count = (SELECT COUNT(*) FROM messages m
+                           WHERE m.application_id = c.application_id
+                             AND m.sender_id <> c.client_id AND m.is_read = FALSE),
+    provider_unread_count = (SELECT COUNT(*) FROM messages m
+                             WHERE m.application_id = c.application_id
+                               AND m.sender_id <> c.provider_id AND m.is_read = FALSE);
@@ -0,0 +1,3 @@
+-- Flyway migration: index pour la pagination par clé de l'historique des conversations
+
+CREATE INDEX idx_messages_application_created ON messages (application_id, created_at, id);
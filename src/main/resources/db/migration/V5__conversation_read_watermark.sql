@@ -0,0 +1,17 @@
+-- Flyway migration: état de lecture par participant (dernier message lu) au lieu de messages.is_read
+
+ALTER TABLE conversations ADD COLUMN client_last_read_message_id BIGINT;
+ALTER TABLE conversations ADD COLUMN client_last_read_at TIMESTAMP WITHOUT TIME ZONE;
+ALTER TABLE conversations ADD COLUMN provider_last_read_message_id BIGINT;
+ALTER TABLE conversations ADD COLUMN provider_last_read_at TIMESTAMP WITHOUT TIME ZONE;
+
+-- Reprise depuis les indicateurs is_read existants
+UPDATE conversations c
+SET client_last_read_message_id = (SELECT MAX(m.id) FROM messages m
+        WHERE m.application_id = c.application_id AND m.sender_id <> c.client_id AND m.is_read = TRUE),
+    client_last_read_at = (SELECT MAX(m.read_at) FROM messages m
+        WHERE m.application_id = c.application_id AND m.sender_id <> c.client_id AND m.is_read = TRUE),
+    provider_last_read_message_id = (SELECT MAX(m.id) FROM messages m
+        WHERE m.application_id = c.application_id AND m.sender_id <> c.provider_id AND m.is_read = TRUE),
+    provider_last_read_at = (SELECT MAX(m.read_at) FROM messages m
+        WHERE m.application_id = c.application_id AND m.sender_id <> c.provider_id AND m.is_read = TRUE);
@@ -0,0 +1,6 @@
+-- Flyway migration: index du fil des annonces publiées (pagination par clé created_at, id)
+
+CREATE INDEX idx_service_requests_feed ON service_requests (statut, category_id, quartier, created_at, id);
+
+-- Fil sans filtre de catégorie
+CREATE INDEX idx_service_requests_statut_created ON service_requests (statut, created_at, id);
@@ -77,6 +77,12 @@ const ApiClient = {
 
         try {
             const response = await fetch(url, config);
+
+            // Pas de contenu (ex: synchronisation sans changement)
+            if (response.status === 204) {
+                return { success: true, data: null, status: 204, headers: response.headers };
+            }
+
             const data = await response.json();
 
             if (!response.ok) {
@@ -415,6 +421,84 @@ const MessageService = {
     }
 };
 
+// ============================================
+// Event Stream (Server-Sent Events)
+// ============================================
+
+// Types publiés par le serveur : leur id est retenu pour la reprise, même sans handler
+const EVENT_TYPES = ['APPLICATION_RECEIVED', 'APPLICATION_ACCEPTED', 'APPLICATION_REJECTED',
+    'UNREAD_COUNT', 'REQUEST_PUBLISHED', 'RESYNC'];
+
+const EventStream = {
+    source: null,
+    handlers: {},
+    lastEventId: null,
+    opening: false,
+    reconnectTimer: null,
+
+    // handlers: { UNREAD_COUNT: data => ..., APPLICATION_RECEIVED: data => ... }
+    connect(handlers = {}) {
+        if (!('EventSource' in window) || !TokenManager.isAuthenticated()) return;
+        Object.entries(handlers).forEach(([type, handler]) => {
+            (this.handlers[type] = this.handlers[type] || []).push(handler);
+            if (this.source) this.listen(this.source, type, handler);
+        });
+        if (!this.source && !this.opening && !this.reconnectTimer) this.open();
+    },
+
+    // Le ticket ne sert qu'une fois : chaque (re)connexion en demande un nouveau
+    // et transmet elle-même le dernier id reçu (le JWT ne passe jamais dans l'URL)
+    async open() {
+        this.opening = true;
+        try {
+            const response = await ApiClient.post('/events/ticket');
+            const params = new URLSearchParams({ ticket: response.data.ticket });
+            if (this.lastEventId) params.set('lastEventId', this.lastEventId);
+
+            const source = new EventSource(`${API_BASE_URL}/events/stream?${params}`);
+            EVENT_TYPES.forEach(type => source.addEventListener(type, event => {
+                if (event.lastEventId) this.lastEventId = event.lastEventId;
+            }));
+            Object.entries(this.handlers).forEach(([type, list]) => list.forEach(handler => this.listen(source, type, handler)));
+            // La reconnexion automatique d'EventSource réutiliserait le ticket consommé
+            source.onerror = () => {
+                source.close();
+                if (this.source === source) {
+                    this.source = null;
+                    this.scheduleReconnect();
+                }
+            };
+            this.source = source;
+        } catch (error) {
+            this.scheduleReconnect();
+        } finally {
+            this.opening = false;
+        }
+    },
+
+    listen(source, type, handler) {
+        source.addEventListener(type, event => handler(JSON.parse(event.data)));
+    },
+
+    scheduleReconnect() {
+        if (this.reconnectTimer || !TokenManager.isAuthenticated()) return;
+        this.reconnectTimer = setTimeout(() => {
+            this.reconnectTimer = null;
+            this.open();
+        }, 3000);
+    },
+
+    close() {
+        clearTimeout(this.reconnectTimer);
+        this.reconnectTimer = null;
+        this.handlers = {};
+        if (this.source) {
+            this.source.close();
+            this.source = null;
+        }
+    }
+};
+
 // Export for use in other files
 window.TokenManager = TokenManager;
 window.ApiClient = ApiClient;
@@ -424,6 +508,7 @@ window.ServiceRequestService = ServiceRequestService;
 window.ProviderService = ProviderService;
 window.StatsService = StatsService;
 window.MessageService = MessageService;
+window.EventStream = EventStream;
 window.UI = UI;
 window.Validators = Validators;
 window.AuthGuard = AuthGuard;
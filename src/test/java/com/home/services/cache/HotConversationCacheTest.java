@@ -0,0 +1,225 @@
+package com.home.services.cache;
+
+import com.home.services.dto.response.MessagePageResponse;
+import com.home.services.dto.response.MessageResponse;
+import com.home.services.event.MessageSentEvent;
+import com.home.services.exception.ResourceNotFoundException;
+import com.home.services.model.Application;
+import com.home.services.model.Category;
+import com.home.services.model.Conversation;
+import com.home.services.model.Message;
+import com.home.services.model.ServiceRequest;
+import com.home.services.model.User;
+import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.model.enums.RequestStatus;
+import com.home.services.model.enums.Role;
+import com.home.services.repository.ApplicationRepository;
+import com.home.services.repository.CategoryRepository;
+import com.home.services.repository.ConversationRepository;
+import com.home.services.repository.MessageRepository;
+import com.home.services.repository.ServiceRequestRepository;
+import com.home.services.repository.UserRepository;
+import com.home.services.service.MessageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Contrôle d'accès avant toute lecture du cache, ajout des messages envoyés et éviction au budget
+ * Segments de 1 Ko et budget de 2 Ko : une conversation de longs messages suffit à le dépasser
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:hotcache;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.messages.hot-cache.dir=${java.io.tmpdir}/home-services-hot-cache-test",
+        "app.messages.hot-cache.segment-bytes=1024",
+        "app.messages.hot-cache.max-bytes=2048",
+        "app.messages.hot-cache.messages-per-conversation=5"
+})
+@ActiveProfiles("test")
+public class HotConversationCacheTest {
+
+    @Autowired
+    private HotConversationCache hotCache;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    private int sequence;
+
+    @Test
+    public void nonParticipantIsRejectedBeforeTheCacheIsLoaded() {
+        User client = saveUser("client_hot_authz@test.com", Role.CLIENT);
+        User provider = saveUser("provider_hot_authz@test.com", Role.PRESTATAIRE);
+        User outsider = saveUser("outsider_hot_authz@test.com", Role.PRESTATAIRE);
+        Application application = conversation(client, provider);
+        saveMessage(application, client, "Bonjour");
+
+        assertThatThrownBy(() -> messageService.getConversation(application.getId(), outsider.getEmail(),
+                null, null, null))
+                .hasMessageContaining("pas autorisé");
+        assertThat(hotCache.isCached(application.getId())).isFalse();
+
+        assertThatThrownBy(() -> messageService.getConversation(-1L, client.getEmail(), null, null, null))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        MessagePageResponse page = messageService.getConversation(application.getId(), provider.getEmail(),
+                null, null, null);
+        assertThat(page.getMessages()).extracting(MessageResponse::getContent).containsExactly("Bonjour");
+        assertThat(hotCache.isCached(application.getId())).isTrue();
+
+        // Conversation déjà en cache : le contrôle reste fait avant de la servir
+        assertThatThrownBy(() -> messageService.getConversation(application.getId(), outsider.getEmail(),
+                null, null, null))
+                .hasMessageContaining("pas autorisé");
+        assertThat(hotCache.otherParticipant(application.getId(), outsider.getId())).isNull();
+        assertThat(hotCache.otherParticipant(application.getId(), client.getId())).isEqualTo(provider.getId());
+    }
+
+    @Test
+    public void sentMessagesAreAppendedWithinTheWindow() {
+        User client = saveUser("client_hot_append@test.com", Role.CLIENT);
+        User provider = saveUser("provider_hot_append@test.com", Role.PRESTATAIRE);
+        Application application = conversation(client, provider);
+        saveMessage(application, client, "Message 1");
+        saveMessage(application, provider, "Message 2");
+
+        HotConversationCache.HotPage loaded = hotCache.page(application.getId(), 50);
+        assertThat(loaded.messages()).extracting(MessageResponse::getContent)
+                .containsExactly("Message 1", "Message 2");
+        assertThat(loaded.hasOlder()).isFalse();
+
+        List<Message> sent = new ArrayList<>();
+        for (int i = 3; i <= 6; i++) {
+            Message message = saveMessage(application, i % 2 == 0 ? provider : client, "Message " + i);
+            sent.add(message);
+            hotCache.onMessageSent(sentEvent(message, client, provider));
+        }
+        // Livraison en double : ignorée
+        hotCache.onMessageSent(sentEvent(sent.get(3), client, provider));
+
+        HotConversationCache.HotPage page = hotCache.page(application.getId(), 50);
+        assertThat(page.messages()).extracting(MessageResponse::getContent)
+                .containsExactly("Message 2", "Message 3", "Message 4", "Message 5", "Message 6");
+        assertThat(page.lastMessageId()).isEqualTo(sent.get(3).getId());
+        // Fenêtre de 5 messages : le premier en est sorti
+        assertThat(page.hasOlder()).isTrue();
+
+        HotConversationCache.HotPage latest = hotCache.page(application.getId(), 2);
+        assertThat(latest.messages()).extracting(MessageResponse::getContent)
+                .containsExactly("Message 5", "Message 6");
+        assertThat(latest.hasOlder()).isTrue();
+    }
+
+    @Test
+    public void leastRecentlyReadConversationIsEvictedOverBudget() {
+        User client = saveUser("client_hot_evict@test.com", Role.CLIENT);
+        User provider = saveUser("provider_hot_evict@test.com", Role.PRESTATAIRE);
+        Application first = conversation(client, provider);
+        Application second = conversation(client, provider);
+        for (int i = 1; i <= 5; i++) {
+            saveMessage(first, client, "A" + i + " " + "a".repeat(400));
+            saveMessage(second, provider, "B" + i + " " + "b".repeat(400));
+        }
+
+        assertThat(hotCache.page(first.getId(), 50).messages()).hasSize(5);
+        assertThat(hotCache.isCached(first.getId())).isTrue();
+
+        // Cinq messages de plus de 400 octets dépassent à eux seuls le budget de 2 Ko
+        assertThat(hotCache.page(second.getId(), 50).messages()).hasSize(5);
+        assertThat(hotCache.isCached(second.getId())).isTrue();
+        assertThat(hotCache.isCached(first.getId())).isFalse();
+
+        // Les segments des conversations évincées sont libérés : seuls ceux de la seconde restent
+        // (un enregistrement de plus de 512 octets par segment de 1 Ko)
+        assertThat(hotCache.segmentCount()).isLessThanOrEqualTo(5);
+
+        // Rechargée depuis la base à la lecture suivante, à l'identique
+        HotConversationCache.HotPage reloaded = hotCache.page(first.getId(), 50);
+        assertThat(reloaded.messages()).extracting(m -> m.getContent().substring(0, 2))
+                .containsExactly("A1", "A2", "A3", "A4", "A5");
+        assertThat(hotCache.isCached(second.getId())).isFalse();
+    }
+
+    private MessageSentEvent sentEvent(Message message, User client, User provider) {
+        return new MessageSentEvent(MessageResponse.builder()
+                .id(message.getId())
+                .applicationId(message.getApplication().getId())
+                .senderId(message.getSender().getId())
+                .senderNom(message.getSender().getNom())
+                .content(message.getContent())
+                .createdAt(message.getCreatedAt())
+                .build(), client.getId(), provider.getId());
+    }
+
+    private Message saveMessage(Application application, User sender, String content) {
+        return messageRepository.save(Message.builder()
+                .application(application)
+                .sender(sender)
+                .content(content)
+                .build());
+    }
+
+    private Application conversation(User client, User provider) {
+        int n = ++sequence;
+        Category category = categoryRepository.save(Category.builder()
+                .nom("Catégorie cache " + n + " " + client.getId())
+                .icone("🔧")
+                .active(true)
+                .build());
+        ServiceRequest request = serviceRequestRepository.save(ServiceRequest.builder()
+                .client(client)
+                .category(category)
+                .titre("Annonce " + n)
+                .description("Annonce avec conversation " + n)
+                .quartier("Cocody")
+                .statut(RequestStatus.EN_COURS)
+                .selectedProvider(provider)
+                .build());
+        Application application = applicationRepository.save(Application.builder()
+                .serviceRequest(request)
+                .provider(provider)
+                .statut(ApplicationStatus.ACCEPTEE)
+                .build());
+        conversationRepository.save(Conversation.builder()
+                .application(application)
+                .client(client)
+                .provider(provider)
+                .requestTitre(request.getTitre())
+                .build());
+        return application;
+    }
+
+    private User saveUser(String email, Role role) {
+        return userRepository.save(User.builder()
+                .nom("Utilisateur " + email.substring(0, email.indexOf('@')))
+                .email(email)
+                .password("Password123")
+                .role(role)
+                .build());
+    }
+}
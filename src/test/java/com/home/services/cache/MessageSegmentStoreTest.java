@@ -0,0 +1,92 @@
+package com.home.services.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ajout, lecture et libération des enregistrements ; suppression des segments vides
+ */
+public class MessageSegmentStoreTest {
+
+    private static final int SEGMENT_BYTES = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void recordsAreReadBackFromTheirSegment() {
+        MessageSegmentStore store = new MessageSegmentStore(directory, SEGMENT_BYTES);
+
+        MessageSegmentStore.Ref first = store.append(bytes("premier"));
+        MessageSegmentStore.Ref second = store.append(bytes("second"));
+
+        assertThat(new String(store.read(first), StandardCharsets.UTF_8)).isEqualTo("premier");
+        assertThat(new String(store.read(second), StandardCharsets.UTF_8)).isEqualTo("second");
+        assertThat(store.segmentCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void releasedSegmentIsUnmappedAndDeleted() throws IOException {
+        MessageSegmentStore store = new MessageSegmentStore(directory, SEGMENT_BYTES);
+
+        MessageSegmentStore.Ref old = store.append(new byte[40]);
+        MessageSegmentStore.Ref kept = store.append(bytes("x".repeat(40)));
+        assertThat(store.segmentCount()).isEqualTo(2);
+        assertThat(segmentFiles()).isEqualTo(2);
+
+        store.release(old);
+
+        // Le budget ne compte plus le segment libéré, qui n'est plus lisible
+        assertThat(store.segmentCount()).isEqualTo(1);
+        assertThat(store.mappedBytes()).isEqualTo(SEGMENT_BYTES);
+        assertThat(segmentFiles()).isEqualTo(1);
+        assertThat(store.read(old)).isNull();
+        assertThat(new String(store.read(kept), StandardCharsets.UTF_8)).isEqualTo("x".repeat(40));
+    }
+
+    @Test
+    public void emptyCurrentSegmentIsDeletedWhenTheNextOneOpens() throws IOException {
+        MessageSegmentStore store = new MessageSegmentStore(directory, SEGMENT_BYTES);
+
+        store.release(store.append(new byte[40]));
+        // Segment courant conservé tant qu'il reçoit des ajouts
+        assertThat(store.segmentCount()).isEqualTo(1);
+
+        store.append(new byte[40]);
+
+        assertThat(store.segmentCount()).isEqualTo(1);
+        assertThat(segmentFiles()).isEqualTo(1);
+    }
+
+    @Test
+    public void storesSharingADirectoryDoNotCollide() {
+        MessageSegmentStore first = new MessageSegmentStore(directory, SEGMENT_BYTES);
+        MessageSegmentStore second = new MessageSegmentStore(directory, SEGMENT_BYTES);
+
+        MessageSegmentStore.Ref a = first.append(bytes("a".repeat(40)));
+        MessageSegmentStore.Ref b = second.append(bytes("b".repeat(40)));
+        first.append(new byte[40]);
+        second.append(new byte[40]);
+
+        assertThat(new String(first.read(a), StandardCharsets.UTF_8)).isEqualTo("a".repeat(40));
+        assertThat(new String(second.read(b), StandardCharsets.UTF_8)).isEqualTo("b".repeat(40));
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
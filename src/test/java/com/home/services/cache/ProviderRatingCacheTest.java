@@ -0,0 +1,116 @@
+package com.home.services.cache;
+
+import com.home.services.dto.response.ProviderRatingSummaryResponse;
+import com.home.services.event.ReviewCreatedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProviderRatingCacheTest {
+
+    @Test
+    public void summaryIsLoadedOnceThenServedFromMemory() {
+        ProviderRatingCache cache = new ProviderRatingCache(100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, counting(1L, loads));
+        ProviderRatingSummaryResponse second = cache.get(1L, counting(1L, loads));
+
+        assertThat(loads).hasValue(1);
+        assertThat(second.getProviderId()).isEqualTo(1L);
+    }
+
+    @Test
+    public void newReviewInvalidatesOnlyThatProvider() {
+        ProviderRatingCache cache = new ProviderRatingCache(100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, counting(1L, loads));
+        cache.get(2L, counting(2L, loads));
+
+        cache.onReviewCreated(new ReviewCreatedEvent(1L));
+        cache.get(1L, counting(1L, loads));
+        cache.get(2L, counting(2L, loads));
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    public void summaryLoadedAcrossAnInvalidationIsNotCached() {
+        ProviderRatingCache cache = new ProviderRatingCache(100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        // Un avis est validé pendant le calcul : le résultat peut l'avoir manqué
+        ProviderRatingSummaryResponse stale = cache.get(1L, () -> {
+            loads.incrementAndGet();
+            cache.onReviewCreated(new ReviewCreatedEvent(1L));
+            return summary(1L, 4.0);
+        });
+        ProviderRatingSummaryResponse fresh = cache.get(1L, () -> {
+            loads.incrementAndGet();
+            return summary(1L, 4.5);
+        });
+
+        assertThat(stale.getNoteGlobale()).isEqualTo(4.0);
+        assertThat(fresh.getNoteGlobale()).isEqualTo(4.5);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void clearInvalidatesEverything() {
+        ProviderRatingCache cache = new ProviderRatingCache(100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, counting(1L, loads));
+        cache.get(2L, counting(2L, loads));
+
+        cache.clear();
+        cache.get(1L, counting(1L, loads));
+        cache.get(2L, counting(2L, loads));
+
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    public void leastRecentlyReadEntryIsEvictedBeyondTheBound() {
+        ProviderRatingCache cache = new ProviderRatingCache(2, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, counting(1L, loads));
+        cache.get(2L, counting(2L, loads));
+        cache.get(1L, counting(1L, loads));
+
+        cache.get(3L, counting(3L, loads));
+        assertThat(loads).hasValue(3);
+
+        cache.get(1L, counting(1L, loads));
+        assertThat(loads).hasValue(3);
+        cache.get(2L, counting(2L, loads));
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    public void expiredEntryIsReloaded() {
+        ProviderRatingCache cache = new ProviderRatingCache(100, -1);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, counting(1L, loads));
+        cache.get(1L, counting(1L, loads));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private static Supplier<ProviderRatingSummaryResponse> counting(Long providerId, AtomicInteger loads) {
+        return () -> {
+            loads.incrementAndGet();
+            return summary(providerId, 4.0);
+        };
+    }
+
+    private static ProviderRatingSummaryResponse summary(Long providerId, double note) {
+        return ProviderRatingSummaryResponse.builder()
+                .providerId(providerId)
+                .noteGlobale(note)
+                .build();
+    }
+}
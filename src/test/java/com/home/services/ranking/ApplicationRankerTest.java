@@ -0,0 +1,124 @@
+package com.home.services.ranking;
+
+import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.model.enums.ProfileStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class ApplicationRankerTest {
+
+    private static final double PRIOR = 4.0;
+
+    private final ApplicationRanker ranker = new ApplicationRanker(new BayesianRating(() -> PRIOR, 60_000));
+
+    @Test
+    public void priceScoreIsFullUpToTheMinimumBudgetAndHalfAtTheMaximum() {
+        BigDecimal min = new BigDecimal("10000");
+        BigDecimal max = new BigDecimal("20000");
+
+        assertThat(ApplicationRanker.priceScore(new BigDecimal("8000"), min, max)).isEqualTo(1.0);
+        assertThat(ApplicationRanker.priceScore(min, min, max)).isEqualTo(1.0);
+        assertThat(ApplicationRanker.priceScore(new BigDecimal("15000"), min, max)).isEqualTo(0.75);
+        assertThat(ApplicationRanker.priceScore(max, min, max)).isEqualTo(0.5);
+        // Au-delà du budget : en proportion du dépassement
+        assertThat(ApplicationRanker.priceScore(new BigDecimal("40000"), min, max)).isEqualTo(0.25);
+    }
+
+    @Test
+    public void priceScoreHandlesMissingValues() {
+        BigDecimal budget = new BigDecimal("20000");
+
+        assertThat(ApplicationRanker.priceScore(null, budget, budget)).isEqualTo(0.5);
+        assertThat(ApplicationRanker.priceScore(budget, null, null)).isEqualTo(0.5);
+        // Une seule borne : elle sert de minimum et de maximum
+        assertThat(ApplicationRanker.priceScore(budget, null, budget)).isEqualTo(1.0);
+        assertThat(ApplicationRanker.priceScore(new BigDecimal("40000"), budget, null)).isEqualTo(0.25);
+    }
+
+    @Test
+    public void delayScoreHalvesAfterAWeek() {
+        assertThat(ApplicationRanker.delayScore(null)).isEqualTo(0.5);
+        assertThat(ApplicationRanker.delayScore(0)).isEqualTo(1.0);
+        assertThat(ApplicationRanker.delayScore(1)).isEqualTo(1.0);
+        assertThat(ApplicationRanker.delayScore(8)).isEqualTo(0.5);
+        assertThat(ApplicationRanker.delayScore(15)).isCloseTo(1 / 3.0, within(1e-9));
+    }
+
+    @Test
+    public void ratingScoreStartsAtThePriorAndMovesWithReviews() {
+        assertThat(ApplicationRanker.ratingScore(null, null, PRIOR)).isEqualTo(0.8);
+        assertThat(ApplicationRanker.ratingScore(0L, 0, PRIOR)).isEqualTo(0.8);
+        // 5 avis parfaits pèsent autant que l'a priori : (5 × 4 + 25) / 10 / 5
+        assertThat(ApplicationRanker.ratingScore(25L, 5, PRIOR)).isCloseTo(0.9, within(1e-9));
+        // Un seul avis parfait ne dépasse pas un prestataire constant sur de nombreux avis
+        assertThat(ApplicationRanker.ratingScore(5L, 1, PRIOR))
+                .isLessThan(ApplicationRanker.ratingScore(470L, 100, PRIOR));
+    }
+
+    @Test
+    public void reviewsScoreIsHalfAtTenReviews() {
+        assertThat(ApplicationRanker.reviewsScore(null)).isZero();
+        assertThat(ApplicationRanker.reviewsScore(10)).isEqualTo(0.5);
+        assertThat(ApplicationRanker.reviewsScore(30)).isEqualTo(0.75);
+    }
+
+    @Test
+    public void topKeepsTheBestInScoreOrder() {
+        List<ApplicationCandidate> candidates = new ArrayList<>();
+        for (int days = 1; days <= 20; days++) {
+            candidates.add(candidate(days, 20000, days));
+        }
+
+        List<ApplicationRanker.RankedApplication> top = ranker.top(candidates, RankingProfile.RAPIDITE, 3);
+
+        assertThat(top).extracting(r -> r.candidate().id()).containsExactly(1L, 2L, 3L);
+        assertThat(top).extracting(ApplicationRanker.RankedApplication::score).isSortedAccordingTo(
+                (a, b) -> Double.compare(b, a));
+    }
+
+    @Test
+    public void equalScoresKeepTheOldestApplicationFirst() {
+        List<ApplicationCandidate> candidates = List.of(
+                candidate(9, 15000, 3),
+                candidate(4, 15000, 3),
+                candidate(7, 15000, 3));
+
+        assertThat(ranker.top(candidates, RankingProfile.EQUILIBRE, 10))
+                .extracting(r -> r.candidate().id())
+                .containsExactly(4L, 7L, 9L);
+        assertThat(ranker.top(candidates, RankingProfile.EQUILIBRE, 2))
+                .extracting(r -> r.candidate().id())
+                .containsExactly(4L, 7L);
+    }
+
+    @Test
+    public void profileChangesTheWinner() {
+        ApplicationCandidate cheapAndSlow = candidate(1, 10000, 20);
+        ApplicationCandidate expensiveAndFast = candidate(2, 20000, 1);
+        List<ApplicationCandidate> candidates = List.of(cheapAndSlow, expensiveAndFast);
+
+        assertThat(ranker.top(candidates, RankingProfile.PRIX, 1).get(0).candidate().id()).isEqualTo(1L);
+        assertThat(ranker.top(candidates, RankingProfile.RAPIDITE, 1).get(0).candidate().id()).isEqualTo(2L);
+    }
+
+    @Test
+    public void emptyOrZeroLimitRanksNothing() {
+        assertThat(ranker.top(List.of(), RankingProfile.EQUILIBRE, 5)).isEmpty();
+        assertThat(ranker.top(List.of(candidate(1, 10000, 1)), RankingProfile.EQUILIBRE, 0)).isEmpty();
+    }
+
+    private static ApplicationCandidate candidate(long id, int price, int days) {
+        return new ApplicationCandidate(id, 1L, "Annonce", "Cocody",
+                new BigDecimal("10000"), new BigDecimal("20000"),
+                100 + id, "Prestataire " + id, 4.0, 40L, 10, ProfileStatus.VERIFIE,
+                "Disponible", new BigDecimal(price), days, ApplicationStatus.EN_ATTENTE,
+                LocalDateTime.of(2024, 1, 1, 10, 0));
+    }
+}
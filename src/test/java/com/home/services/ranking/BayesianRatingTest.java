@@ -0,0 +1,67 @@
+package com.home.services.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class BayesianRatingTest {
+
+    @Test
+    public void scoreIsPulledTowardsThePriorWithFewReviews() {
+        assertThat(BayesianRating.score(0L, 0, 3.8)).isEqualTo(3.8);
+        assertThat(BayesianRating.score(null, null, 3.8)).isEqualTo(3.8);
+        // Un seul avis parfait : (5 × 3,8 + 5) / 6
+        assertThat(BayesianRating.score(5L, 1, 3.8)).isCloseTo(4.0, within(1e-9));
+        // Beaucoup d'avis : proche de la moyenne brute
+        assertThat(BayesianRating.score(4500L, 1000, 3.8)).isCloseTo(4.4965, within(1e-4));
+    }
+
+    @Test
+    public void priorIsComputedOnceUnderConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        BayesianRating rating = new BayesianRating(() -> {
+            loads.incrementAndGet();
+            try {
+                loading.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 4.2;
+        }, 60_000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Double>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(rating::priorNote));
+            }
+            Thread.sleep(100);
+            loading.countDown();
+            for (Future<Double> result : results) {
+                assertThat(result.get()).isEqualTo(4.2);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void priorIsRefreshedAfterTheInterval() {
+        AtomicInteger loads = new AtomicInteger();
+        BayesianRating rating = new BayesianRating(() -> 3 + loads.incrementAndGet(), -1);
+
+        assertThat(rating.priorNote()).isEqualTo(4.0);
+        assertThat(rating.priorNote()).isEqualTo(5.0);
+    }
+}
@@ -0,0 +1,164 @@
+package com.home.services.search;
+
+import com.home.services.dto.response.ServiceRequestSummaryResponse;
+import com.home.services.event.ServiceRequestChangedEvent;
+import com.home.services.event.ServiceRequestsExpiredEvent;
+import com.home.services.model.Category;
+import com.home.services.model.User;
+import com.home.services.model.enums.Role;
+import com.home.services.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Index BM25 en mémoire : ordre de pertinence, retrait et réindexation, compactage
+ * Chaque test construit son propre index et emploie son propre vocabulaire
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:requestsearchindex;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.search.requests.engine=memory"
+})
+@ActiveProfiles("test")
+public class InMemoryServiceRequestSearchIndexTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void titleMatchesAndDenserDocumentsRankFirst() {
+        User client = saveClient();
+        Category category = saveCategory();
+        Long inDescription = save(client, category, "Travaux divers",
+                "Refaire le carrelage de la salle de bain, puis repeindre les plafonds et poser des plinthes");
+        Long inTitle = save(client, category, "Carrelage cuisine", "Pose au sol, environ douze mètres carrés");
+        Long repeated = save(client, category, "Travaux salle d'eau",
+                "Carrelage mural et carrelage au sol, dépose de l'ancien carrelage");
+        Long otherWord = save(client, category, "Peinture chambre", "Deux couches sur les murs");
+        InMemoryServiceRequestSearchIndex index = newIndex(1024);
+
+        assertThat(ids(index.search("carrelage", null, null, 0, 10)))
+                .containsExactly(inTitle, repeated, inDescription)
+                .doesNotContain(otherWord);
+        // Tous les termes doivent être présents
+        assertThat(ids(index.search("carrelage cuisine", null, null, 0, 10))).containsExactly(inTitle);
+        assertThat(ids(index.search("carrelage chambre", null, null, 0, 10))).isEmpty();
+        // Pluriel et accents ramenés au même terme
+        assertThat(ids(index.search("Carrelages", null, null, 0, 10))).hasSize(3);
+    }
+
+    @Test
+    public void offsetPagesAndFiltersApplyOnTheRanking() {
+        User client = saveClient();
+        Category first = saveCategory();
+        Category second = saveCategory();
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(save(client, i % 2 == 0 ? first : second, "Jardinage " + i, "Tonte et taille de haie"));
+        }
+        InMemoryServiceRequestSearchIndex index = newIndex(1024);
+
+        List<Long> all = ids(index.search("jardinage", null, null, 0, 10));
+        assertThat(all).hasSize(5);
+        List<Long> paged = new ArrayList<>(ids(index.search("jardinage", null, null, 0, 2)));
+        paged.addAll(ids(index.search("jardinage", null, null, 2, 2)));
+        paged.addAll(ids(index.search("jardinage", null, null, 4, 2)));
+        assertThat(paged).containsExactlyElementsOf(all);
+
+        assertThat(ids(index.search("jardinage", first.getId(), null, 0, 10)))
+                .containsExactlyInAnyOrder(created.get(0), created.get(2), created.get(4));
+        assertThat(ids(index.search("jardinage", second.getId(), "Cocody", 0, 10)))
+                .containsExactlyInAnyOrder(created.get(1), created.get(3));
+        assertThat(ids(index.search("jardinage", second.getId(), "Plateau", 0, 10))).isEmpty();
+    }
+
+    @Test
+    public void removedRequestsDisappearAndComeBackWhenRepublished() {
+        User client = saveClient();
+        Category category = saveCategory();
+        Long request = save(client, category, "Climatisation bureau", "Entretien annuel du split");
+        Long other = save(client, category, "Climatisation salon", "Recharge de gaz et nettoyage des filtres");
+        InMemoryServiceRequestSearchIndex index = newIndex(1024);
+
+        jdbcTemplate.update("UPDATE service_requests SET statut = 'EN_COURS' WHERE id = ?", request);
+        index.onServiceRequestChanged(new ServiceRequestChangedEvent(request));
+        assertThat(ids(index.search("climatisation", null, null, 0, 10))).containsExactly(other);
+        assertThat(index.search("split", null, null, 0, 10)).isEmpty();
+
+        jdbcTemplate.update("UPDATE service_requests SET statut = 'PUBLIEE' WHERE id = ?", request);
+        index.onServiceRequestChanged(new ServiceRequestChangedEvent(request));
+        assertThat(ids(index.search("climatisation", null, null, 0, 10))).containsExactlyInAnyOrder(request, other);
+
+        // Texte modifié : l'ancien terme ne correspond plus, le nouveau oui
+        jdbcTemplate.update("UPDATE service_requests SET titre = 'Ventilation bureau' WHERE id = ?", request);
+        index.onServiceRequestChanged(new ServiceRequestChangedEvent(request));
+        assertThat(ids(index.search("climatisation", null, null, 0, 10))).containsExactly(other);
+        assertThat(ids(index.search("ventilation", null, null, 0, 10))).containsExactly(request);
+
+        index.onServiceRequestsExpired(new ServiceRequestsExpiredEvent(List.of(other)));
+        assertThat(index.search("climatisation", null, null, 0, 10)).isEmpty();
+    }
+
+    @Test
+    public void compactionPreservesResults() {
+        User client = saveClient();
+        Category category = saveCategory();
+        List<Long> created = new ArrayList<>();
+        created.add(save(client, category, "Menuiserie porte", "Raboter une porte qui frotte"));
+        created.add(save(client, category, "Menuiserie placard", "Monter un placard sur mesure en menuiserie"));
+        created.add(save(client, category, "Étagères", "Petite menuiserie murale"));
+        InMemoryServiceRequestSearchIndex index = newIndex(2);
+        List<Long> before = ids(index.search("menuiserie", null, null, 0, 10));
+
+        // Chaque réindexation laisse une ancienne version : le compactage se déclenche en cours de route
+        for (int round = 0; round < 8; round++) {
+            for (Long id : created) {
+                index.onServiceRequestChanged(new ServiceRequestChangedEvent(id));
+            }
+            assertThat(ids(index.search("menuiserie", null, null, 0, 10))).containsExactlyElementsOf(before);
+            assertThat(ids(index.search("placard", null, null, 0, 10))).containsExactly(created.get(1));
+        }
+
+        // L'index compacté reste modifiable
+        jdbcTemplate.update("UPDATE service_requests SET statut = 'ANNULEE' WHERE id = ?", created.get(1));
+        index.onServiceRequestChanged(new ServiceRequestChangedEvent(created.get(1)));
+        assertThat(ids(index.search("menuiserie", null, null, 0, 10)))
+                .containsExactlyElementsOf(before.stream().filter(id -> !id.equals(created.get(1))).toList());
+        assertThat(index.search("placard", null, null, 0, 10)).isEmpty();
+    }
+
+    private InMemoryServiceRequestSearchIndex newIndex(int minTombstonesBeforeCompact) {
+        InMemoryServiceRequestSearchIndex index = new InMemoryServiceRequestSearchIndex(jdbcTemplate,
+                minTombstonesBeforeCompact);
+        index.rebuild();
+        return index;
+    }
+
+    private static List<Long> ids(List<ServiceRequestSummaryResponse> results) {
+        return results.stream().map(ServiceRequestSummaryResponse::getId).toList();
+    }
+
+    private Long save(User client, Category category, String titre, String description) {
+        return fixtures.saveRequest(client, category, request -> request
+                .titre(titre)
+                .description(description)).getId();
+    }
+
+    private Category saveCategory() {
+        return fixtures.saveCategory("Catégorie recherche");
+    }
+
+    private User saveClient() {
+        return fixtures.saveUser("client_search", Role.CLIENT);
+    }
+}
@@ -0,0 +1,219 @@
+package com.home.services.search;
+
+import com.home.services.dto.request.KeysetCursor;
+import com.home.services.dto.response.CursorPageResponse;
+import com.home.services.dto.response.ServiceRequestSummaryResponse;
+import com.home.services.event.ServiceRequestChangedEvent;
+import com.home.services.event.ServiceRequestsExpiredEvent;
+import com.home.services.model.Category;
+import com.home.services.model.User;
+import com.home.services.model.enums.Role;
+import com.home.services.model.enums.Urgency;
+import com.home.services.repository.ServiceRequestRepository;
+import com.home.services.service.ServiceRequestService;
+import com.home.services.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fil des annonces publiées : combinaisons de filtres, ordre et pagination, suivi des modifications
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:filterindex;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+public class ServiceRequestFilterIndexTest {
+
+    @Autowired
+    private ServiceRequestFilterIndex index;
+
+    @Autowired
+    private ServiceRequestService serviceRequestService;
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void filtersCombineByIntersection() {
+        User client = saveClient();
+        Category plomberie = saveCategory();
+        Category menage = saveCategory();
+        String cocody = quartier("Cocody");
+        String plateau = quartier("Plateau");
+
+        Long a = save(client, plomberie, cocody, Urgency.URGENT, null, new BigDecimal("40000"));
+        Long b = save(client, plomberie, plateau, Urgency.NORMAL, null, new BigDecimal("20000"));
+        Long c = save(client, menage, cocody, Urgency.URGENT, null, null);
+        Long d = save(client, menage, plateau, Urgency.TRES_URGENT, new BigDecimal("30000"), null);
+        Long e = save(client, plomberie, cocody, Urgency.NORMAL, new BigDecimal("10000"), new BigDecimal("28000"));
+        index.rebuild();
+
+        assertThat(ids(plomberie.getId(), null, null, null)).containsExactly(e, b, a);
+        assertThat(ids(null, cocody, null, null)).containsExactly(e, c, a);
+        assertThat(ids(plomberie.getId(), cocody, null, null)).containsExactly(e, a);
+        assertThat(ids(null, cocody, Urgency.URGENT, null)).containsExactly(c, a);
+        assertThat(ids(menage.getId(), plateau, Urgency.TRES_URGENT, null)).containsExactly(d);
+        assertThat(ids(menage.getId(), cocody, Urgency.TRES_URGENT, null)).isEmpty();
+        assertThat(ids(null, quartier("Inconnu"), null, null)).isEmpty();
+    }
+
+    @Test
+    public void budgetFilterKeepsOnlyRequestsAtOrAboveTheThreshold() {
+        User client = saveClient();
+        Category category = saveCategory();
+        String quartier = quartier("Marcory");
+
+        Long below = save(client, category, quartier, Urgency.NORMAL, null, new BigDecimal("20000"));
+        Long sameBucketBelow = save(client, category, quartier, Urgency.NORMAL, null, new BigDecimal("28000"));
+        Long equal = save(client, category, quartier, Urgency.NORMAL, null, new BigDecimal("30000"));
+        Long above = save(client, category, quartier, Urgency.NORMAL, null, new BigDecimal("40000"));
+        // Sans maximum, le budget minimum fait foi
+        Long minimumOnly = save(client, category, quartier, Urgency.NORMAL, new BigDecimal("150000"), null);
+        Long noBudget = save(client, category, quartier, Urgency.NORMAL, null, null);
+        index.rebuild();
+
+        assertThat(ids(category.getId(), null, null, new BigDecimal("30000")))
+                .containsExactly(minimumOnly, above, equal)
+                .doesNotContain(below, sameBucketBelow, noBudget);
+        assertThat(ids(category.getId(), null, null, null)).hasSize(6);
+    }
+
+    @Test
+    public void pagesFollowEachOtherWithoutGapsOrDuplicates() {
+        User client = saveClient();
+        Category category = saveCategory();
+        String quartier = quartier("Yopougon");
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            created.add(save(client, category, quartier, Urgency.NORMAL, null, null));
+        }
+        index.rebuild();
+
+        List<Long> served = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageResponse<ServiceRequestSummaryResponse> page = serviceRequestService.getPublished(
+                    category.getId(), quartier, null, null, cursor, 3);
+            page.getItems().forEach(r -> served.add(r.getId()));
+            cursor = page.getNextCursor();
+            assertThat(page.getHasMore()).isEqualTo(cursor != null);
+            pages++;
+        } while (cursor != null);
+
+        List<Long> newestFirst = new ArrayList<>(created);
+        newestFirst.sort((x, y) -> Long.compare(y, x));
+        assertThat(served).containsExactlyElementsOf(newestFirst);
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    public void changesAndExpirationsAreFollowed() {
+        User client = saveClient();
+        Category category = saveCategory();
+        String quartier = quartier("Treichville");
+        Long kept = save(client, category, quartier, Urgency.NORMAL, null, null);
+        Long assigned = save(client, category, quartier, Urgency.NORMAL, null, null);
+        Long expired = save(client, category, quartier, Urgency.NORMAL, null, null);
+        index.rebuild();
+
+        jdbcTemplate.update("UPDATE service_requests SET statut = 'EN_COURS' WHERE id = ?", assigned);
+        index.onServiceRequestChanged(new ServiceRequestChangedEvent(assigned));
+        // Comme le job d'expiration : statut mis à jour, puis événement
+        jdbcTemplate.update("UPDATE service_requests SET statut = 'EXPIREE' WHERE id = ?", expired);
+        index.onServiceRequestsExpired(new ServiceRequestsExpiredEvent(List.of(expired)));
+        assertThat(ids(category.getId(), null, null, null)).containsExactly(kept);
+
+        // Changement de quartier : l'annonce quitte l'ancien filtre et rejoint le nouveau
+        String other = quartier("Koumassi");
+        jdbcTemplate.update("UPDATE service_requests SET quartier = ? WHERE id = ?", other, kept);
+        index.onServiceRequestChanged(new ServiceRequestChangedEvent(kept));
+        assertThat(ids(null, quartier, null, null)).isEmpty();
+        assertThat(ids(null, other, null, null)).containsExactly(kept);
+
+        // Une nouvelle reconstruction retrouve le même état
+        index.rebuild();
+        assertThat(ids(category.getId(), null, null, null)).containsExactly(kept);
+    }
+
+    @Test
+    public void databaseFeedFollowsTheSameOrderAsTheIndex() {
+        User client = saveClient();
+        Category plomberie = saveCategory();
+        Category menage = saveCategory();
+        String cocody = quartier("Cocody");
+        save(client, plomberie, cocody, Urgency.URGENT, null, new BigDecimal("40000"));
+        save(client, menage, cocody, Urgency.URGENT, null, null);
+        save(client, plomberie, cocody, Urgency.NORMAL, new BigDecimal("10000"), new BigDecimal("28000"));
+        save(client, plomberie, cocody, Urgency.NORMAL, new BigDecimal("60000"), null);
+        Long last = save(client, menage, cocody, Urgency.URGENT, new BigDecimal("30000"), null);
+        index.rebuild();
+
+        // Fil lu en base quand l'index n'est pas construit : mêmes annonces, même ordre
+        LocalDateTime start = LocalDateTime.of(9999, 12, 31, 0, 0);
+        PageRequest all = PageRequest.of(0, 50);
+        assertThat(feedIds(serviceRequestRepository.findFeedByQuartier(cocody, null, null, start, Long.MAX_VALUE,
+                all))).isEqualTo(ids(null, cocody, null, null));
+        assertThat(feedIds(serviceRequestRepository.findFeedByCategoryAndQuartier(plomberie.getId(), cocody, null,
+                null, start, Long.MAX_VALUE, all))).isEqualTo(ids(plomberie.getId(), cocody, null, null));
+        assertThat(feedIds(serviceRequestRepository.findFeedByQuartier(cocody, Urgency.URGENT,
+                new BigDecimal("30000"), start, Long.MAX_VALUE, all)))
+                .isEqualTo(ids(null, cocody, Urgency.URGENT, new BigDecimal("30000")))
+                .hasSize(2);
+
+        // Le curseur servi par l'index reprend le fil en base au même endroit
+        CursorPageResponse<ServiceRequestSummaryResponse> first = serviceRequestService.getPublished(
+                null, cocody, null, null, null, 1);
+        assertThat(first.getItems()).extracting(ServiceRequestSummaryResponse::getId).containsExactly(last);
+        KeysetCursor cursor = KeysetCursor.decode(first.getNextCursor());
+        assertThat(feedIds(serviceRequestRepository.findFeedByQuartier(cocody, null, null, cursor.getCreatedAt(),
+                cursor.getId(), all))).isEqualTo(ids(null, cocody, null, null).subList(1, 5));
+    }
+
+    private List<Long> feedIds(List<ServiceRequestSummaryResponse> feed) {
+        return feed.stream().map(ServiceRequestSummaryResponse::getId).toList();
+    }
+
+    private List<Long> ids(Long categoryId, String quartier, Urgency urgence, BigDecimal budgetMin) {
+        return index.page(categoryId, quartier, urgence, budgetMin, null, 50).stream()
+                .map(ServiceRequestSummaryResponse::getId)
+                .toList();
+    }
+
+    private Long save(User client, Category category, String quartier, Urgency urgence, BigDecimal budgetMin,
+            BigDecimal budgetMax) {
+        return fixtures.saveRequest(client, category, request -> request
+                .quartier(quartier)
+                .urgence(urgence)
+                .budgetMin(budgetMin)
+                .budgetMax(budgetMax)).getId();
+    }
+
+    // Quartier propre au test : les annonces des autres tests n'y apparaissent pas
+    private String quartier(String name) {
+        return name + " " + TestFixtures.next();
+    }
+
+    private Category saveCategory() {
+        return fixtures.saveCategory("Catégorie fil");
+    }
+
+    private User saveClient() {
+        return fixtures.saveUser("client_filter", Role.CLIENT);
+    }
+}
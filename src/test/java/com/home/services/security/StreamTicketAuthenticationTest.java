@@ -0,0 +1,121 @@
+package com.home.services.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.home.services.model.User;
+import com.home.services.model.enums.Role;
+import com.home.services.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ouverture du flux temps réel par ticket à usage unique, le JWT n'étant plus accepté dans l'URL
+ * Tickets expirés au bout d'une seconde
+ * Pas d'impression des échanges : le flux SSE ouvert continue d'écrire dans la réponse pendant sa lecture
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:streamticket;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.security.stream-ticket-ttl-ms=1000"
+})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@ActiveProfiles("test")
+public class StreamTicketAuthenticationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private StreamTicketStore streamTicketStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void ticketOpensTheStreamOnlyOnce() throws Exception {
+        User client = saveUser("client_ticket_once@test.com");
+        String ticket = ticket(client);
+
+        mockMvc.perform(get("/api/events/stream").param("ticket", ticket))
+                .andExpect(request().asyncStarted());
+
+        // Déjà consommé
+        mockMvc.perform(get("/api/events/stream").param("ticket", ticket))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    public void accessTokenIsNoLongerAcceptedInTheUrl() throws Exception {
+        User client = saveUser("client_ticket_jwt@test.com");
+        String token = jwtTokenProvider.generateToken(client.getEmail(), client.getRole().name());
+
+        mockMvc.perform(get("/api/events/stream").param("access_token", token))
+                .andExpect(status().is4xxClientError());
+        // Le JWT n'est pas non plus un ticket
+        mockMvc.perform(get("/api/events/stream").param("ticket", token))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    public void ticketIsOnlyAcceptedOnStreamingEndpoints() throws Exception {
+        User client = saveUser("client_ticket_scope@test.com");
+        String ticket = ticket(client);
+
+        mockMvc.perform(get("/api/messages/unread/count").param("ticket", ticket))
+                .andExpect(status().is4xxClientError());
+        // Ticket non consommé par la requête refusée
+        mockMvc.perform(get("/api/events/stream").param("ticket", ticket))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    public void expiredTicketsAreRejectedAndPurged() throws Exception {
+        User client = saveUser("client_ticket_expired@test.com");
+        String ticket = ticket(client);
+        String unused = ticket(client);
+
+        Thread.sleep(1200);
+        mockMvc.perform(get("/api/events/stream").param("ticket", ticket))
+                .andExpect(status().is4xxClientError());
+
+        streamTicketStore.purgeExpired();
+        assertThat(streamTicketStore.redeem(unused)).isNull();
+        assertThat(streamTicketStore.size()).isZero();
+    }
+
+    private String ticket(User user) throws Exception {
+        String token = jwtTokenProvider.generateToken(user.getEmail(), user.getRole().name());
+        String body = mockMvc.perform(post("/api/events/ticket").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String ticket = objectMapper.readTree(body).path("data").path("ticket").asText();
+        assertThat(ticket).isNotBlank().isNotEqualTo(token);
+        return ticket;
+    }
+
+    private User saveUser(String email) {
+        return userRepository.save(User.builder()
+                .nom("Utilisateur " + email.substring(0, email.indexOf('@')))
+                .email(email)
+                .password("Password123")
+                .role(Role.CLIENT)
+                .build());
+    }
+}
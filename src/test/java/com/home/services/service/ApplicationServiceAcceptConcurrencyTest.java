@@ -0,0 +1,214 @@
+package com.home.services.service;
+
+import com.home.services.dto.request.ApplicationDto;
+import com.home.services.exception.ConflictException;
+import com.home.services.model.Application;
+import com.home.services.model.ServiceRequest;
+import com.home.services.model.User;
+import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.model.enums.RequestStatus;
+import com.home.services.model.enums.Role;
+import com.home.services.repository.ApplicationRepository;
+import com.home.services.repository.ServiceRequestRepository;
+import com.home.services.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Acceptation sous concurrence : deux acceptations, une acceptation et un retrait, ou une acceptation et un refus,
+ * ne peuvent pas réussir ensemble
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:acceptconcurrency;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+public class ApplicationServiceAcceptConcurrencyTest {
+
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void onlyOneOfTwoConcurrentAcceptsSucceeds() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            User client = fixtures.saveUser("client_accept", Role.CLIENT);
+            ServiceRequest request = publishedRequest(client);
+            Long first = apply(request);
+            Long second = apply(request);
+
+            List<Future<Object>> outcomes = race(List.of(
+                    () -> applicationService.accept(first, client.getEmail()),
+                    () -> applicationService.accept(second, client.getEmail())));
+
+            assertThat(failures(outcomes)).hasSize(1);
+            Long winner = failures(List.of(outcomes.get(0))).isEmpty() ? first : second;
+            Long loser = winner.equals(first) ? second : first;
+
+            Application accepted = applicationRepository.findWithDetailsById(winner).orElseThrow();
+            assertThat(accepted.getStatut()).isEqualTo(ApplicationStatus.ACCEPTEE);
+            assertThat(applicationRepository.findById(loser).orElseThrow().getStatut())
+                    .isEqualTo(ApplicationStatus.REFUSEE);
+
+            ServiceRequest assigned = serviceRequestRepository.findWithDetailsById(request.getId()).orElseThrow();
+            assertThat(assigned.getStatut()).isEqualTo(RequestStatus.EN_COURS);
+            assertThat(assigned.getSelectedProvider().getId()).isEqualTo(accepted.getProvider().getId());
+            assertThat(conversations(request)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void acceptAndWithdrawOfTheSameApplicationCannotBothSucceed() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            User client = fixtures.saveUser("client_withdraw_race", Role.CLIENT);
+            ServiceRequest request = publishedRequest(client);
+            User provider = fixtures.saveUser("provider_withdraw_race", Role.PRESTATAIRE);
+            Long applicationId = applicationService.apply(dto(request), provider.getEmail()).getId();
+
+            List<Future<Object>> outcomes = race(List.of(
+                    () -> applicationService.accept(applicationId, client.getEmail()),
+                    () -> {
+                        applicationService.withdraw(applicationId, provider.getEmail());
+                        return null;
+                    }));
+
+            boolean accepted = failures(List.of(outcomes.get(0))).isEmpty();
+            boolean withdrawn = failures(List.of(outcomes.get(1))).isEmpty();
+            assertThat(accepted && withdrawn).isFalse();
+
+            // L'état en base est toujours celui d'une seule des deux opérations (ou d'aucune)
+            ApplicationStatus statut = applicationRepository.findById(applicationId).orElseThrow().getStatut();
+            ServiceRequest after = serviceRequestRepository.findWithDetailsById(request.getId()).orElseThrow();
+            if (accepted) {
+                assertThat(statut).isEqualTo(ApplicationStatus.ACCEPTEE);
+                assertThat(after.getStatut()).isEqualTo(RequestStatus.EN_COURS);
+                assertThat(after.getSelectedProvider().getId()).isEqualTo(provider.getId());
+                assertThat(conversations(request)).isEqualTo(1);
+            } else {
+                assertThat(statut).isEqualTo(withdrawn ? ApplicationStatus.RETIREE : ApplicationStatus.EN_ATTENTE);
+                assertThat(after.getStatut()).isEqualTo(RequestStatus.PUBLIEE);
+                assertThat(after.getSelectedProvider()).isNull();
+                assertThat(after.getNombreCandidatures()).isEqualTo(withdrawn ? 0 : 1);
+                assertThat(conversations(request)).isZero();
+            }
+        }
+    }
+
+    @Test
+    public void acceptAndRejectOfTheSameApplicationCannotBothSucceed() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            User client = fixtures.saveUser("client_reject_race", Role.CLIENT);
+            ServiceRequest request = publishedRequest(client);
+            Long applicationId = apply(request);
+
+            List<Future<Object>> outcomes = race(List.of(
+                    () -> applicationService.accept(applicationId, client.getEmail()),
+                    () -> applicationService.reject(applicationId, client.getEmail(), "Plus besoin")));
+
+            // Exactement une des deux décisions aboutit, l'autre est un conflit
+            List<Throwable> failures = failures(outcomes);
+            assertThat(failures).hasSize(1);
+            assertThat(failures.get(0)).isInstanceOf(ConflictException.class);
+            boolean accepted = failures(List.of(outcomes.get(0))).isEmpty();
+
+            // Jamais REFUSEE sur une annonce attribuée à ce prestataire
+            Application application = applicationRepository.findWithDetailsById(applicationId).orElseThrow();
+            ServiceRequest after = serviceRequestRepository.findWithDetailsById(request.getId()).orElseThrow();
+            if (accepted) {
+                assertThat(application.getStatut()).isEqualTo(ApplicationStatus.ACCEPTEE);
+                assertThat(after.getStatut()).isEqualTo(RequestStatus.EN_COURS);
+                assertThat(after.getSelectedProvider().getId()).isEqualTo(application.getProvider().getId());
+                assertThat(conversations(request)).isEqualTo(1);
+            } else {
+                assertThat(application.getStatut()).isEqualTo(ApplicationStatus.REFUSEE);
+                assertThat(application.getClientResponse()).isEqualTo("Plus besoin");
+                assertThat(after.getStatut()).isEqualTo(RequestStatus.PUBLIEE);
+                assertThat(after.getSelectedProvider()).isNull();
+                assertThat(conversations(request)).isZero();
+            }
+        }
+    }
+
+    private Long apply(ServiceRequest request) {
+        User provider = fixtures.saveUser("provider_accept", Role.PRESTATAIRE);
+        return applicationService.apply(dto(request), provider.getEmail()).getId();
+    }
+
+    private int conversations(ServiceRequest request) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM conversations c "
+                + "JOIN applications a ON a.id = c.application_id WHERE a.service_request_id = ?",
+                Integer.class, request.getId());
+        return count != null ? count : 0;
+    }
+
+    private static ApplicationDto dto(ServiceRequest request) {
+        return ApplicationDto.builder()
+                .serviceRequestId(request.getId())
+                .message("Disponible cette semaine")
+                .build();
+    }
+
+    /**
+     * Lance tous les appels en même temps et renvoie leur issue (résultat ou exception)
+     */
+    private static List<Future<Object>> race(List<Callable<Object>> calls) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(calls.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (Callable<Object> call : calls) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+            return futures;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<Throwable> failures(List<Future<Object>> futures) {
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<Object> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                failures.add(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        return failures;
+    }
+
+    private ServiceRequest publishedRequest(User client) {
+        return fixtures.saveRequest(client, fixtures.saveCategory("Catégorie acceptation"),
+                request -> request.quartier("Treichville"));
+    }
+}
@@ -0,0 +1,191 @@
+package com.home.services.service;
+
+import com.home.services.dto.request.ApplicationDto;
+import com.home.services.model.ServiceRequest;
+import com.home.services.model.User;
+import com.home.services.model.enums.Role;
+import com.home.services.repository.ApplicationRepository;
+import com.home.services.repository.ServiceRequestRepository;
+import com.home.services.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Compteur de candidatures sous concurrence : pas de mise à jour perdue, pas de doublon,
+ * et la réconciliation retrouve le décompte réel
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:applyconcurrency;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+public class ApplicationServiceApplyConcurrencyTest {
+
+    private static final int PROVIDERS = 12;
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private ApplicationCounterReconciliation reconciliation;
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void concurrentApplicationsAreAllCounted() throws Exception {
+        ServiceRequest request = publishedRequest();
+        List<Callable<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < PROVIDERS; i++) {
+            User provider = fixtures.saveUser("provider_apply", Role.PRESTATAIRE);
+            calls.add(() -> applicationService.apply(dto(request), provider.getEmail()));
+        }
+
+        assertThat(succeeded(race(calls))).isEqualTo(PROVIDERS);
+        assertThat(counter(request)).isEqualTo(PROVIDERS);
+        assertThat(applicationRepository.countByServiceRequestId(request.getId())).isEqualTo(PROVIDERS);
+    }
+
+    @Test
+    public void duplicateApplicationIsRejectedByTheUniqueConstraint() throws Exception {
+        ServiceRequest request = publishedRequest();
+        User provider = fixtures.saveUser("provider_duplicate", Role.PRESTATAIRE);
+        List<Callable<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(() -> applicationService.apply(dto(request), provider.getEmail()));
+        }
+
+        List<Throwable> failures = failures(race(calls));
+        assertThat(failures).hasSize(3);
+        assertThat(counter(request)).isEqualTo(1);
+
+        // Nouvel essai une fois la première candidature validée : message explicite
+        assertThatThrownBy(() -> applicationService.apply(dto(request), provider.getEmail()))
+                .hasMessage("Vous avez déjà postulé à cette annonce");
+        assertThat(counter(request)).isEqualTo(1);
+    }
+
+    @Test
+    public void withdrawDecrementsOnceAndNeverBelowZero() throws Exception {
+        ServiceRequest request = publishedRequest();
+        User provider = fixtures.saveUser("provider_withdraw", Role.PRESTATAIRE);
+        Long applicationId = applicationService.apply(dto(request), provider.getEmail()).getId();
+
+        List<Callable<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(() -> {
+                applicationService.withdraw(applicationId, provider.getEmail());
+                return null;
+            });
+        }
+
+        assertThat(succeeded(race(calls))).isEqualTo(1);
+        assertThat(counter(request)).isZero();
+    }
+
+    @Test
+    public void applyIsRefusedOnceTheRequestIsNoLongerPublished() {
+        ServiceRequest request = publishedRequest();
+        User provider = fixtures.saveUser("provider_closed", Role.PRESTATAIRE);
+        jdbcTemplate.update("UPDATE service_requests SET statut = 'EN_COURS' WHERE id = ?", request.getId());
+
+        assertThatThrownBy(() -> applicationService.apply(dto(request), provider.getEmail()))
+                .hasMessage("Cette annonce n'accepte plus de candidatures");
+        assertThat(counter(request)).isZero();
+    }
+
+    @Test
+    public void reconciliationRestoresTheRealCount() {
+        ServiceRequest request = publishedRequest();
+        User first = fixtures.saveUser("provider_reconcile", Role.PRESTATAIRE);
+        User second = fixtures.saveUser("provider_reconcile", Role.PRESTATAIRE);
+        applicationService.apply(dto(request), first.getEmail());
+        Long withdrawn = applicationService.apply(dto(request), second.getEmail()).getId();
+        applicationService.withdraw(withdrawn, second.getEmail());
+
+        jdbcTemplate.update("UPDATE service_requests SET nombre_candidatures = 9 WHERE id = ?", request.getId());
+        reconciliation.reconcile();
+        assertThat(counter(request)).isEqualTo(1);
+
+        jdbcTemplate.update("UPDATE service_requests SET nombre_candidatures = NULL WHERE id = ?", request.getId());
+        reconciliation.reconcile();
+        assertThat(counter(request)).isEqualTo(1);
+    }
+
+    private int counter(ServiceRequest request) {
+        return serviceRequestRepository.findById(request.getId()).orElseThrow().getNombreCandidatures();
+    }
+
+    private static ApplicationDto dto(ServiceRequest request) {
+        return ApplicationDto.builder()
+                .serviceRequestId(request.getId())
+                .message("Disponible cette semaine")
+                .build();
+    }
+
+    /**
+     * Lance tous les appels en même temps et renvoie leur issue (résultat ou exception)
+     */
+    private static List<Future<Object>> race(List<Callable<Object>> calls) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(calls.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (Callable<Object> call : calls) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+            return futures;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long succeeded(List<Future<Object>> futures) {
+        return futures.size() - failures(futures).size();
+    }
+
+    private static List<Throwable> failures(List<Future<Object>> futures) {
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<Object> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                failures.add(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        return failures;
+    }
+
+    private ServiceRequest publishedRequest() {
+        User client = fixtures.saveUser("client_apply", Role.CLIENT);
+        return fixtures.saveRequest(client, fixtures.saveCategory("Catégorie candidatures"),
+                request -> request.quartier("Yopougon"));
+    }
+}
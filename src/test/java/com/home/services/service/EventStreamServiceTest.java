@@ -0,0 +1,214 @@
+package com.home.services.service;
+
+import com.home.services.controller.EventStreamController;
+import com.home.services.model.User;
+import com.home.services.model.enums.Role;
+import com.home.services.repository.UserRepository;
+import com.home.services.security.StreamTicketStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Reprise du flux SSE via Last-Event-ID : rejeu des événements manqués, RESYNC si l'historique
+ * ne couvre plus le dernier id reçu ou si l'id vient d'un démarrage précédent
+ * Chaque « démarrage » est une nouvelle instance du service
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:eventstream;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+public class EventStreamServiceTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final String NOTIFICATION = "NOTIFICATION";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<EventStreamService> services = new ArrayList<>();
+
+    @AfterEach
+    public void shutdown() {
+        services.forEach(EventStreamService::shutdown);
+        services.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void reconnectReplaysOnlyTheMissedEvents() throws Exception {
+        User client = saveUser("client_stream_replay@test.com", Role.CLIENT);
+        User other = saveUser("other_stream_replay@test.com", Role.CLIENT);
+        // Historique de deux événements : le premier est écarté, le client l'a déjà reçu
+        EventStreamService service = service(2);
+        MockMvc mvc = mvc(service);
+
+        MockHttpServletResponse first = stream(mvc, client, null);
+        stream(mvc, other, null);
+        service.publish(client.getId(), NOTIFICATION, Map.of("n", 1));
+        String lastEventId = waitForEvents(first, 1).get(0).id();
+
+        // Les événements des autres utilisateurs ne comptent pas comme des pertes
+        for (int i = 0; i < 5; i++) {
+            service.publish(other.getId(), NOTIFICATION, Map.of("n", 100 + i));
+        }
+        service.publish(client.getId(), NOTIFICATION, Map.of("n", 2));
+        service.publish(client.getId(), NOTIFICATION, Map.of("n", 3));
+
+        MockHttpServletResponse reconnected = stream(mvc, client, lastEventId);
+        List<Event> replayed = waitForEvents(reconnected, 2);
+        assertThat(replayed).extracting(Event::name).containsOnly(NOTIFICATION);
+        assertThat(replayed).extracting(Event::data).containsExactly("{\"n\":2}", "{\"n\":3}");
+    }
+
+    @Test
+    public void reconnectAfterTheHistoryWasTrimmedAsksForAResync() throws Exception {
+        User client = saveUser("client_stream_trimmed@test.com", Role.CLIENT);
+        EventStreamService service = service(2);
+        MockMvc mvc = mvc(service);
+
+        MockHttpServletResponse first = stream(mvc, client, null);
+        service.publish(client.getId(), NOTIFICATION, Map.of("n", 1));
+        String lastEventId = waitForEvents(first, 1).get(0).id();
+        for (int i = 2; i <= 4; i++) {
+            service.publish(client.getId(), NOTIFICATION, Map.of("n", i));
+        }
+        List<Event> received = waitForEvents(first, 4);
+
+        // Les événements 2 et 3 ne sont plus conservés
+        MockHttpServletResponse reconnected = stream(mvc, client, lastEventId);
+        Event resync = waitForEvents(reconnected, 1).get(0);
+        assertThat(resync.name()).isEqualTo("RESYNC");
+        assertThat(resync.data()).contains("history-expired");
+        // L'id du RESYNC permet de reprendre normalement ensuite
+        assertThat(resync.id()).isEqualTo(received.get(3).id());
+
+        service.publish(client.getId(), NOTIFICATION, Map.of("n", 5));
+        MockHttpServletResponse resumed = stream(mvc, client, resync.id());
+        assertThat(waitForEvents(resumed, 1)).extracting(Event::data).containsExactly("{\"n\":5}");
+    }
+
+    @Test
+    public void idFromAPreviousBootAsksForAResync() throws Exception {
+        User client = saveUser("client_stream_restart@test.com", Role.CLIENT);
+        EventStreamService beforeRestart = service(100);
+        MockHttpServletResponse first = stream(mvc(beforeRestart), client, null);
+        beforeRestart.publish(client.getId(), NOTIFICATION, Map.of("n", 1));
+        String lastEventId = waitForEvents(first, 1).get(0).id();
+
+        // Après redémarrage, les numéros recommencent : le même numéro désigne un autre événement
+        EventStreamService afterRestart = service(100);
+        MockMvc mvc = mvc(afterRestart);
+        MockHttpServletResponse current = stream(mvc, client, null);
+        afterRestart.publish(client.getId(), NOTIFICATION, Map.of("n", 10));
+        afterRestart.publish(client.getId(), NOTIFICATION, Map.of("n", 11));
+        List<Event> received = waitForEvents(current, 2);
+        assertThat(received.get(0).id()).isNotEqualTo(lastEventId);
+        assertThat(number(received.get(0).id())).isEqualTo(number(lastEventId));
+
+        MockHttpServletResponse reconnected = stream(mvc, client, lastEventId);
+        List<Event> events = waitForEvents(reconnected, 1);
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).name()).isEqualTo("RESYNC");
+        assertThat(events.get(0).data()).contains("restarted");
+    }
+
+    private EventStreamService service(int replayBufferSize) {
+        EventStreamService service = new EventStreamService(userRepository, 60000, 256, replayBufferSize, 300000, 2);
+        services.add(service);
+        return service;
+    }
+
+    private MockMvc mvc(EventStreamService service) {
+        return MockMvcBuilders.standaloneSetup(new EventStreamController(service, new StreamTicketStore(30000)))
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+                .build();
+    }
+
+    private MockHttpServletResponse stream(MockMvc mvc, User user, String lastEventId) throws Exception {
+        UserDetails principal = org.springframework.security.core.userdetails.User.withUsername(user.getEmail())
+                .password(user.getPassword())
+                .roles(user.getRole().name())
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        MockHttpServletRequestBuilder builder = get("/api/events/stream");
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        return mvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    /**
+     * Attendre au moins {@code count} événements nommés, puis laisser passer d'éventuels événements en trop
+     */
+    private List<Event> waitForEvents(MockHttpServletResponse response, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (events(response).size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        List<Event> events = events(response);
+        assertThat(events).hasSizeGreaterThanOrEqualTo(count);
+        return events;
+    }
+
+    private List<Event> events(MockHttpServletResponse response) throws Exception {
+        List<Event> events = new ArrayList<>();
+        for (String block : response.getContentAsString().split("\n\n")) {
+            String id = null;
+            String name = null;
+            StringBuilder data = new StringBuilder();
+            for (String line : block.split("\n")) {
+                if (line.startsWith("id:")) {
+                    id = line.substring(3);
+                } else if (line.startsWith("event:")) {
+                    name = line.substring(6);
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5));
+                }
+            }
+            if (name != null) {
+                events.add(new Event(id, name, data.toString()));
+            }
+        }
+        return events;
+    }
+
+    private long number(String eventId) {
+        return Long.parseLong(eventId.substring(eventId.lastIndexOf('-') + 1));
+    }
+
+    private User saveUser(String email, Role role) {
+        return userRepository.save(User.builder()
+                .nom("Utilisateur " + email.substring(0, email.indexOf('@')))
+                .email(email)
+                .password("Password123")
+                .role(role)
+                .build());
+    }
+
+    private record Event(String id, String name, String data) {
+    }
+}
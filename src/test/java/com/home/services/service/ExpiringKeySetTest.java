@@ -0,0 +1,135 @@
+package com.home.services.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpiringKeySetTest {
+
+    private static final long TTL_MS = 60;
+    private static final long TICK_MS = 10;
+
+    @Test
+    public void keyExpiresAfterItsTtlUnlessRefreshed() throws InterruptedException {
+        ExpiringKeySet<String> keys = new ExpiringKeySet<>(TTL_MS, TICK_MS, 10);
+        keys.touch("a");
+        keys.touch("b");
+        assertThat(keys.contains("a")).isTrue();
+
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(TTL_MS / 3);
+            keys.touch("b");
+            keys.advance();
+        }
+
+        assertThat(keys.contains("a")).isFalse();
+        assertThat(keys.contains("b")).isTrue();
+        assertThat(keys.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void removedKeyIsGoneImmediatelyAndCanComeBack() throws InterruptedException {
+        ExpiringKeySet<String> keys = new ExpiringKeySet<>(TTL_MS, TICK_MS, 10);
+        keys.touch("a");
+        keys.remove("a");
+        assertThat(keys.contains("a")).isFalse();
+        assertThat(keys.size()).isZero();
+
+        keys.touch("a");
+        assertThat(keys.contains("a")).isTrue();
+        assertThat(keys.size()).isEqualTo(1);
+
+        expireAll(keys);
+        assertThat(keys.contains("a")).isFalse();
+        assertThat(keys.size()).isZero();
+    }
+
+    @Test
+    public void newKeysAreRefusedAndCountedWhenFull() throws InterruptedException {
+        ExpiringKeySet<String> keys = new ExpiringKeySet<>(TTL_MS, TICK_MS, 2);
+        assertThat(keys.touch("a")).isTrue();
+        assertThat(keys.touch("b")).isTrue();
+
+        assertThat(keys.touch("c")).isFalse();
+        assertThat(keys.contains("c")).isFalse();
+        assertThat(keys.dropped()).isEqualTo(1);
+        // Une clé existante se rafraîchit toujours
+        assertThat(keys.touch("a")).isTrue();
+
+        keys.remove("b");
+        assertThat(keys.touch("c")).isTrue();
+
+        expireAll(keys);
+        assertThat(keys.touch("d")).isTrue();
+        assertThat(keys.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void concurrentTouchRemoveAndAdvanceLeaveNoOrphan() throws Exception {
+        ExpiringKeySet<Integer> keys = new ExpiringKeySet<>(TTL_MS, TICK_MS, 40);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 6; t++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    int key = random.nextInt(64);
+                    if (random.nextInt(4) == 0) {
+                        keys.remove(key);
+                    } else {
+                        keys.touch(key);
+                    }
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            await(start);
+            while (running.get()) {
+                keys.advance();
+                Thread.onSpinWait();
+            }
+        }));
+        threads.forEach(Thread::start);
+        start.countDown();
+        Thread.sleep(500);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(keys.size()).isBetween(0, 40);
+        assertThat(keys.dropped()).isPositive();
+
+        // Toute clé encore présente est dans la roue : elle finit par expirer
+        expireAll(keys);
+        assertThat(keys.size()).isZero();
+        for (int key = 0; key < 64; key++) {
+            assertThat(keys.contains(key)).isFalse();
+        }
+        assertThat(keys.touch(1)).isTrue();
+    }
+
+    private static void expireAll(ExpiringKeySet<?> keys) throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            Thread.sleep(TTL_MS);
+            keys.advance();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
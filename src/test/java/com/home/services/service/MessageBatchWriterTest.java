@@ -0,0 +1,369 @@
+package com.home.services.service;
+
+import com.home.services.dto.response.MessageResponse;
+import com.home.services.event.MessageSentEvent;
+import com.home.services.model.Application;
+import com.home.services.model.Category;
+import com.home.services.model.Conversation;
+import com.home.services.model.ServiceRequest;
+import com.home.services.model.User;
+import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.model.enums.RequestStatus;
+import com.home.services.model.enums.Role;
+import com.home.services.repository.ApplicationRepository;
+import com.home.services.repository.CategoryRepository;
+import com.home.services.repository.ConversationRepository;
+import com.home.services.repository.ServiceRequestRepository;
+import com.home.services.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Regroupement des envois en lots, nouvelle tentative unitaire, diffusion hors du fil d'écriture et idempotence
+ * Le regroupement est observé en retenant l'écriture d'un premier lot (autre conversation) pendant
+ * que la file se remplit : tout ce qui a été soumis entre-temps part dans le lot suivant
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:batchwriter;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+public class MessageBatchWriterTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    // Conversations des lots retenus, une par test
+    private static final AtomicInteger HELD = new AtomicInteger();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    private final List<MessageBatchWriter> writers = new ArrayList<>();
+
+    private int sequence;
+
+    @AfterEach
+    public void stopWriters() throws InterruptedException {
+        for (MessageBatchWriter writer : writers) {
+            writer.stop();
+        }
+        writers.clear();
+    }
+
+    @Test
+    public void queuedSendsAreWrittenInOneBatch() throws Exception {
+        Fixture fixture = fixture("batch");
+        GatedJdbcTemplate gate = new GatedJdbcTemplate(jdbcTemplate);
+        MessageBatchWriter writer = writer(gate, event -> {
+        });
+        writer.start();
+        CompletableFuture<MessageResponse> held = hold(writer, gate);
+
+        List<CompletableFuture<MessageResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            User sender = i % 2 == 0 ? fixture.client() : fixture.provider();
+            results.add(submit(writer, fixture, sender, "Message " + i));
+        }
+        gate.release();
+        held.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        List<Long> ids = new ArrayList<>();
+        for (CompletableFuture<MessageResponse> result : results) {
+            ids.add(result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getId());
+        }
+        // Ids attribués dans l'ordre de soumission
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+
+        Long applicationId = fixture.application().getId();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages WHERE application_id = ?",
+                Long.class, applicationId)).isEqualTo(20L);
+        // Un seul lot : un seul horodatage pour tous les messages
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT created_at) FROM messages WHERE application_id = ?",
+                Long.class, applicationId)).isEqualTo(1L);
+
+        Map<String, Object> conversation = jdbcTemplate.queryForMap("SELECT last_message_id, "
+                + "client_unread_count, provider_unread_count FROM conversations WHERE application_id = ?",
+                applicationId);
+        assertThat(((Number) conversation.get("last_message_id")).longValue()).isEqualTo(ids.get(19));
+        assertThat(((Number) conversation.get("client_unread_count")).intValue()).isEqualTo(10);
+        assertThat(((Number) conversation.get("provider_unread_count")).intValue()).isEqualTo(10);
+    }
+
+    @Test
+    public void failingMessageIsRetriedAloneAndTheOthersAreWritten() throws Exception {
+        Fixture fixture = fixture("fallback");
+        GatedJdbcTemplate gate = new GatedJdbcTemplate(jdbcTemplate);
+        MessageBatchWriter writer = writer(gate, event -> {
+        });
+        writer.start();
+        CompletableFuture<MessageResponse> held = hold(writer, gate);
+
+        CompletableFuture<MessageResponse> first = submit(writer, fixture, fixture.client(), "Avant");
+        // Candidature inexistante : la clé étrangère fait échouer le lot entier
+        CompletableFuture<MessageResponse> invalid = writer.submit(-1L, fixture.client().getId(),
+                fixture.client().getNom(), fixture.client().getId(), fixture.provider().getId(), "Invalide");
+        CompletableFuture<MessageResponse> last = submit(writer, fixture, fixture.client(), "Après");
+        gate.release();
+        held.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertThat(first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getContent()).isEqualTo("Avant");
+        assertThat(last.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getContent()).isEqualTo("Après");
+        assertThatThrownBy(() -> invalid.get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class);
+
+        Long applicationId = fixture.application().getId();
+        assertThat(jdbcTemplate.queryForList("SELECT content FROM messages WHERE application_id = ? ORDER BY id",
+                String.class, applicationId)).containsExactly("Avant", "Après");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT provider_unread_count FROM conversations WHERE application_id = ?",
+                Integer.class, applicationId)).isEqualTo(2);
+    }
+
+    @Test
+    public void olderMessageDoesNotRewindTheConversationSummary() throws Exception {
+        Fixture fixture = fixture("monotonic");
+        MessageBatchWriter writer = writer(event -> {
+        });
+        Long applicationId = fixture.application().getId();
+        // Message d'id supérieur déjà validé par un autre lot
+        jdbcTemplate.update("UPDATE conversations SET last_message_id = ?, last_message_preview = ? "
+                + "WHERE application_id = ?", 1000000L, "Plus récent", applicationId);
+        writer.start();
+
+        submit(writer, fixture, fixture.provider(), "Plus ancien").get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        Map<String, Object> conversation = jdbcTemplate.queryForMap("SELECT last_message_id, "
+                + "last_message_preview, client_unread_count FROM conversations WHERE application_id = ?",
+                applicationId);
+        assertThat(((Number) conversation.get("last_message_id")).longValue()).isEqualTo(1000000L);
+        assertThat(conversation.get("last_message_preview")).isEqualTo("Plus récent");
+        // Le message compte tout de même comme non lu
+        assertThat(((Number) conversation.get("client_unread_count")).intValue()).isEqualTo(1);
+    }
+
+    @Test
+    public void slowListenersDoNotDelayTheSenders() throws Exception {
+        Fixture fixture = fixture("listeners");
+        CountDownLatch release = new CountDownLatch(1);
+        List<MessageSentEvent> delivered = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        MessageBatchWriter writer = writer(event -> {
+            threads.add(Thread.currentThread().getName());
+            try {
+                release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.add((MessageSentEvent) event);
+        });
+        writer.start();
+
+        // Écouteur bloqué : les envois suivants sont tout de même confirmés
+        MessageResponse first = submit(writer, fixture, fixture.client(), "Un")
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        MessageResponse second = submit(writer, fixture, fixture.provider(), "Deux")
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertThat(delivered).isEmpty();
+
+        release.countDown();
+        waitFor(() -> delivered.size() == 2);
+        assertThat(delivered).extracting(event -> event.getMessage().getId())
+                .containsExactly(first.getId(), second.getId());
+        assertThat(delivered.get(0).getClientId()).isEqualTo(fixture.client().getId());
+        assertThat(delivered.get(0).getProviderId()).isEqualTo(fixture.provider().getId());
+        assertThat(threads).containsOnly("message-event-dispatcher");
+    }
+
+    @Test
+    public void resendWithTheSameKeyWritesOnce() throws Exception {
+        Fixture fixture = fixture("idempotency");
+        MessageBatchWriter writer = writer(event -> {
+        });
+        writer.start();
+        MessageIdempotencyStore idempotencyStore = new MessageIdempotencyStore(300000);
+        Long senderId = fixture.client().getId();
+
+        MessageResponse sent = idempotencyStore.submitOnce(senderId, "cle-1",
+                () -> submit(writer, fixture, fixture.client(), "Une seule fois"))
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        MessageResponse resent = idempotencyStore.submitOnce(senderId, "cle-1",
+                () -> submit(writer, fixture, fixture.client(), "Une seule fois"))
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertThat(resent.getId()).isEqualTo(sent.getId());
+
+        // Un envoi en échec libère la clé : la nouvelle tentative est écrite
+        CompletableFuture<MessageResponse> failed = idempotencyStore.submitOnce(senderId, "cle-2",
+                () -> writer.submit(-1L, senderId, fixture.client().getNom(), senderId,
+                        fixture.provider().getId(), "Échec"));
+        assertThatThrownBy(() -> failed.get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class);
+        MessageResponse retried = idempotencyStore.submitOnce(senderId, "cle-2",
+                () -> submit(writer, fixture, fixture.client(), "Nouvelle tentative"))
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertThat(retried.getContent()).isEqualTo("Nouvelle tentative");
+
+        assertThat(jdbcTemplate.queryForList("SELECT content FROM messages WHERE application_id = ? ORDER BY id",
+                String.class, fixture.application().getId()))
+                .containsExactly("Une seule fois", "Nouvelle tentative");
+    }
+
+    @Test
+    public void stopWithoutStartDoesNotFail() throws Exception {
+        MessageBatchWriter writer = new MessageBatchWriter(jdbcTemplate, transactionManager, event -> {
+        }, 100, 1000, 1000);
+        writer.stop();
+        assertThatThrownBy(() -> writer.submit(1L, 1L, "Personne", 1L, 2L, "Refusé"))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    private MessageBatchWriter writer(ApplicationEventPublisher publisher) {
+        return writer(jdbcTemplate, publisher);
+    }
+
+    private MessageBatchWriter writer(JdbcTemplate template, ApplicationEventPublisher publisher) {
+        MessageBatchWriter writer = new MessageBatchWriter(template, transactionManager, publisher, 100, 1000,
+                1000);
+        writers.add(writer);
+        return writer;
+    }
+
+    /**
+     * Soumettre un message d'une autre conversation et attendre que son écriture soit retenue
+     */
+    private CompletableFuture<MessageResponse> hold(MessageBatchWriter writer, GatedJdbcTemplate gate)
+            throws InterruptedException {
+        Fixture other = fixture("retenu" + HELD.incrementAndGet());
+        CompletableFuture<MessageResponse> held = submit(writer, other, other.client(), "Retenu");
+        assertThat(gate.awaitEntered()).isTrue();
+        return held;
+    }
+
+    private CompletableFuture<MessageResponse> submit(MessageBatchWriter writer, Fixture fixture, User sender,
+            String content) {
+        return writer.submit(fixture.application().getId(), sender.getId(), sender.getNom(),
+                fixture.client().getId(), fixture.provider().getId(), content);
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private Fixture fixture(String name) {
+        int n = ++sequence;
+        User client = saveUser("client_writer_" + name + "@test.com", Role.CLIENT);
+        User provider = saveUser("provider_writer_" + name + "@test.com", Role.PRESTATAIRE);
+        Category category = categoryRepository.save(Category.builder()
+                .nom("Catégorie messages " + name)
+                .icone("🔧")
+                .active(true)
+                .build());
+        ServiceRequest request = serviceRequestRepository.save(ServiceRequest.builder()
+                .client(client)
+                .category(category)
+                .titre("Annonce " + n)
+                .description("Annonce avec conversation " + n)
+                .quartier("Cocody")
+                .statut(RequestStatus.EN_COURS)
+                .selectedProvider(provider)
+                .build());
+        Application application = applicationRepository.save(Application.builder()
+                .serviceRequest(request)
+                .provider(provider)
+                .statut(ApplicationStatus.ACCEPTEE)
+                .build());
+        conversationRepository.save(Conversation.builder()
+                .application(application)
+                .client(client)
+                .provider(provider)
+                .requestTitre(request.getTitre())
+                .build());
+        return new Fixture(client, provider, application);
+    }
+
+    private User saveUser(String email, Role role) {
+        return userRepository.save(User.builder()
+                .nom("Utilisateur " + email.substring(0, email.indexOf('@')))
+                .email(email)
+                .password("Password123")
+                .role(role)
+                .build());
+    }
+
+    private record Fixture(User client, User provider, Application application) {
+    }
+
+    /**
+     * JdbcTemplate dont la première écriture attend d'être libérée
+     */
+    private static final class GatedJdbcTemplate extends JdbcTemplate {
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        private GatedJdbcTemplate(JdbcTemplate delegate) {
+            super(delegate.getDataSource());
+        }
+
+        @Override
+        public <T> T execute(ConnectionCallback<T> action) {
+            if (entered.getCount() > 0) {
+                entered.countDown();
+                try {
+                    released.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.execute(action);
+        }
+
+        boolean awaitEntered() throws InterruptedException {
+            return entered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.home.services.service;
+
+import com.home.services.dto.response.MessageResponse;
+import com.home.services.dto.response.MessageSyncResponse;
+import com.home.services.event.MessageSentEvent;
+import com.home.services.model.Application;
+import com.home.services.model.Category;
+import com.home.services.model.Conversation;
+import com.home.services.model.Message;
+import com.home.services.model.ServiceRequest;
+import com.home.services.model.User;
+import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.model.enums.RequestStatus;
+import com.home.services.model.enums.Role;
+import com.home.services.repository.ApplicationRepository;
+import com.home.services.repository.CategoryRepository;
+import com.home.services.repository.ConversationRepository;
+import com.home.services.repository.MessageRepository;
+import com.home.services.repository.ServiceRequestRepository;
+import com.home.services.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Message d'id inférieur au curseur validé après coup, et repères de synchronisation bornés
+ * Fenêtre de recouvrement et durée de vie des repères réduites à 300 ms
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:messagesync;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.messages.sync.overlap-ms=300",
+        "app.messages.sync.mark-ttl-ms=300"
+})
+@ActiveProfiles("test")
+public class MessageSyncTest {
+
+    private static final long WINDOW_MS = 300;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageSyncTracker syncTracker;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void messageCommittedBelowTheCursorIsStillDelivered() throws InterruptedException {
+        User client = saveUser("client_sync_late@test.com", Role.CLIENT);
+        User provider = saveUser("provider_sync_late@test.com", Role.PRESTATAIRE);
+        Application application = conversation(client, provider, "late");
+
+        Message first = saveMessage(application, provider, "Premier");
+        // Id réservé par un envoi encore en cours au moment où le suivant est validé
+        Message reserved = saveMessage(application, provider, "Réservé");
+        Message third = saveMessage(application, provider, "Troisième");
+        jdbcTemplate.update("DELETE FROM messages WHERE id = ?", reserved.getId());
+        recordLastMessage(application, third);
+
+        MessageSyncResponse initial = messageService.sync(client.getEmail(), null);
+        assertThat(initial.getCursor()).isEqualTo(third.getId());
+        assertThat(first.getId()).isLessThan(reserved.getId());
+
+        Thread.sleep(WINDOW_MS + 100);
+        MessageSyncResponse idle = messageService.sync(client.getEmail(), third.getId());
+        assertThat(idle.getMessages()).isEmpty();
+        assertThat(idle.getConversations()).isEmpty();
+        assertThat(idle.getCursor()).isEqualTo(third.getId());
+
+        // Validation tardive de l'id réservé, inférieur au curseur du client
+        jdbcTemplate.update("INSERT INTO messages (id, application_id, sender_id, content, is_read, created_at) "
+                + "VALUES (?, ?, ?, ?, FALSE, ?)", reserved.getId(), application.getId(), provider.getId(),
+                "En retard", LocalDateTime.now());
+        jdbcTemplate.update("UPDATE conversations SET client_unread_count = client_unread_count + 1, "
+                + "updated_at = ? WHERE application_id = ?", LocalDateTime.now(), application.getId());
+        syncTracker.onMessageSent(new MessageSentEvent(MessageResponse.builder()
+                .id(reserved.getId())
+                .applicationId(application.getId())
+                .senderId(provider.getId())
+                .content("En retard")
+                .build(), client.getId(), provider.getId()));
+
+        MessageSyncResponse late = messageService.sync(client.getEmail(), third.getId());
+        assertThat(late.getMessages()).extracting(MessageResponse::getId).containsExactly(reserved.getId());
+        assertThat(late.getConversations()).extracting(c -> c.getApplicationId())
+                .containsExactly(application.getId());
+        assertThat(late.getCursor()).isEqualTo(third.getId());
+
+        // Fenêtre écoulée : de nouveau servi depuis le repère
+        Thread.sleep(WINDOW_MS + 100);
+        MessageSyncResponse settled = messageService.sync(client.getEmail(), third.getId());
+        assertThat(settled.getMessages()).isEmpty();
+        assertThat(settled.getCursor()).isEqualTo(third.getId());
+    }
+
+    @Test
+    public void newerMessagesAdvanceTheCursor() {
+        User client = saveUser("client_sync_new@test.com", Role.CLIENT);
+        User provider = saveUser("provider_sync_new@test.com", Role.PRESTATAIRE);
+        Application application = conversation(client, provider, "new");
+        Message first = saveMessage(application, provider, "Un");
+        recordLastMessage(application, first);
+
+        long cursor = messageService.sync(client.getEmail(), null).getCursor();
+        assertThat(cursor).isEqualTo(first.getId());
+
+        Message second = saveMessage(application, client, "Deux");
+        recordLastMessage(application, second);
+        syncTracker.onMessageSent(new MessageSentEvent(MessageResponse.builder()
+                .id(second.getId())
+                .applicationId(application.getId())
+                .senderId(client.getId())
+                .content("Deux")
+                .build(), client.getId(), provider.getId()));
+
+        MessageSyncResponse sync = messageService.sync(client.getEmail(), cursor);
+        assertThat(sync.getMessages()).extracting(MessageResponse::getContent).contains("Deux");
+        assertThat(sync.getCursor()).isEqualTo(second.getId());
+        assertThat(sync.getHasMore()).isFalse();
+    }
+
+    @Test
+    public void marksExpireAndOnlyTrackedUsersAreUpdated() throws InterruptedException {
+        User client = saveUser("client_sync_marks@test.com", Role.CLIENT);
+        User provider = saveUser("provider_sync_marks@test.com", Role.PRESTATAIRE);
+        Application application = conversation(client, provider, "marks");
+        Message message = saveMessage(application, provider, "Bonjour");
+        recordLastMessage(application, message);
+
+        MessageSyncTracker tracker = new MessageSyncTracker(conversationRepository, 2000, 5000, 30000, 200,
+                WINDOW_MS, WINDOW_MS);
+
+        // Aucun repère créé pour un utilisateur qui ne synchronise pas
+        tracker.onMessageSent(sentEvent(message.getId() + 1000, client, provider));
+        assertThat(tracker.trackedUsers()).isZero();
+
+        MessageSyncTracker.SyncMark loaded = tracker.mark(client.getId());
+        assertThat(loaded.maxMessageId()).isEqualTo(message.getId());
+        assertThat(tracker.trackedUsers()).isEqualTo(1);
+
+        tracker.onMessageSent(sentEvent(message.getId() + 1000, client, provider));
+        MessageSyncTracker.SyncMark advanced = tracker.mark(client.getId());
+        assertThat(advanced.maxMessageId()).isEqualTo(message.getId() + 1000);
+        // Changement récent : la fenêtre de recouvrement impose une relecture
+        assertThat(tracker.isUpToDate(advanced, message.getId() + 1000)).isFalse();
+
+        Thread.sleep(WINDOW_MS + 100);
+        assertThat(tracker.isUpToDate(advanced, message.getId() + 1000)).isTrue();
+        tracker.purgeExpired();
+        assertThat(tracker.trackedUsers()).isZero();
+
+        // Relu en base après expiration
+        assertThat(tracker.mark(client.getId()).maxMessageId()).isEqualTo(message.getId());
+    }
+
+    private MessageSentEvent sentEvent(long messageId, User client, User provider) {
+        return new MessageSentEvent(MessageResponse.builder()
+                .id(messageId)
+                .senderId(provider.getId())
+                .content("Message " + messageId)
+                .build(), client.getId(), provider.getId());
+    }
+
+    private void recordLastMessage(Application application, Message message) {
+        jdbcTemplate.update("UPDATE conversations SET last_message_id = ?, last_message_sender_id = ?, "
+                + "last_message_at = ?, updated_at = ? WHERE application_id = ?", message.getId(),
+                message.getSender().getId(), message.getCreatedAt(), message.getCreatedAt(), application.getId());
+    }
+
+    private Message saveMessage(Application application, User sender, String content) {
+        return messageRepository.save(Message.builder()
+                .application(application)
+                .sender(sender)
+                .content(content)
+                .build());
+    }
+
+    private Application conversation(User client, User provider, String name) {
+        Category category = categoryRepository.save(Category.builder()
+                .nom("Catégorie synchro " + name)
+                .icone("🔧")
+                .active(true)
+                .build());
+        ServiceRequest request = serviceRequestRepository.save(ServiceRequest.builder()
+                .client(client)
+                .category(category)
+                .titre("Annonce " + name)
+                .description("Annonce avec conversation " + name)
+                .quartier("Cocody")
+                .statut(RequestStatus.EN_COURS)
+                .selectedProvider(provider)
+                .build());
+        Application application = applicationRepository.save(Application.builder()
+                .serviceRequest(request)
+                .provider(provider)
+                .statut(ApplicationStatus.ACCEPTEE)
+                .build());
+        conversationRepository.save(Conversation.builder()
+                .application(application)
+                .client(client)
+                .provider(provider)
+                .requestTitre(request.getTitre())
+                .build());
+        return application;
+    }
+
+    private User saveUser(String email, Role role) {
+        return userRepository.save(User.builder()
+                .nom("Utilisateur " + email.substring(0, email.indexOf('@')))
+                .email(email)
+                .password("Password123")
+                .role(role)
+                .build());
+    }
+}
@@ -0,0 +1,106 @@
+package com.home.services.service;
+
+import com.home.services.dto.request.ReviewDto;
+import com.home.services.model.Application;
+import com.home.services.model.ProviderProfile;
+import com.home.services.model.User;
+import com.home.services.model.enums.Role;
+import com.home.services.repository.ProviderProfileRepository;
+import com.home.services.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Les sommes incrémentées à chaque avis et le recalcul depuis la table reviews doivent concorder
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:ratingreconcile;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+public class ProviderRatingReconciliationTest {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ProviderRatingReconciliation reconciliation;
+
+    @Autowired
+    private ProviderProfileRepository providerProfileRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void incrementalSumsMatchTheRebuild() {
+        User client = fixtures.saveUser("client_rating_sums", Role.CLIENT);
+        User provider = fixtures.saveProvider("provider_rating_sums");
+
+        review(client, provider, 5, 4, null, 5);
+        review(client, provider, 3, null, 2, null);
+        review(client, provider, 4, 4, 3, 1);
+
+        ProviderProfile incremental = providerProfileRepository.findByUserId(provider.getId()).orElseThrow();
+        assertThat(incremental.getNombreAvis()).isEqualTo(3);
+        assertThat(incremental.getSommeNotes()).isEqualTo(12L);
+        assertThat(incremental.getNoteGlobale()).isEqualTo(4.0);
+        assertThat(incremental.getSommeQualite()).isEqualTo(8L);
+        assertThat(incremental.getNombreQualite()).isEqualTo(2);
+        assertThat(incremental.getSommePonctualite()).isEqualTo(5L);
+        assertThat(incremental.getNombrePonctualite()).isEqualTo(2);
+        assertThat(incremental.getSommeCommunication()).isEqualTo(6L);
+        assertThat(incremental.getNombreCommunication()).isEqualTo(2);
+
+        // Déjà cohérent : le recalcul ne réécrit rien
+        assertThat(reconciliation.rebuild()).isZero();
+
+        // Dérive simulée : le recalcul rétablit exactement les valeurs incrémentales
+        jdbcTemplate.update("UPDATE provider_profiles SET somme_notes = 0, nombre_avis = 7, nombre_qualite = 0, "
+                + "note_globale = 1 WHERE user_id = ?", provider.getId());
+        assertThat(reconciliation.rebuild()).isEqualTo(1);
+
+        ProviderProfile rebuilt = providerProfileRepository.findByUserId(provider.getId()).orElseThrow();
+        assertThat(rebuilt.getNombreAvis()).isEqualTo(incremental.getNombreAvis());
+        assertThat(rebuilt.getSommeNotes()).isEqualTo(incremental.getSommeNotes());
+        assertThat(rebuilt.getNoteGlobale()).isEqualTo(incremental.getNoteGlobale());
+        assertThat(rebuilt.getSommeQualite()).isEqualTo(incremental.getSommeQualite());
+        assertThat(rebuilt.getNombreQualite()).isEqualTo(incremental.getNombreQualite());
+        assertThat(rebuilt.getSommePonctualite()).isEqualTo(incremental.getSommePonctualite());
+        assertThat(rebuilt.getNombrePonctualite()).isEqualTo(incremental.getNombrePonctualite());
+        assertThat(rebuilt.getSommeCommunication()).isEqualTo(incremental.getSommeCommunication());
+        assertThat(rebuilt.getNombreCommunication()).isEqualTo(incremental.getNombreCommunication());
+    }
+
+    @Test
+    public void reviewIsRejectedWhenTheProviderHasNoProfile() {
+        User client = fixtures.saveUser("client_no_profile", Role.CLIENT);
+        User provider = fixtures.saveUser("provider_no_profile", Role.PRESTATAIRE);
+        Application application = fixtures.saveCompletedApplication(client, provider);
+
+        assertThatThrownBy(() -> reviewService.create(ReviewDto.builder()
+                .applicationId(application.getId())
+                .note(5)
+                .build(), client.getEmail()))
+                .hasMessageContaining("Profil prestataire");
+    }
+
+    private void review(User client, User provider, int note, Integer qualite, Integer ponctualite,
+            Integer communication) {
+        Application application = fixtures.saveCompletedApplication(client, provider);
+        reviewService.create(ReviewDto.builder()
+                .applicationId(application.getId())
+                .note(note)
+                .noteQualite(qualite)
+                .notePonctualite(ponctualite)
+                .noteCommunication(communication)
+                .build(), client.getEmail());
+    }
+
+}
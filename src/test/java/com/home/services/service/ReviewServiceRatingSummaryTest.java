@@ -0,0 +1,71 @@
+package com.home.services.service;
+
+import com.home.services.dto.request.ReviewDto;
+import com.home.services.dto.response.ProviderRatingSummaryResponse;
+import com.home.services.model.Application;
+import com.home.services.model.User;
+import com.home.services.model.enums.Role;
+import com.home.services.ranking.BayesianRating;
+import com.home.services.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Résumé de notes d'un prestataire : répartition par note, invalidation du cache à chaque avis
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:ratingsummary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+public class ReviewServiceRatingSummaryTest {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private BayesianRating bayesianRating;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Test
+    public void summaryCountsReviewsPerNoteAndFollowsNewReviews() {
+        User client = fixtures.saveUser("client_summary", Role.CLIENT);
+        User provider = fixtures.saveProvider("provider_summary");
+
+        review(client, provider, 5, 4);
+        review(client, provider, 5, null);
+        review(client, provider, 3, 2);
+
+        ProviderRatingSummaryResponse summary = reviewService.getRatingSummary(provider.getId());
+        assertThat(summary.getNombreAvis()).isEqualTo(3);
+        assertThat(summary.getRepartition()).isEqualTo(Map.of(1, 0L, 2, 0L, 3, 1L, 4, 0L, 5, 2L));
+        assertThat(summary.getNoteGlobale()).isEqualTo(4.33);
+        assertThat(summary.getNoteQualite()).isEqualTo(3.0);
+        assertThat(summary.getNotePonctualite()).isNull();
+        // Même score que celui du classement des candidatures
+        assertThat(summary.getScoreBayesien())
+                .isEqualTo(Math.round(bayesianRating.score(13L, 3) * 100) / 100.0);
+
+        // L'avis suivant invalide le résumé mis en cache
+        review(client, provider, 1, null);
+        ProviderRatingSummaryResponse updated = reviewService.getRatingSummary(provider.getId());
+        assertThat(updated.getNombreAvis()).isEqualTo(4);
+        assertThat(updated.getRepartition()).containsEntry(1, 1L).containsEntry(5, 2L);
+        assertThat(updated.getNoteGlobale()).isEqualTo(3.5);
+    }
+
+    private void review(User client, User provider, int note, Integer qualite) {
+        Application application = fixtures.saveCompletedApplication(client, provider);
+        reviewService.create(ReviewDto.builder()
+                .applicationId(application.getId())
+                .note(note)
+                .noteQualite(qualite)
+                .build(), client.getEmail());
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.home.services.service;
+
+import com.home.services.dto.request.ServiceRequestDto;
+import com.home.services.model.ServiceRequest;
+import com.home.services.model.User;
+import com.home.services.model.enums.RequestStatus;
+import com.home.services.model.enums.Role;
+import com.home.services.model.enums.Urgency;
+import com.home.services.repository.ServiceRequestRepository;
+import com.home.services.support.TestFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Date d'expiration d'une annonce publiée : fixée à la publication, recalculée quand l'urgence change
+ * Durées par défaut : 30 jours (normale), 7 jours (urgente), 2 jours (très urgente)
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:requestexpiry;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+public class ServiceRequestServiceExpiryTest {
+
+    @Autowired
+    private ServiceRequestService serviceRequestService;
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Test
+    public void urgencyChangeOnAPublishedRequestKeepsThePublicationDate() {
+        User client = fixtures.saveUser("client_expiry", Role.CLIENT);
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(20).truncatedTo(ChronoUnit.SECONDS);
+        ServiceRequest request = fixtures.saveRequest(client, fixtures.saveCategory("Catégorie expiration"),
+                builder -> builder.urgence(Urgency.NORMAL).expiresAt(expiresAt));
+
+        // Publiée il y a 10 jours : très urgente, elle aurait expiré il y a 8 jours
+        update(request, client, Urgency.TRES_URGENT);
+        assertThat(expiresAt(request)).isEqualTo(expiresAt.minusDays(28));
+
+        update(request, client, Urgency.URGENT);
+        assertThat(expiresAt(request)).isEqualTo(expiresAt.minusDays(23));
+
+        // Urgence inchangée : la date ne bouge pas
+        update(request, client, Urgency.URGENT);
+        assertThat(expiresAt(request)).isEqualTo(expiresAt.minusDays(23));
+    }
+
+    @Test
+    public void urgencyChangeOnADraftLeavesTheDateToThePublication() {
+        User client = fixtures.saveUser("client_expiry_draft", Role.CLIENT);
+        ServiceRequest request = fixtures.saveRequest(client, fixtures.saveCategory("Catégorie expiration"),
+                builder -> builder.urgence(Urgency.NORMAL).statut(RequestStatus.BROUILLON));
+
+        update(request, client, Urgency.TRES_URGENT);
+        assertThat(expiresAt(request)).isNull();
+    }
+
+    private void update(ServiceRequest request, User client, Urgency urgence) {
+        serviceRequestService.update(request.getId(), ServiceRequestDto.builder()
+                .urgence(urgence)
+                .publier(false)
+                .build(), client.getEmail());
+    }
+
+    private LocalDateTime expiresAt(ServiceRequest request) {
+        return serviceRequestRepository.findById(request.getId()).orElseThrow().getExpiresAt();
+    }
+}
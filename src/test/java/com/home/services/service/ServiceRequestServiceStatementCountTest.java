@@ -0,0 +1,166 @@
+package com.home.services.service;
+
+import com.home.services.dto.response.ClientDashboardResponse;
+import com.home.services.dto.response.CursorPageResponse;
+import com.home.services.dto.response.ServiceRequestSummaryResponse;
+import com.home.services.model.ServiceRequest;
+import com.home.services.model.User;
+import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.model.enums.RequestStatus;
+import com.home.services.model.enums.Role;
+import com.home.services.model.enums.Urgency;
+import com.home.services.search.InMemoryServiceRequestSearchIndex;
+import com.home.services.search.ServiceRequestFilterIndex;
+import com.home.services.search.ServiceRequestSearchIndex;
+import com.home.services.support.TestFixtures;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Le nombre de requêtes SQL d'un listing ne doit pas dépendre du nombre d'annonces (pas de N+1)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statementcount;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+public class ServiceRequestServiceStatementCountTest {
+
+    @Autowired
+    private ServiceRequestService serviceRequestService;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private ServiceRequestFilterIndex serviceRequestFilterIndex;
+
+    @Autowired
+    private ServiceRequestSearchIndex serviceRequestSearchIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void getByClientStatementCountDoesNotGrowWithTheList() {
+        User client = fixtures.saveUser("client_statements", Role.CLIENT);
+
+        createRequests(client, 2);
+        long smallListStatements = countStatements(() -> serviceRequestService.getByClient(client.getEmail()));
+
+        createRequests(client, 18);
+        List<ServiceRequestSummaryResponse> responses = serviceRequestService.getByClient(client.getEmail());
+        long largeListStatements = countStatements(() -> serviceRequestService.getByClient(client.getEmail()));
+
+        assertThat(responses).hasSize(20);
+        assertThat(responses).allSatisfy(r -> {
+            assertThat(r.getClientNom()).isEqualTo(client.getNom());
+            assertThat(r.getCategoryNom()).isNotNull();
+            assertThat(r.getSelectedProviderNom()).isNotNull();
+        });
+        assertThat(largeListStatements).isEqualTo(smallListStatements);
+    }
+
+    @Test
+    public void clientDashboardStatementCountDoesNotGrowWithTheList() {
+        User client = fixtures.saveUser("client_dashboard_statements", Role.CLIENT);
+
+        createRequests(client, 2);
+        long smallListStatements = countStatements(() -> serviceRequestService.getClientDashboard(client.getEmail()));
+
+        createRequests(client, 18);
+        ClientDashboardResponse dashboard = serviceRequestService.getClientDashboard(client.getEmail());
+        long largeListStatements = countStatements(() -> serviceRequestService.getClientDashboard(client.getEmail()));
+
+        assertThat(dashboard.getTotalRequests()).isEqualTo(20);
+        assertThat(dashboard.getTotalApplications()).isEqualTo(20);
+        assertThat(dashboard.getRequests()).allSatisfy(r -> {
+            assertThat(r.getAcceptedApplications()).isEqualTo(1);
+            assertThat(r.getRequest().getSelectedProviderNom()).isNotNull();
+        });
+        assertThat(largeListStatements).isEqualTo(smallListStatements);
+    }
+
+    @Test
+    public void publishedFeedAndSearchStatementCountDoesNotGrowWithTheList() {
+        User client = fixtures.saveUser("client_feed_statements", Role.CLIENT);
+
+        createPublishedRequests(client, 2);
+        long smallFeedStatements = countStatements(() -> serviceRequestService.getPublished(
+                null, null, null, null, null, 50));
+        long smallSearchStatements = countStatements(() -> serviceRequestService.search(
+                "plomberie", null, null, null, 50));
+
+        createPublishedRequests(client, 18);
+        CursorPageResponse<ServiceRequestSummaryResponse> feed = serviceRequestService.getPublished(
+                null, null, null, null, null, 50);
+        CursorPageResponse<ServiceRequestSummaryResponse> results = serviceRequestService.search(
+                "plomberie", null, null, null, 50);
+        long largeFeedStatements = countStatements(() -> serviceRequestService.getPublished(
+                null, null, null, null, null, 50));
+        long largeSearchStatements = countStatements(() -> serviceRequestService.search(
+                "plomberie", null, null, null, 50));
+
+        assertThat(feed.getItems()).hasSize(20);
+        assertThat(results.getItems()).hasSize(20);
+        assertThat(feed.getItems()).allSatisfy(r -> {
+            assertThat(r.getClientNom()).isEqualTo(client.getNom());
+            assertThat(r.getCategoryNom()).isNotNull();
+        });
+        assertThat(largeFeedStatements).isEqualTo(smallFeedStatements);
+        assertThat(largeSearchStatements).isEqualTo(smallSearchStatements);
+    }
+
+    private long countStatements(Supplier<?> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        call.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Chaque annonce a sa propre catégorie et son propre prestataire : un chargement paresseux
+     * des associations coûterait une requête par annonce
+     */
+    private void createRequests(User client, int count) {
+        for (int i = 0; i < count; i++) {
+            User provider = fixtures.saveUser("provider_statements", Role.PRESTATAIRE);
+            ServiceRequest request = fixtures.saveRequest(client, fixtures.saveCategory("Catégorie statements"),
+                    builder -> builder
+                            .quartier("Plateau")
+                            .urgence(Urgency.NORMAL)
+                            .statut(RequestStatus.EN_COURS)
+                            .selectedProvider(provider)
+                            .nombreCandidatures(1));
+            fixtures.saveApplication(request, provider, ApplicationStatus.ACCEPTEE);
+        }
+    }
+
+    /**
+     * Annonces publiées, chacune dans sa catégorie ; les index en mémoire sont reconstruits
+     * comme au démarrage (les enregistrements directs ne publient pas d'événement)
+     */
+    private void createPublishedRequests(User client, int count) {
+        for (int i = 0; i < count; i++) {
+            int n = TestFixtures.next();
+            fixtures.saveRequest(client, fixtures.saveCategory("Catégorie fil"), request -> request
+                    .titre("Réparation plomberie " + n)
+                    .description("Fuite sous l'évier, annonce " + n)
+                    .quartier("Plateau")
+                    .urgence(Urgency.NORMAL));
+        }
+        serviceRequestFilterIndex.rebuild();
+        ((InMemoryServiceRequestSearchIndex) serviceRequestSearchIndex).rebuild();
+    }
+
+}
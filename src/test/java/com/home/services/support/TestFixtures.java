@@ -0,0 +1,128 @@
+package com.home.services.support;
+
+import com.home.services.model.Application;
+import com.home.services.model.Category;
+import com.home.services.model.ProviderProfile;
+import com.home.services.model.ServiceRequest;
+import com.home.services.model.User;
+import com.home.services.model.enums.ApplicationStatus;
+import com.home.services.model.enums.ProfileStatus;
+import com.home.services.model.enums.RequestStatus;
+import com.home.services.model.enums.Role;
+import com.home.services.repository.ApplicationRepository;
+import com.home.services.repository.CategoryRepository;
+import com.home.services.repository.ProviderProfileRepository;
+import com.home.services.repository.ServiceRequestRepository;
+import com.home.services.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Données de test partagées : utilisateurs, catégories, annonces et candidatures
+ * Le compteur est statique : JUnit crée une instance de classe de test par méthode, alors que le contexte
+ * Spring (et sa base) est partagé ; les emails et noms de catégorie restent donc uniques d'un test à l'autre
+ */
+@Component
+public class TestFixtures {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final ServiceRequestRepository serviceRequestRepository;
+    private final ApplicationRepository applicationRepository;
+    private final ProviderProfileRepository providerProfileRepository;
+
+    public TestFixtures(UserRepository userRepository, CategoryRepository categoryRepository,
+            ServiceRequestRepository serviceRequestRepository, ApplicationRepository applicationRepository,
+            ProviderProfileRepository providerProfileRepository) {
+        this.userRepository = userRepository;
+        this.categoryRepository = categoryRepository;
+        this.serviceRequestRepository = serviceRequestRepository;
+        this.applicationRepository = applicationRepository;
+        this.providerProfileRepository = providerProfileRepository;
+    }
+
+    /**
+     * Suffixe unique pour tout le processus de test
+     */
+    public static int next() {
+        return SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * Utilisateur d'email unique : {@code <prefix>_<n>@test.com}
+     */
+    public User saveUser(String prefix, Role role) {
+        String login = prefix + "_" + next();
+        return userRepository.save(User.builder()
+                .nom("Utilisateur " + login)
+                .email(login + "@test.com")
+                .password("Password123")
+                .role(role)
+                .build());
+    }
+
+    /**
+     * Prestataire avec un profil (incomplet)
+     */
+    public User saveProvider(String prefix) {
+        User provider = saveUser(prefix, Role.PRESTATAIRE);
+        providerProfileRepository.save(ProviderProfile.builder()
+                .user(provider)
+                .statut(ProfileStatus.INCOMPLET)
+                .build());
+        return provider;
+    }
+
+    public Category saveCategory(String prefix) {
+        return categoryRepository.save(Category.builder()
+                .nom(prefix + " " + next())
+                .icone("🔧")
+                .active(true)
+                .build());
+    }
+
+    /**
+     * Annonce publiée dans une nouvelle catégorie
+     */
+    public ServiceRequest savePublishedRequest(User client) {
+        return saveRequest(client, saveCategory("Catégorie"), request -> request);
+    }
+
+    /**
+     * Annonce publiée (titre, description et quartier par défaut), ajustée par {@code customize}
+     */
+    public ServiceRequest saveRequest(User client, Category category,
+            UnaryOperator<ServiceRequest.ServiceRequestBuilder> customize) {
+        int n = next();
+        return serviceRequestRepository.save(customize.apply(ServiceRequest.builder()
+                .client(client)
+                .category(category)
+                .titre("Annonce " + n)
+                .description("Description de l'annonce " + n)
+                .quartier("Cocody")
+                .statut(RequestStatus.PUBLIEE))
+                .build());
+    }
+
+    public Application saveApplication(ServiceRequest request, User provider, ApplicationStatus statut) {
+        return applicationRepository.save(Application.builder()
+                .serviceRequest(request)
+                .provider(provider)
+                .statut(statut)
+                .build());
+    }
+
+    /**
+     * Candidature acceptée sur une annonce terminée (pouvant recevoir un avis)
+     */
+    public Application saveCompletedApplication(User client, User provider) {
+        ServiceRequest request = saveRequest(client, saveCategory("Catégorie notes"), builder -> builder
+                .statut(RequestStatus.TERMINEE)
+                .selectedProvider(provider));
+        return saveApplication(request, provider, ApplicationStatus.ACCEPTEE);
+    }
+}